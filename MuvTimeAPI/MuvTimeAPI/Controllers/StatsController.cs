@@ -1,4 +1,7 @@
+using System.Security.Cryptography;
+using System.Text.Json;
 using Microsoft.AspNetCore.Mvc;
+using Microsoft.Net.Http.Headers;
 using MuvTimeAPI.Models.DTOs;
 using MuvTimeAPI.Services;
 
@@ -21,6 +24,18 @@ public class StatsController : ControllerBase
         try
         {
             var stats = await _statsService.GetUserStatsAsync(userId);
+
+            // Validator for the app's HTTP cache: it must revalidate every time (no-cache), and gets a bodyless 304
+            // while the stats haven't changed
+            var etag = StatsETag(stats);
+            Response.Headers.ETag = etag.ToString();
+            Response.Headers.CacheControl = "private, no-cache";
+            var ifNoneMatch = Request.GetTypedHeaders().IfNoneMatch;
+            if (ifNoneMatch != null && ifNoneMatch.Any(tag => tag.Equals(EntityTagHeaderValue.Any) || tag.Compare(etag, useStrongComparison: false)))
+            {
+                return StatusCode(StatusCodes.Status304NotModified);
+            }
+
             return Ok(stats);
         }
         catch (Exception ex)
@@ -29,6 +44,13 @@ public class StatsController : ControllerBase
         }
     }
 
+    // Hash of the serialized stats, so any change to them is a new tag
+    private static EntityTagHeaderValue StatsETag(StatsDto stats)
+    {
+        var hash = SHA256.HashData(JsonSerializer.SerializeToUtf8Bytes(stats));
+        return new EntityTagHeaderValue($"\"{Convert.ToHexString(hash, 0, 16)}\"");
+    }
+
     [HttpPost("{userId}/update")]
     public async Task<ActionResult<StatsDto>> UpdateUserStats(string userId, [FromBody] UpdateStatsRequest request)
     {
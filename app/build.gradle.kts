@@ -16,9 +16,19 @@ android {
         versionName = "1.0"
 
         testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+
+        // Counter/pose debug logging and the frame trace; a literal so javac drops guarded code in release
+        buildConfigField("boolean", "POSE_LOGGING", "false")
+    }
+
+    buildFeatures {
+        buildConfig = true
     }
 
     buildTypes {
+        debug {
+            buildConfigField("boolean", "POSE_LOGGING", "true")
+        }
         release {
             isMinifyEnabled = false
             proguardFiles(
@@ -27,10 +37,23 @@ android {
             )
         }
     }
+    androidResources {
+        // Keep the models uncompressed so they can be opened by file descriptor
+        noCompress += "onnx"
+    }
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_17
         targetCompatibility = JavaVersion.VERSION_17
     }
+    testOptions {
+        unitTests.all {
+            // CounterReplayTest writes its per-counter reps/ns/allocation table here
+            it.systemProperty(
+                "counterReplay.reportDir",
+                layout.buildDirectory.dir("reports/counter-replay").get().asFile.absolutePath
+            )
+        }
+    }
 }
 
 dependencies {
@@ -51,6 +74,9 @@ dependencies {
     // ONNX Runtime
     implementation("com.microsoft.onnxruntime:onnxruntime-android:1.17.0")
 
+    // Systrace/Perfetto sections for the frame pipeline
+    implementation("androidx.tracing:tracing:1.2.0")
+
     // Permissions
     implementation("androidx.activity:activity:1.9.3")
 
@@ -18,4 +18,7 @@
 
 # If you keep the line number information, uncomment this to
 # hide the original source file name.
-#-renamesourcefileattribute SourceFile
\ No newline at end of file
+#-renamesourcefileattribute SourceFile
+# Stats API / Supabase JSON goes through the hand-written adapters in ApiJson, which
+# touch fields directly instead of looking them up by name - no Gson keep rules are
+# needed and R8 is free to rename or shrink the model classes.
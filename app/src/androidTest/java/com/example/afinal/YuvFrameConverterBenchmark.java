@@ -0,0 +1,92 @@
+package com.example.afinal;
+
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * On-device benchmark comparing the direct YUV -> tensor path against the old JPEG round-trip.
+ * Uses a synthetic 640x480 frame laid out like a typical CameraX semi-planar buffer
+ * (pixel stride 2, unpadded rows so the legacy NV21 concatenation is valid),
+ * rotated 270 like the front camera in portrait.
+ */
+@RunWith(AndroidJUnit4.class)
+public class YuvFrameConverterBenchmark {
+    private static final String TAG = "YuvBenchmark";
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+    private static final int ROW_STRIDE = WIDTH;
+    private static final int ROTATION = 270;
+    private static final int SIZE = 320;
+    private static final int WARMUP = 10;
+    private static final int ITERATIONS = 50;
+
+    @Test
+    public void directPathIsFasterThanJpeg() {
+        ByteBuffer y = ByteBuffer.allocateDirect(ROW_STRIDE * HEIGHT);
+        // Interleaved chroma: U plane starts at byte 0, V plane at byte 1 of the same memory
+        ByteBuffer uv = ByteBuffer.allocateDirect(ROW_STRIDE * HEIGHT / 2);
+        fillGradient(y, uv);
+        ByteBuffer u = uv.duplicate();
+        u.limit(uv.capacity() - 1);
+        ByteBuffer v = uv.duplicate();
+        v.position(1);
+        v = v.slice();
+
+        YuvFrameConverter converter = new YuvFrameConverter(SIZE);
+        FloatBuffer direct = FloatBuffer.allocate(3 * SIZE * SIZE);
+        FloatBuffer jpeg = FloatBuffer.allocate(3 * SIZE * SIZE);
+
+        for (int i = 0; i < WARMUP; i++) {
+            converter.convert(y, ROW_STRIDE, 1, u, v, ROW_STRIDE, 2, WIDTH, HEIGHT, ROTATION, false, direct);
+            converter.convertViaJpeg(y, u, v, WIDTH, HEIGHT, ROTATION, jpeg);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            converter.convert(y, ROW_STRIDE, 1, u, v, ROW_STRIDE, 2, WIDTH, HEIGHT, ROTATION, false, direct);
+        }
+        long directNs = (System.nanoTime() - start) / ITERATIONS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            assertTrue(converter.convertViaJpeg(y, u, v, WIDTH, HEIGHT, ROTATION, jpeg));
+        }
+        long jpegNs = (System.nanoTime() - start) / ITERATIONS;
+
+        Log.i(TAG, String.format("direct: %.2f ms/frame, jpeg: %.2f ms/frame, speedup: %.1fx",
+                directNs / 1e6, jpegNs / 1e6, (double) jpegNs / directNs));
+
+        // Outputs should describe the same image (JPEG is lossy, so only compare loosely)
+        double totalDiff = 0;
+        for (int i = 0; i < direct.capacity(); i++) {
+            totalDiff += Math.abs(direct.get(i) - jpeg.get(i));
+        }
+        double meanDiff = totalDiff / direct.capacity();
+        Log.i(TAG, "mean abs difference: " + meanDiff);
+        assertTrue("Direct and JPEG outputs diverge: " + meanDiff, meanDiff < 0.05);
+        assertTrue("Direct path slower than JPEG path", directNs < jpegNs);
+    }
+
+    private static void fillGradient(ByteBuffer y, ByteBuffer uv) {
+        for (int row = 0; row < HEIGHT; row++) {
+            for (int col = 0; col < ROW_STRIDE; col++) {
+                y.put(row * ROW_STRIDE + col, (byte) ((col * 255 / WIDTH + row * 255 / HEIGHT) / 2));
+            }
+        }
+        for (int row = 0; row < HEIGHT / 2; row++) {
+            for (int col = 0; col < ROW_STRIDE; col += 2) {
+                uv.put(row * ROW_STRIDE + col, (byte) (96 + col * 64 / ROW_STRIDE));
+                uv.put(row * ROW_STRIDE + col + 1, (byte) (160 - row * 64 / HEIGHT));
+            }
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.example.afinal;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+
+/**
+ * ApiJson - Hand-written streaming Gson adapters for everything the app sends to or reads from the stats API and Supabase
+ * Responses are parsed straight off the body's charStream() in one pass, with no intermediate String, JsonObject tree
+ * or per-call reflection, and because no field is looked up by name at runtime R8 can rename or shrink the models freely
+ * The auth token response is only ever read, so it gets plain static read methods instead of a TypeAdapter
+ */
+public final class ApiJson {
+
+    /**
+     * The token response fields the app uses (password login and refresh grants), flattened out of "user"
+     */
+    public static final class AuthResponse {
+        public String accessToken;
+        public String refreshToken;
+        public long expiresInSeconds;
+        public String userId;
+        public String email;
+        public String displayName; // user_metadata.display_name, if set at signup
+    }
+
+    public static final TypeAdapter<ApiService.UserStats> USER_STATS = new TypeAdapter<ApiService.UserStats>() {
+        @Override
+        public void write(JsonWriter out, ApiService.UserStats stats) throws IOException {
+            if (stats == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("level").value(stats.level);
+            out.name("xp").value(stats.xp);
+            out.name("totalJumps").value(stats.totalJumps);
+            out.name("totalArmCircles").value(stats.totalArmCircles);
+            out.name("totalHighKnees").value(stats.totalHighKnees);
+            out.name("totalSideReaches").value(stats.totalSideReaches);
+            out.name("totalJackJumps").value(stats.totalJackJumps);
+            out.name("totalBicepsCurls").value(stats.totalBicepsCurls);
+            out.name("totalShoulderPresses").value(stats.totalShoulderPresses);
+            out.name("totalSquats").value(stats.totalSquats);
+            out.name("exercisesCompleted").value(stats.exercisesCompleted);
+            out.name("totalAllExercises").value(stats.totalAllExercises);
+            out.name("xpToNextLevel").value(stats.xpToNextLevel);
+            out.name("currentLevelXp").value(stats.currentLevelXp);
+            out.endObject();
+        }
+
+        @Override
+        public ApiService.UserStats read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            ApiService.UserStats stats = new ApiService.UserStats();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "level": stats.level = in.nextInt(); break;
+                    case "xp": stats.xp = in.nextInt(); break;
+                    case "totalJumps": stats.totalJumps = in.nextInt(); break;
+                    case "totalArmCircles": stats.totalArmCircles = in.nextInt(); break;
+                    case "totalHighKnees": stats.totalHighKnees = in.nextInt(); break;
+                    case "totalSideReaches": stats.totalSideReaches = in.nextInt(); break;
+                    case "totalJackJumps": stats.totalJackJumps = in.nextInt(); break;
+                    case "totalBicepsCurls": stats.totalBicepsCurls = in.nextInt(); break;
+                    case "totalShoulderPresses": stats.totalShoulderPresses = in.nextInt(); break;
+                    case "totalSquats": stats.totalSquats = in.nextInt(); break;
+                    case "exercisesCompleted": stats.exercisesCompleted = in.nextInt(); break;
+                    case "totalAllExercises": stats.totalAllExercises = in.nextInt(); break;
+                    case "xpToNextLevel": stats.xpToNextLevel = in.nextInt(); break;
+                    case "currentLevelXp": stats.currentLevelXp = in.nextInt(); break;
+                    default: in.skipValue(); // userId, timestamps, anything added server-side later
+                }
+            }
+            in.endObject();
+            return stats;
+        }
+    };
+
+    public static final TypeAdapter<ApiService.UpdateStatsRequest> UPDATE_STATS_REQUEST = new TypeAdapter<ApiService.UpdateStatsRequest>() {
+        @Override
+        public void write(JsonWriter out, ApiService.UpdateStatsRequest request) throws IOException {
+            if (request == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("exerciseType").value(request.exerciseType);
+            out.name("repsCompleted").value(request.repsCompleted);
+            out.name("xpEarned").value(request.xpEarned);
+            out.name("sessionDuration").value(request.sessionDuration);
+            out.endObject();
+        }
+
+        @Override
+        public ApiService.UpdateStatsRequest read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            ApiService.UpdateStatsRequest request = new ApiService.UpdateStatsRequest(null, 0, 0, 0);
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "exerciseType": request.exerciseType = in.nextString(); break;
+                    case "repsCompleted": request.repsCompleted = in.nextInt(); break;
+                    case "xpEarned": request.xpEarned = in.nextInt(); break;
+                    case "sessionDuration": request.sessionDuration = in.nextInt(); break;
+                    default: in.skipValue(); // sessionCount, in outboxes written by older builds
+                }
+            }
+            in.endObject();
+            return request;
+        }
+    };
+
+    public static final TypeAdapter<StatsOutbox.Entry> OUTBOX_ENTRY = new TypeAdapter<StatsOutbox.Entry>() {
+        @Override
+        public void write(JsonWriter out, StatsOutbox.Entry entry) throws IOException {
+            out.beginObject();
+            out.name("id").value(entry.id);
+            out.name("userId").value(entry.userId);
+            out.name("queuedAt").value(entry.queuedAtMillis);
+            out.name("request");
+            UPDATE_STATS_REQUEST.write(out, entry.request);
+            out.endObject();
+        }
+
+        @Override
+        public StatsOutbox.Entry read(JsonReader in) throws IOException {
+            String id = null;
+            String userId = null;
+            long queuedAt = 0;
+            ApiService.UpdateStatsRequest request = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "id": id = in.nextString(); break;
+                    case "userId": userId = in.nextString(); break;
+                    case "queuedAt": queuedAt = in.nextLong(); break;
+                    case "request": request = UPDATE_STATS_REQUEST.read(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return new StatsOutbox.Entry(id, userId, queuedAt, request);
+        }
+    };
+
+    private ApiJson() {
+    }
+
+    /**
+     * @param body the response's charStream()
+     */
+    public static ApiService.UserStats readUserStats(Reader body) throws IOException {
+        return USER_STATS.read(new JsonReader(body));
+    }
+
+    public static AuthResponse readAuthResponse(Reader body) throws IOException {
+        return readAuthResponse(new JsonReader(body));
+    }
+
+    /**
+     * Supabase token response; read-only, the app never sends one, so it has no TypeAdapter
+     */
+    public static AuthResponse readAuthResponse(JsonReader in) throws IOException {
+        AuthResponse auth = new AuthResponse();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "access_token": auth.accessToken = in.nextString(); break;
+                case "refresh_token": auth.refreshToken = in.nextString(); break;
+                case "expires_in": auth.expiresInSeconds = in.nextLong(); break;
+                case "user": readUser(in, auth); break;
+                default: in.skipValue(); // token_type, expires_at, provider tokens...
+            }
+        }
+        in.endObject();
+        return auth;
+    }
+
+    private static void readUser(JsonReader in, AuthResponse auth) throws IOException {
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "id": auth.userId = in.nextString(); break;
+                case "email": auth.email = in.nextString(); break;
+                case "user_metadata": readMetadata(in, auth); break;
+                default: in.skipValue(); // identities, app_metadata, timestamps...
+            }
+        }
+        in.endObject();
+    }
+
+    private static void readMetadata(JsonReader in, AuthResponse auth) throws IOException {
+        in.beginObject();
+        while (in.hasNext()) {
+            if (in.nextName().equals("display_name") && in.peek() == JsonToken.STRING) {
+                auth.displayName = in.nextString();
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+    }
+
+    public static String loginBody(String email, String password) {
+        return object("email", email, "password", password);
+    }
+
+    public static String refreshBody(String refreshToken) {
+        return object("refresh_token", refreshToken);
+    }
+
+    public static String initializeStatsBody(String displayName, String email) {
+        return object("displayName", displayName, "email", email);
+    }
+
+    public static String signupBody(String email, String password, String displayName) {
+        StringWriter json = new StringWriter(96);
+        try (JsonWriter out = new JsonWriter(json)) {
+            out.beginObject();
+            out.name("email").value(email);
+            out.name("password").value(password);
+            out.name("data").beginObject().name("display_name").value(displayName).endObject();
+            out.endObject();
+        } catch (IOException e) {
+            throw new AssertionError(e); // StringWriter doesn't throw
+        }
+        return json.toString();
+    }
+
+    // Flat object of string fields: name, value, name, value...
+    private static String object(String... namesAndValues) {
+        StringWriter json = new StringWriter(64);
+        try (JsonWriter out = new JsonWriter(json)) {
+            out.beginObject();
+            for (int i = 0; i < namesAndValues.length; i += 2) {
+                out.name(namesAndValues[i]).value(namesAndValues[i + 1]);
+            }
+            out.endObject();
+        } catch (IOException e) {
+            throw new AssertionError(e); // StringWriter doesn't throw
+        }
+        return json.toString();
+    }
+}
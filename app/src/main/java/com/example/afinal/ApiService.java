@@ -1,14 +1,19 @@
 package com.example.afinal;
 
 import android.content.Context;
+import android.util.Log;
 
-import com.google.gson.Gson;
 import com.google.gson.annotations.SerializedName;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
+import okhttp3.Cache;
 import okhttp3.Call;
 import okhttp3.Callback;
 import okhttp3.MediaType;
@@ -18,6 +23,8 @@ import okhttp3.RequestBody;
 import okhttp3.Response;
 
 public class ApiService {
+    private static final String TAG = "ApiService";
+    
     // Dynamic URL selection based on device type
     private static final String BASE_URL = getApiBaseUrl();
     
@@ -36,15 +43,47 @@ public class ApiService {
         */
     }
     
+    // A result this fresh is handed out again instead of asking the API (screens opening / resuming together)
+    private static final long STATS_MEMO_TTL_NANOS = TimeUnit.SECONDS.toNanos(5);
+    
+    private static volatile ApiService instance;
+    
     private final OkHttpClient client;
-    private final Gson gson;
     
-    public ApiService() {
-        this.client = new OkHttpClient();
-        this.gson = new Gson();
+    // Single-flight GET per user: concurrent callers share the request already on the wire
+    private final ConcurrentHashMap<String, CompletableFuture<UserStats>> statsInFlight = new ConcurrentHashMap<>();
+    // Last stats per user, from a GET or an update response, with when they were known to be current
+    private final ConcurrentHashMap<String, StatsMemo> statsMemo = new ConcurrentHashMap<>();
+    
+    private static final class StatsMemo {
+        final UserStats stats;
+        final long asOfNanos; // System.nanoTime()
+        
+        StatsMemo(UserStats stats, long asOfNanos) {
+            this.stats = stats;
+            this.asOfNanos = asOfNanos;
+        }
+    }
+    
+    /**
+     * Shared instance on the app-wide HTTP client, so every screen reuses its connections and cache
+     */
+    public static ApiService getInstance(Context context) {
+        if (instance == null) {
+            synchronized (ApiService.class) {
+                if (instance == null) {
+                    instance = new ApiService(HttpClientProvider.get(context));
+                }
+            }
+        }
+        return instance;
     }
     
-    // Data classes for API communication
+    ApiService(OkHttpClient client) {
+        this.client = client;
+    }
+    
+    // Data classes for API communication (read and written by the hand-written adapters in ApiJson)
     public static class UserStats {
         @SerializedName("level")
         public int level;
@@ -87,6 +126,32 @@ public class ApiService {
         
         @SerializedName("currentLevelXp")
         public int currentLevelXp;
+        
+        // Value equality, so screens can skip re-rendering when a refresh brings nothing new
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof UserStats)) {
+                return false;
+            }
+            UserStats other = (UserStats) o;
+            return level == other.level && xp == other.xp
+                    && totalJumps == other.totalJumps && totalArmCircles == other.totalArmCircles
+                    && totalHighKnees == other.totalHighKnees && totalSideReaches == other.totalSideReaches
+                    && totalJackJumps == other.totalJackJumps && totalBicepsCurls == other.totalBicepsCurls
+                    && totalShoulderPresses == other.totalShoulderPresses && totalSquats == other.totalSquats
+                    && exercisesCompleted == other.exercisesCompleted && totalAllExercises == other.totalAllExercises
+                    && xpToNextLevel == other.xpToNextLevel && currentLevelXp == other.currentLevelXp;
+        }
+        
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(new int[]{level, xp, totalJumps, totalArmCircles, totalHighKnees, totalSideReaches,
+                    totalJackJumps, totalBicepsCurls, totalShoulderPresses, totalSquats, exercisesCompleted,
+                    totalAllExercises, xpToNextLevel, currentLevelXp});
+        }
     }
     
     public static class UpdateStatsRequest {
@@ -109,6 +174,18 @@ public class ApiService {
             this.sessionDuration = sessionDuration;
         }
     }
+    /**
+     * Non-2xx response; the status tells retryable server trouble apart from a request the API will never accept
+     */
+    public static class ApiException extends IOException {
+        public final int code;
+        
+        public ApiException(int code) {
+            super("API Error: " + code);
+            this.code = code;
+        }
+    }
+    
     /***
     public static class ExerciseSession {
         @SerializedName("id")
@@ -130,8 +207,30 @@ public class ApiService {
         public String completedAt;
     }
     ***/
-    // Get user statistics
+    /**
+     * Get user statistics - from the memo if they are under STATS_MEMO_TTL_NANOS old, else by joining the GET already
+     * in flight for this user, else with a new conditional GET through the HTTP cache
+     * The stats object may be shared between callers, so treat it as read-only
+     */
     public CompletableFuture<UserStats> getUserStats(String userId) {
+        long now = System.nanoTime();
+        StatsMemo memo = statsMemo.get(userId);
+        if (memo != null && now - memo.asOfNanos < STATS_MEMO_TTL_NANOS) {
+            Log.d(TAG, "GET stats from memo (" + TimeUnit.NANOSECONDS.toMillis(now - memo.asOfNanos) + " ms old)");
+            return CompletableFuture.completedFuture(memo.stats);
+        }
+        CompletableFuture<UserStats> shared = statsInFlight.compute(userId, (id, current) -> {
+            if (current != null && !current.isDone()) {
+                Log.d(TAG, "GET stats joined the request in flight");
+                return current;
+            }
+            return fetchUserStats(id, now);
+        });
+        // Each caller gets its own stage, so one completing or cancelling it can't affect the others
+        return shared.thenApply(stats -> stats);
+    }
+    
+    private CompletableFuture<UserStats> fetchUserStats(String userId, long startedNanos) {
         CompletableFuture<UserStats> future = new CompletableFuture<>();
         
         Request request = new Request.Builder()
@@ -142,19 +241,24 @@ public class ApiService {
         client.newCall(request).enqueue(new Callback() {
             @Override
             public void onFailure(Call call, IOException e) {
+                statsInFlight.remove(userId, future);
                 future.completeExceptionally(e);
             }
             
             @Override
-            public void onResponse(Call call, Response response) throws IOException {
-                if (response.isSuccessful()) {
-                    String responseBody = response.body().string();
-                    UserStats stats = gson.fromJson(responseBody, UserStats.class);
+            public void onResponse(Call call, Response response) {
+                // Bookkeeping before completing, so anything chained on the result already sees the memo
+                try (Response r = response) {
+                    UserStats stats = readStats(r);
+                    Log.d(TAG, "GET stats " + describeSource(r));
+                    // Current as of when the request went out; an update answered since then stays in the memo
+                    remember(userId, new StatsMemo(stats, startedNanos));
+                    statsInFlight.remove(userId, future);
                     future.complete(stats);
-                } else {
-                    future.completeExceptionally(new IOException("API Error: " + response.code()));
+                } catch (IOException | RuntimeException e) {
+                    statsInFlight.remove(userId, future);
+                    future.completeExceptionally(e);
                 }
-                response.close();
             }
         });
         
@@ -163,10 +267,13 @@ public class ApiService {
     
     // Update user statistics after exercise
     public CompletableFuture<UserStats> updateUserStats(String userId, String exerciseType, int repsCompleted, int xpEarned, int sessionDuration) {
+        return updateUserStats(userId, new UpdateStatsRequest(exerciseType, repsCompleted, xpEarned, sessionDuration));
+    }
+    
+    public CompletableFuture<UserStats> updateUserStats(String userId, UpdateStatsRequest requestBody) {
         CompletableFuture<UserStats> future = new CompletableFuture<>();
         
-        UpdateStatsRequest requestBody = new UpdateStatsRequest(exerciseType, repsCompleted, xpEarned, sessionDuration);
-        String json = gson.toJson(requestBody);
+        String json = ApiJson.UPDATE_STATS_REQUEST.toJson(requestBody);
         
         RequestBody body = RequestBody.create(json, MediaType.get("application/json; charset=utf-8"));
         
@@ -182,21 +289,68 @@ public class ApiService {
             }
             
             @Override
-            public void onResponse(Call call, Response response) throws IOException {
-                if (response.isSuccessful()) {
-                    String responseBody = response.body().string();
-                    UserStats stats = gson.fromJson(responseBody, UserStats.class);
+            public void onResponse(Call call, Response response) {
+                try (Response r = response) {
+                    UserStats stats = readStats(r);
+                    // A POST only invalidates its own URL; the cached GET for this user is stale now too
+                    evictCachedStats(userId);
+                    // The response is the newest state there is: seed the memo with it, and don't let
+                    // later callers join a GET that went out before this update
+                    remember(userId, new StatsMemo(stats, System.nanoTime()));
+                    statsInFlight.remove(userId);
                     future.complete(stats);
-                } else {
-                    future.completeExceptionally(new IOException("API Error: " + response.code()));
+                } catch (IOException | RuntimeException e) {
+                    future.completeExceptionally(e);
                 }
-                response.close();
             }
         });
         
         return future;
     }
     
+    // Parse the stats straight off the body stream - no String copy of the response, no reflection
+    private static UserStats readStats(Response response) throws IOException {
+        if (!response.isSuccessful()) {
+            throw new ApiException(response.code());
+        }
+        return ApiJson.readUserStats(response.body().charStream());
+    }
+    
+    // Newer wins, so a slow GET can't overwrite what a later update response put there
+    private void remember(String userId, StatsMemo memo) {
+        statsMemo.merge(userId, memo, (current, candidate) ->
+                candidate.asOfNanos - current.asOfNanos >= 0 ? candidate : current);
+    }
+    
+    private void evictCachedStats(String userId) {
+        Cache cache = client.cache();
+        if (cache == null) {
+            return;
+        }
+        String statsUrl = BASE_URL + "/stats/" + userId;
+        try {
+            Iterator<String> urls = cache.urls();
+            while (urls.hasNext()) {
+                if (urls.next().equals(statsUrl)) {
+                    urls.remove();
+                }
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Could not evict cached stats: " + e.getMessage());
+        }
+    }
+    
+    // network / conditional (304) / cache, for checking the HTTP cache is doing its job
+    private static String describeSource(Response response) {
+        if (response.networkResponse() == null) {
+            return "from cache";
+        }
+        if (response.cacheResponse() != null) {
+            return "revalidated (304)";
+        }
+        return "from network";
+    }
+    
     // Get user ID from authenticated session
     public static String getUserId(Context context) {
         String userId = AuthActivity.getCurrentUserId(context);
@@ -1,15 +1,12 @@
 package com.example.afinal;
 
-import android.os.Handler;
-import android.os.Looper;
-import android.util.Log;
 import java.util.List;
 
 /**
  * ArmCircleCounter - Detects arm circle movements by tracking circular motion of arms around shoulders
  * Arms should be extended parallel to the floor, rotating around the shoulder joint
  */
-public class ArmCircleCounter {
+public class ArmCircleCounter implements RepCounter {
     public interface ArmCircleListener {
         void onArmCircleDetected(int armCircleCount);
     }
@@ -46,7 +43,6 @@ public class ArmCircleCounter {
     
     // Callback
     private ArmCircleListener listener;
-    private final Handler mainHandler = new Handler(Looper.getMainLooper());
     
     public ArmCircleCounter(ArmCircleListener listener) {
         this.listener = listener;
@@ -57,56 +53,54 @@ public class ArmCircleCounter {
      * Arms should be extended horizontally with all three joints aligned
      *>>>>>>>>>>>>>>>>>> DONT FORGET THESE!!!<<<
      */
-    private boolean isValidArmCirclePosition(float[] leftShoulder, float[] rightShoulder, 
-                                           float[] leftElbow, float[] rightElbow,
-                                           float[] leftWrist, float[] rightWrist) {
+    private boolean isValidArmCirclePosition(PoseFrame pose) {
         
         // >>Check<<< if we have confidence in ALL required keypoints (shoulder, elbow, wrist)
-        boolean allPointsValid = leftShoulder[2] > MIN_CONFIDENCE && rightShoulder[2] > MIN_CONFIDENCE &&
-                               leftElbow[2] > MIN_CONFIDENCE && rightElbow[2] > MIN_CONFIDENCE &&
-                               leftWrist[2] > MIN_CONFIDENCE && rightWrist[2] > MIN_CONFIDENCE;
+        boolean allPointsValid = pose.confidence(PoseFrame.LEFT_SHOULDER) > MIN_CONFIDENCE && pose.confidence(PoseFrame.RIGHT_SHOULDER) > MIN_CONFIDENCE &&
+                               pose.confidence(PoseFrame.LEFT_ELBOW) > MIN_CONFIDENCE && pose.confidence(PoseFrame.RIGHT_ELBOW) > MIN_CONFIDENCE &&
+                               pose.confidence(PoseFrame.LEFT_WRIST) > MIN_CONFIDENCE && pose.confidence(PoseFrame.RIGHT_WRIST) > MIN_CONFIDENCE;
         
         if (!allPointsValid) {
-            Log.d(TAG, "❌❌❌❌❌❌ Not all arm keypoints visible (shoulder-elbow-wrist)");
+            FrameTrace.record(TAG, "arm joints not visible");
             return false;
         }
         
         // Check if arms are properly extended using all three points
         // Calculate arm straightness: shoulder->elbow->wrist should be roughly aligned
-        float leftArmStraightness = calculateArmStraightness(leftShoulder, leftElbow, leftWrist);
-        float rightArmStraightness = calculateArmStraightness(rightShoulder, rightElbow, rightWrist);
+        float leftArmStraightness = calculateArmStraightness(pose, PoseFrame.LEFT_SHOULDER, PoseFrame.LEFT_ELBOW, PoseFrame.LEFT_WRIST);
+        float rightArmStraightness = calculateArmStraightness(pose, PoseFrame.RIGHT_SHOULDER, PoseFrame.RIGHT_ELBOW, PoseFrame.RIGHT_WRIST);
         
         if (leftArmStraightness < 0.7f || rightArmStraightness < 0.7f) {
-            Log.d(TAG, "❌❌❌❌❌❌ Arms not extended straight - Left: " + leftArmStraightness + ", Right: " + rightArmStraightness);
+            FrameTrace.record(TAG, "arms not straight", leftArmStraightness, rightArmStraightness);
             return false;
         }
         
         // Check total arm length (shoulder to wrist)
-        float leftArmLength = calculateDistance(leftShoulder, leftWrist);
-        float rightArmLength = calculateDistance(rightShoulder, rightWrist);
+        float leftArmLength = calculateDistance(pose, PoseFrame.LEFT_SHOULDER, PoseFrame.LEFT_WRIST);
+        float rightArmLength = calculateDistance(pose, PoseFrame.RIGHT_SHOULDER, PoseFrame.RIGHT_WRIST);
         
         if (leftArmLength < ARM_EXTENSION_THRESHOLD * 1.5f || rightArmLength < ARM_EXTENSION_THRESHOLD * 1.5f) {
-            Log.d(TAG, "❌❌❌❌❌❌ Arms not extended enough - Left: " + leftArmLength + ", Right: " + rightArmLength);
+            FrameTrace.record(TAG, "arms not extended", leftArmLength, rightArmLength);
             return false;
         }
         
         // Check if arms are roughly horizontal (wrists near shoulder height)
-        float leftVerticalDiff = Math.abs(leftWrist[1] - leftShoulder[1]);
-        float rightVerticalDiff = Math.abs(rightWrist[1] - rightShoulder[1]);
+        float leftVerticalDiff = Math.abs(pose.y(PoseFrame.LEFT_WRIST) - pose.y(PoseFrame.LEFT_SHOULDER));
+        float rightVerticalDiff = Math.abs(pose.y(PoseFrame.RIGHT_WRIST) - pose.y(PoseFrame.RIGHT_SHOULDER));
         
         if (leftVerticalDiff > HORIZONTAL_ARM_TOLERANCE || rightVerticalDiff > HORIZONTAL_ARM_TOLERANCE) {
-            Log.d(TAG, "❌❌❌❌❌❌❌ Arms not horizontal - Left diff: " + leftVerticalDiff + ", Right diff: " + rightVerticalDiff);
+            FrameTrace.record(TAG, "arms not horizontal", leftVerticalDiff, rightVerticalDiff);
             return false;
         }
         
         // Check if both arms are at roughly same height (prevent one arm raised)
-        float armHeightDiff = Math.abs(leftWrist[1] - rightWrist[1]);
+        float armHeightDiff = Math.abs(pose.y(PoseFrame.LEFT_WRIST) - pose.y(PoseFrame.RIGHT_WRIST));
         if (armHeightDiff > HORIZONTAL_ARM_TOLERANCE) {
-            Log.d(TAG, "❌❌❌❌❌❌❌ Arms not at same height - Difference: " + armHeightDiff);
+            FrameTrace.record(TAG, "arms uneven", armHeightDiff);
             return false;
         }
         
-        Log.d(TAG, "✅✅✅✅✅✅✅ Perfect arm circle position - both arms extended horizontally");
+        FrameTrace.record(TAG, "arm circle position");
         return true;
     }
     
@@ -115,10 +109,10 @@ public class ArmCircleCounter {
      * Returns value 0.0 to 1.0 where 1.0 is perfectly straight
      * MAYBE LOWERRR THIS????
      */
-    private float calculateArmStraightness(float[] shoulder, float[] elbow, float[] wrist) {
-        float shoulderElbowDist = calculateDistance(shoulder, elbow);
-        float elbowWristDist = calculateDistance(elbow, wrist);
-        float shoulderWristDist = calculateDistance(shoulder, wrist);
+    private float calculateArmStraightness(PoseFrame pose, int shoulder, int elbow, int wrist) {
+        float shoulderElbowDist = calculateDistance(pose, shoulder, elbow);
+        float elbowWristDist = calculateDistance(pose, elbow, wrist);
+        float shoulderWristDist = calculateDistance(pose, shoulder, wrist);
         
         // If arm is perfectly straight, shoulder-wrist distance equals sum of segments
         float expectedDist = shoulderElbowDist + elbowWristDist;
@@ -128,11 +122,10 @@ public class ArmCircleCounter {
     /**
      * Calculate 2D distance between two points
      */
-    private float calculateDistance(float[] point1, float[] point2) {
-        return (float) Math.sqrt(
-            Math.pow(point1[0] - point2[0], 2) + 
-            Math.pow(point1[1] - point2[1], 2)
-        );
+    private float calculateDistance(PoseFrame pose, int joint1, int joint2) {
+        float dx = pose.x(joint1) - pose.x(joint2);
+        float dy = pose.y(joint1) - pose.y(joint2);
+        return (float) Math.sqrt(dx * dx + dy * dy);
     }
     
     /**
@@ -140,36 +133,29 @@ public class ArmCircleCounter {
      * Tracks the rotation of arms around shoulder joints
      * >>>>>>>WORKING DO NOT TOUCH AGAIN<<<
      */
-    public void processKeypoints(java.util.List<float[]> keypoints) {
-        if (keypoints == null || keypoints.size() < 17) {
+    @Override
+    public void processKeypoints(PoseFrame pose) {
+        if (pose == null) {
             return;
         }
         
-        long currentTime = System.currentTimeMillis();
-        
-        // Get shoulder, elbow, and wrist keypoints for proper arm circle detection in 2D
-        float[] leftShoulder = keypoints.get(5);   // Left shoulder (pivot point)
-        float[] rightShoulder = keypoints.get(6);  // Right shoulder (pivot point)
-        float[] leftElbow = keypoints.get(7);      // Left elbow (mid arm)
-        float[] rightElbow = keypoints.get(8);     // Right elbow (mid arm)
-        float[] leftWrist = keypoints.get(9);      // Left wrist (end of arm)
-        float[] rightWrist = keypoints.get(10);    // Right wrist (end of arm)
+        long currentTime = pose.getTimestampMillis(); // Frame time, so replays behave like the live camera
         
         //  STRICT VALIDATION: Both arms must be in arm circle position using all joints
-        if (!isValidArmCirclePosition(leftShoulder, rightShoulder, leftElbow, rightElbow, leftWrist, rightWrist)) {
+        if (!isValidArmCirclePosition(pose)) {
             // >>>Reset trackers if position is invalid to prevent false positives
             leftArmTracker.reset();
             rightArmTracker.reset();
-            Log.d(TAG, "❌❌❌❌ Arms not in proper arm circle position - resetting");
+            FrameTrace.record(TAG, "bad position, reset");
             return;
         }
         
         // All arm joints must be valid (already checked in validation, but double-check)
-        boolean leftArmValid = leftShoulder[2] > MIN_CONFIDENCE && leftElbow[2] > MIN_CONFIDENCE && leftWrist[2] > MIN_CONFIDENCE;
-        boolean rightArmValid = rightShoulder[2] > MIN_CONFIDENCE && rightElbow[2] > MIN_CONFIDENCE && rightWrist[2] > MIN_CONFIDENCE;
+        boolean leftArmValid = pose.confidence(PoseFrame.LEFT_SHOULDER) > MIN_CONFIDENCE && pose.confidence(PoseFrame.LEFT_ELBOW) > MIN_CONFIDENCE && pose.confidence(PoseFrame.LEFT_WRIST) > MIN_CONFIDENCE;
+        boolean rightArmValid = pose.confidence(PoseFrame.RIGHT_SHOULDER) > MIN_CONFIDENCE && pose.confidence(PoseFrame.RIGHT_ELBOW) > MIN_CONFIDENCE && pose.confidence(PoseFrame.RIGHT_WRIST) > MIN_CONFIDENCE;
         
         if (!leftArmValid || !rightArmValid) {
-            Log.d(TAG, "❌❌❌❌ All arm joints must be visible (shoulder-elbow-wrist)");
+            FrameTrace.record(TAG, "arm joints missing, reset");
             leftArmTracker.reset();
             rightArmTracker.reset();
             return;
@@ -180,31 +166,35 @@ public class ArmCircleCounter {
         if (!hasValidPrevFrame) {
             hasValidPrevFrame = true;
             if (leftArmValid) {
-                leftArmTracker.initialize(leftShoulder[0], leftShoulder[1], leftElbow[0], leftElbow[1], leftWrist[0], leftWrist[1]);
+                leftArmTracker.initialize(pose.x(PoseFrame.LEFT_SHOULDER), pose.y(PoseFrame.LEFT_SHOULDER), pose.x(PoseFrame.LEFT_ELBOW), pose.y(PoseFrame.LEFT_ELBOW), pose.x(PoseFrame.LEFT_WRIST), pose.y(PoseFrame.LEFT_WRIST));
             }
             if (rightArmValid) {
-                rightArmTracker.initialize(rightShoulder[0], rightShoulder[1], rightElbow[0], rightElbow[1], rightWrist[0], rightWrist[1]);
+                rightArmTracker.initialize(pose.x(PoseFrame.RIGHT_SHOULDER), pose.y(PoseFrame.RIGHT_SHOULDER), pose.x(PoseFrame.RIGHT_ELBOW), pose.y(PoseFrame.RIGHT_ELBOW), pose.x(PoseFrame.RIGHT_WRIST), pose.y(PoseFrame.RIGHT_WRIST));
             }
-            Log.d(TAG, "✅ First frame recorded with all arm joints (shoulder-elbow-wrist)");
+            PoseLog.d(TAG, "✅ First frame recorded with all arm joints (shoulder-elbow-wrist)");
             return;
         }
         
         // Track both arms using shoulder-elbow-wrist for better 2D circular motion detection
-        leftArmTracker.addArmPosition(leftShoulder[0], leftShoulder[1], leftElbow[0], leftElbow[1], leftWrist[0], leftWrist[1]);
-        rightArmTracker.addArmPosition(rightShoulder[0], rightShoulder[1], rightElbow[0], rightElbow[1], rightWrist[0], rightWrist[1]);
+        leftArmTracker.addArmPosition(pose.x(PoseFrame.LEFT_SHOULDER), pose.y(PoseFrame.LEFT_SHOULDER), pose.x(PoseFrame.LEFT_ELBOW), pose.y(PoseFrame.LEFT_ELBOW), pose.x(PoseFrame.LEFT_WRIST), pose.y(PoseFrame.LEFT_WRIST));
+        rightArmTracker.addArmPosition(pose.x(PoseFrame.RIGHT_SHOULDER), pose.y(PoseFrame.RIGHT_SHOULDER), pose.x(PoseFrame.RIGHT_ELBOW), pose.y(PoseFrame.RIGHT_ELBOW), pose.x(PoseFrame.RIGHT_WRIST), pose.y(PoseFrame.RIGHT_WRIST));
         
         // 10-POINT FLEXIBILITY: Check for circle completion with timing window
-        boolean leftCircleCompleted = leftArmTracker.isCircleCompleted();
-        boolean rightCircleCompleted = rightArmTracker.isCircleCompleted();
+        boolean leftCircleCompleted = leftArmTracker.isCircleCompleted(currentTime);
+        boolean rightCircleCompleted = rightArmTracker.isCircleCompleted(currentTime);
         
         // Track completion times for flexible "simultaneous" detection
         if (leftCircleCompleted) {
             leftArmLastCompletion = currentTime;
-            Log.d(TAG, "✅ LEFT ARM COMPLETED CIRCLE at " + currentTime);
+            if (PoseLog.ENABLED) {
+                PoseLog.d(TAG, "✅ LEFT ARM COMPLETED CIRCLE at %s", currentTime);
+            }
         }
         if (rightCircleCompleted) {
             rightArmLastCompletion = currentTime;
-            Log.d(TAG, "✅ RIGHT ARM COMPLETED CIRCLE at " + currentTime);
+            if (PoseLog.ENABLED) {
+                PoseLog.d(TAG, "✅ RIGHT ARM COMPLETED CIRCLE at %s", currentTime);
+            }
         }
         
         // FLEXIBLE SIMULTANEOUS DETECTION: <>>>>>>>>>Count if both arms completed within time window
@@ -216,23 +206,27 @@ public class ArmCircleCounter {
         boolean circleDetected = bothRecentlyCompleted && stillInWindow;
         
         if (circleDetected) {
-            Log.d(TAG, "🎯 BOTH ARMS COMPLETED WITHIN " + timeDiff + "ms - COUNTING AS VALID REP!");
+            if (PoseLog.ENABLED) {
+                PoseLog.d(TAG, "🎯 BOTH ARMS COMPLETED WITHIN %sms - COUNTING AS VALID REP!", timeDiff);
+            }
             // Reset >>>>> prevent double counting
             leftArmLastCompletion = 0;
             rightArmLastCompletion = 0;
         } else if (leftCircleCompleted || rightCircleCompleted) {
-            Log.d(TAG, "⏳ One arm completed - waiting for other arm within " + SIMULTANEOUS_WINDOW_MS + "ms window");
+            if (PoseLog.ENABLED) {
+                PoseLog.d(TAG, "⏳ One arm completed - waiting for other arm within %sms window", SIMULTANEOUS_WINDOW_MS);
+            }
             // Don't reset immediately!!>>>>>>> give other arm a chance to complete
         }
         
         // TIMEOUT CLEANUP: Clear old completion times if they're too PASSED
         if (leftArmLastCompletion > 0 && (currentTime - leftArmLastCompletion) > SIMULTANEOUS_WINDOW_MS) {
-            Log.d(TAG, "⏰ Left arm completion timed out - clearing");
+            PoseLog.d(TAG, "⏰ Left arm completion timed out - clearing");
             leftArmLastCompletion = 0;
             leftArmTracker.reset(); // Reset to prevent false positives
         }
         if (rightArmLastCompletion > 0 && (currentTime - rightArmLastCompletion) > SIMULTANEOUS_WINDOW_MS) {
-            Log.d(TAG, "⏰ Right arm completion timed out - clearing");
+            PoseLog.d(TAG, "⏰ Right arm completion timed out - clearing");
             rightArmLastCompletion = 0;
             rightArmTracker.reset(); // Reset to prevent false positives
         }
@@ -242,7 +236,9 @@ public class ArmCircleCounter {
             armCircleCount++;
             lastCircleTime = currentTime;
             
-            Log.d(TAG, "🎯 ARM CIRCLE COMPLETED! Count: " + armCircleCount + " (Cooldown enforced)");
+            if (PoseLog.ENABLED) {
+                PoseLog.d(TAG, "🎯 ARM CIRCLE COMPLETED! Count: %s (Cooldown enforced)", armCircleCount);
+            }
             
             // IMMEDIATELY reset trackers to prevent double counting
             leftArmTracker.reset();
@@ -250,12 +246,11 @@ public class ArmCircleCounter {
             
             // Notify listener
             if (listener != null) {
-                final int count = armCircleCount;
-                mainHandler.post(() -> listener.onArmCircleDetected(count));
+                listener.onArmCircleDetected(armCircleCount);
             }
         } else if (circleDetected) {
             // Circle detected but still in cooldown - reset to prevent double counting
-            Log.d(TAG, "🕐 Circle detected but in cooldown - resetting trackers");
+            PoseLog.d(TAG, "🕐 Circle detected but in cooldown - resetting trackers");
             leftArmTracker.reset();
             rightArmTracker.reset();
         }
@@ -297,7 +292,9 @@ public class ArmCircleCounter {
             wasGoingUp = false;
             wasGoingDown = false;
             
-            Log.d(TAG, String.format("✅ Simple arm tracker initialized - Initial Y: %.3f", currentWristY));
+            if (PoseLog.ENABLED) {
+                PoseLog.d(TAG, "✅ Simple arm tracker initialized - Initial Y: %.3f", currentWristY);
+            }
         }
         
         public void addArmPosition(float shoulderX, float shoulderY, float elbowX, float elbowY, float wristX, float wristY) {
@@ -329,33 +326,35 @@ public class ArmCircleCounter {
             if (wasGoingUp && isGoingDown) {
                 hasSeenHigh = true;
                 peakCount++;
-                Log.d(TAG, "📈 Peak detected (high point) - Count: " + peakCount);
+                if (PoseLog.ENABLED) {
+                    PoseLog.d(TAG, "📈 Peak detected (high point) - Count: %s", peakCount);
+                }
             }
             
             // Detect valley (was going down, now going up)
             if (wasGoingDown && isGoingUp) {
                 hasSeenLow = true;
                 peakCount++;
-                Log.d(TAG, "📉 Valley detected (low point) - Count: " + peakCount);
+                if (PoseLog.ENABLED) {
+                    PoseLog.d(TAG, "📉 Valley detected (low point) - Count: %s", peakCount);
+                }
             }
             
             // Update direction tracking
             wasGoingUp = isGoingUp;
             wasGoingDown = isGoingDown;
             
-            Log.d(TAG, String.format("Y-Track: %.3f → %.3f (diff: %.3f) | Peaks: %d | High: %s, Low: %s", 
-                    prevWristY, currentWristY, yDiff, peakCount, hasSeenHigh, hasSeenLow));
+            FrameTrace.record(TAG, "wrist y", prevWristY, currentWristY, yDiff, peakCount);
         }
         
 
         
-                         public boolean isCircleCompleted() {
+                         public boolean isCircleCompleted(long currentTime) {
             if (!isInitialized) {
                 return false;
             }
             
             // Prevent rapid successive completions
-            long currentTime = System.currentTimeMillis();
             if (currentTime - lastCompletionTime < 500) { // 500ms cooldown between circles
                 return false;
             }
@@ -367,12 +366,12 @@ public class ArmCircleCounter {
             
             boolean isCompleted = hasFullCycle && hasEnoughPeaks;
             
-            Log.d(TAG, String.format("CIRCLE CHECK - Peaks: %d, High: %s, Low: %s, COMPLETED: %s", 
-                    peakCount, hasSeenHigh, hasSeenLow, isCompleted));
+            FrameTrace.record(TAG, "circle check", peakCount, FrameTrace.flag(hasSeenHigh),
+                    FrameTrace.flag(hasSeenLow), FrameTrace.flag(isCompleted));
             
             if (isCompleted) {
                 lastCompletionTime = currentTime;
-                Log.d(TAG, "✅ SIMPLE CIRCLE COMPLETED - Resetting for next");
+                PoseLog.d(TAG, "✅ SIMPLE CIRCLE COMPLETED - Resetting for next");
                 resetForNextCircle();
             }
             
@@ -388,7 +387,7 @@ public class ArmCircleCounter {
             hasSeenLow = false;
             wasGoingUp = false;
             wasGoingDown = false;
-            Log.d(TAG, "🔄 Simple tracker reset - ready for next circle");
+            PoseLog.d(TAG, "🔄 Simple tracker reset - ready for next circle");
         }
         
         public void reset() {
@@ -401,10 +400,11 @@ public class ArmCircleCounter {
             hasSeenLow = false;
             wasGoingUp = false;
             wasGoingDown = false;
-            Log.d(TAG, "Simple arm tracker fully reset - clean state");
+            PoseLog.d(TAG, "Simple arm tracker fully reset - clean state");
         }
     }
     
+    @Override
     public void reset() {
         armCircleCount = 0;
         hasValidPrevFrame = false;
@@ -414,13 +414,18 @@ public class ArmCircleCounter {
         // Reset timing window tracking
         leftArmLastCompletion = 0;
         rightArmLastCompletion = 0;
-        Log.d(TAG, "Arm circle counter reset with timing flexibility");
+        PoseLog.d(TAG, "Arm circle counter reset with timing flexibility");
     }
     
     public int getArmCircleCount() {
         return armCircleCount;
     }
     
+    @Override
+    public int getCount() {
+        return getArmCircleCount();
+    }
+    
     public long getLastCircleTime() {
         return lastCircleTime;
     }
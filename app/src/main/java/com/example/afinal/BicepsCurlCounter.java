@@ -1,13 +1,10 @@
 package com.example.afinal;
 
-import android.os.Handler;
-import android.os.Looper;
-import android.util.Log;
 
 /**
  * BicepsCurlCounter - Detects biceps curls by tracking wrist movement relative to elbow
  */
-public class BicepsCurlCounter {
+public class BicepsCurlCounter implements RepCounter {
     public interface BicepsCurlListener {
         void onBicepsCurlDetected(int curlCount);
     }
@@ -33,7 +30,6 @@ public class BicepsCurlCounter {
     
     // Callback
     private BicepsCurlListener listener;
-    private final Handler mainHandler = new Handler(Looper.getMainLooper());
     
     public BicepsCurlCounter(BicepsCurlListener listener) {
         this.listener = listener;
@@ -44,22 +40,17 @@ public class BicepsCurlCounter {
      * 1. Wrist moves up significantly relative to elbow (curl up)
      * 2. Wrist returns down relative to elbow (curl down) - completes one rep
      */
-    public void processKeypoints(java.util.List<float[]> keypoints) {
-        if (keypoints == null || keypoints.size() < 17) {
+    @Override
+    public void processKeypoints(PoseFrame pose) {
+        if (pose == null) {
             return;
         }
         
-        long currentTime = System.currentTimeMillis();
-        
-        // Get arm keypoints
-        float[] leftElbow = keypoints.get(7);
-        float[] rightElbow = keypoints.get(8);
-        float[] leftWrist = keypoints.get(9);
-        float[] rightWrist = keypoints.get(10);
+        long currentTime = pose.getTimestampMillis(); // Frame time, so replays behave like the live camera
         
         // Check basic confidence for at least one arm
-        boolean leftArmValid = leftElbow[2] > MIN_CONFIDENCE && leftWrist[2] > MIN_CONFIDENCE;
-        boolean rightArmValid = rightElbow[2] > MIN_CONFIDENCE && rightWrist[2] > MIN_CONFIDENCE;
+        boolean leftArmValid = pose.confidence(PoseFrame.LEFT_ELBOW) > MIN_CONFIDENCE && pose.confidence(PoseFrame.LEFT_WRIST) > MIN_CONFIDENCE;
+        boolean rightArmValid = pose.confidence(PoseFrame.RIGHT_ELBOW) > MIN_CONFIDENCE && pose.confidence(PoseFrame.RIGHT_WRIST) > MIN_CONFIDENCE;
         
         if (!leftArmValid && !rightArmValid) {
             return;
@@ -68,12 +59,12 @@ public class BicepsCurlCounter {
         // Skip first frame (need previous frame for comparison)
         if (!hasValidPrevFrame) {
             if (leftArmValid) {
-                prevLeftWristY = leftWrist[1];
-                prevLeftElbowY = leftElbow[1];
+                prevLeftWristY = pose.y(PoseFrame.LEFT_WRIST);
+                prevLeftElbowY = pose.y(PoseFrame.LEFT_ELBOW);
             }
             if (rightArmValid) {
-                prevRightWristY = rightWrist[1];
-                prevRightElbowY = rightElbow[1];
+                prevRightWristY = pose.y(PoseFrame.RIGHT_WRIST);
+                prevRightElbowY = pose.y(PoseFrame.RIGHT_ELBOW);
             }
             hasValidPrevFrame = true;
             return;
@@ -88,14 +79,16 @@ public class BicepsCurlCounter {
         
         // Check left arm curl
         if (leftArmValid) {
-            float leftWristRelativeToElbow = leftElbow[1] - leftWrist[1]; // Positive = wrist above elbow
+            float leftWristRelativeToElbow = pose.y(PoseFrame.LEFT_ELBOW) - pose.y(PoseFrame.LEFT_WRIST); // Positive = wrist above elbow
             float prevLeftWristRelativeToElbow = prevLeftElbowY - prevLeftWristY;
             float leftCurlMovement = leftWristRelativeToElbow - prevLeftWristRelativeToElbow;
             
             // Detect curl up (wrist moves significantly up relative to elbow)
             if (!isInCurlUpPosition && leftCurlMovement > CURL_UP_THRESHOLD) {
                 isInCurlUpPosition = true;
-                Log.d(TAG, "Left arm curl UP detected: " + leftCurlMovement);
+                if (PoseLog.ENABLED) {
+                    PoseLog.d(TAG, "Left arm curl UP detected: %s", leftCurlMovement);
+                }
             }
             // Detect curl down (complete the rep)
             else if (isInCurlUpPosition && leftCurlMovement < -CURL_DOWN_THRESHOLD) {
@@ -107,14 +100,16 @@ public class BicepsCurlCounter {
         
         // Check right arm curl (if left arm didn't detect)
         if (!curlDetected && rightArmValid) {
-            float rightWristRelativeToElbow = rightElbow[1] - rightWrist[1]; // Positive = wrist above elbow
+            float rightWristRelativeToElbow = pose.y(PoseFrame.RIGHT_ELBOW) - pose.y(PoseFrame.RIGHT_WRIST); // Positive = wrist above elbow
             float prevRightWristRelativeToElbow = prevRightElbowY - prevRightWristY;
             float rightCurlMovement = rightWristRelativeToElbow - prevRightWristRelativeToElbow;
             
             // Detect curl up (wrist moves significantly up relative to elbow)
             if (!isInCurlUpPosition && rightCurlMovement > CURL_UP_THRESHOLD) {
                 isInCurlUpPosition = true;
-                Log.d(TAG, "Right arm curl UP detected: " + rightCurlMovement);
+                if (PoseLog.ENABLED) {
+                    PoseLog.d(TAG, "Right arm curl UP detected: %s", rightCurlMovement);
+                }
             }
             // Detect curl down (complete the rep)
             else if (isInCurlUpPosition && rightCurlMovement < -CURL_DOWN_THRESHOLD) {
@@ -124,10 +119,10 @@ public class BicepsCurlCounter {
             }
         }
         
-        // Debug logging
-        if (leftArmValid || rightArmValid) {
-            Log.d(TAG, String.format("CurlUp:%s Detected:%s Arm:%s Cool:%s", 
-                  isInCurlUpPosition, curlDetected, armUsed, cooldownPassed));
+        // Debug logging (compiled out of release builds)
+        if (PoseLog.ENABLED && (leftArmValid || rightArmValid)) {
+            FrameTrace.record(TAG, "state", FrameTrace.flag(isInCurlUpPosition), FrameTrace.flag(curlDetected),
+                    FrameTrace.flag(cooldownPassed));
         }
         
         // Count the biceps curl
@@ -135,28 +130,30 @@ public class BicepsCurlCounter {
             bicepsCurlCount++;
             lastBicepsCurlTime = currentTime;
             
-            Log.d(TAG, "✅ BICEPS CURL DETECTED! Count: " + bicepsCurlCount + " (Arm: " + armUsed + ")");
+            if (PoseLog.ENABLED) {
+                PoseLog.d(TAG, "✅ BICEPS CURL DETECTED! Count: %s (Arm: %s)", bicepsCurlCount, armUsed);
+            }
             
             if (listener != null) {
-                final int count = bicepsCurlCount;
-                mainHandler.post(() -> listener.onBicepsCurlDetected(count));
+                listener.onBicepsCurlDetected(bicepsCurlCount);
             }
         }
         
         // Update previous frame data
         if (leftArmValid) {
-            prevLeftWristY = leftWrist[1];
-            prevLeftElbowY = leftElbow[1];
+            prevLeftWristY = pose.y(PoseFrame.LEFT_WRIST);
+            prevLeftElbowY = pose.y(PoseFrame.LEFT_ELBOW);
         }
         if (rightArmValid) {
-            prevRightWristY = rightWrist[1];
-            prevRightElbowY = rightElbow[1];
+            prevRightWristY = pose.y(PoseFrame.RIGHT_WRIST);
+            prevRightElbowY = pose.y(PoseFrame.RIGHT_ELBOW);
         }
     }
     
     /**
      * Reset the biceps curl counter
      */
+    @Override
     public void reset() {
         bicepsCurlCount = 0;
         isInCurlUpPosition = false;
@@ -166,7 +163,7 @@ public class BicepsCurlCounter {
         prevRightWristY = 0f;
         prevLeftElbowY = 0f;
         prevRightElbowY = 0f;
-        Log.d(TAG, "Biceps curl counter reset");
+        PoseLog.d(TAG, "Biceps curl counter reset");
     }
     
     /**
@@ -176,6 +173,11 @@ public class BicepsCurlCounter {
         return bicepsCurlCount;
     }
     
+    @Override
+    public int getCount() {
+        return getBicepsCurlCount();
+    }
+    
     /**
      * Get current state for debugging
      */
@@ -0,0 +1,75 @@
+package com.example.afinal;
+
+import java.util.Collections;
+import java.util.EnumSet;
+
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtProvider;
+import ai.onnxruntime.OrtSession;
+import ai.onnxruntime.providers.NNAPIFlags;
+
+/**
+ * ExecutionProvider - Session configurations the pose model can run with
+ * CPU is the baseline every other option falls back to
+ */
+public enum ExecutionProvider {
+    CPU(OrtProvider.CPU, "cpu;threads=2"),
+    XNNPACK(OrtProvider.XNNPACK, "xnnpack;threads=2"),
+    NNAPI(OrtProvider.NNAPI, "nnapi"),
+    NNAPI_FP16(OrtProvider.NNAPI, "nnapi;fp16");
+
+    private static final int THREADS = 2;
+
+    private final OrtProvider ortProvider;
+    private final String signature;
+
+    ExecutionProvider(OrtProvider ortProvider, String signature) {
+        this.ortProvider = ortProvider;
+        this.signature = signature;
+    }
+
+    /**
+     * Whether the bundled ORT build ships this provider
+     */
+    public boolean isAvailable() {
+        return this == CPU || OrtEnvironment.getAvailableProviders().contains(ortProvider);
+    }
+
+    /**
+     * Stable description of everything createOptions() sets, used in cache and preference keys
+     */
+    public String getSignature() {
+        return signature + ";mempattern=1;arena=0";
+    }
+
+    public OrtSession.SessionOptions createOptions(OrtSession.SessionOptions.OptLevel level) throws OrtException {
+        OrtSession.SessionOptions options = new OrtSession.SessionOptions();
+
+        // Enable optimization for mobile with better memory management
+        options.setOptimizationLevel(level);
+        options.setMemoryPatternOptimization(true);
+        options.setCPUArenaAllocator(false); // Reduce memory usage
+
+        switch (this) {
+            case XNNPACK:
+                // XNNPACK runs its own thread pool; keep ORT's pool from spinning against it
+                options.setIntraOpNumThreads(1);
+                options.addConfigEntry("session.intra_op.allow_spinning", "0");
+                options.addXnnpack(Collections.singletonMap("intra_op_num_threads", String.valueOf(THREADS)));
+                break;
+            case NNAPI:
+                options.setIntraOpNumThreads(THREADS);
+                options.addNnapi();
+                break;
+            case NNAPI_FP16:
+                options.setIntraOpNumThreads(THREADS);
+                options.addNnapi(EnumSet.of(NNAPIFlags.USE_FP16));
+                break;
+            default:
+                options.setIntraOpNumThreads(THREADS);
+                break;
+        }
+        return options;
+    }
+}
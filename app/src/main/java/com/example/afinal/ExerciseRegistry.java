@@ -0,0 +1,106 @@
+package com.example.afinal;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ExerciseRegistry - Every exercise the camera screen can run, keyed by the "exercise_type" intent extra
+ * Holds the rep target, XP reward, local stats key and how to build the counter, so adding an exercise
+ * is one register() call instead of another branch in MainActivity
+ */
+public final class ExerciseRegistry {
+    public static final String DEFAULT_EXERCISE = "jump";
+
+    /**
+     * Builds the counter for an exercise; only called for the exercise that is actually started
+     */
+    public interface CounterFactory {
+        RepCounter create(RepCounter.Listener listener);
+    }
+
+    public static final class Exercise {
+        public final String id;
+        public final String label;      // Shown in the rep countdown, e.g. "Squats: 12"
+        public final int repTarget;
+        public final int xpReward;
+        public final String statsKey;   // Lifetime count in the "user_stats" prefs
+        private final CounterFactory factory;
+
+        public Exercise(String id, String label, int repTarget, int xpReward, String statsKey, CounterFactory factory) {
+            this.id = id;
+            this.label = label;
+            this.repTarget = repTarget;
+            this.xpReward = xpReward;
+            this.statsKey = statsKey;
+            this.factory = factory;
+        }
+
+        public RepCounter createCounter(RepCounter.Listener listener) {
+            return factory.create(listener);
+        }
+
+        @Override
+        public String toString() {
+            return id;
+        }
+    }
+
+    private static final Map<String, Exercise> EXERCISES = new LinkedHashMap<>();
+
+    static {
+        register(new Exercise("jump", "Jumps", 20, 20, "jump_count",
+                listener -> new JumpCounter(listener::onRepDetected)));
+        register(new Exercise("arm_circles", "Arm Circles", 20, 20, "arm_circles_count",
+                listener -> new ArmCircleCounter(listener::onRepDetected)));
+        // More reps for high knees (rapid movement)
+        register(new Exercise("high_knees", "High Knees", 30, 30, "high_knees_count",
+                listener -> new HighKneeCounter(listener::onRepDetected)));
+        register(new Exercise("side_reach", "Side Reaches", 20, 25, "side_reaches_count",
+                listener -> new SideReachCounter(listener::onRepDetected)));
+        // Star jumps
+        register(new Exercise("jack_jumps", "Jack Jumps", 12, 20, "jack_jumps_count",
+                listener -> new JackJumpsCounter(listener::onRepDetected)));
+        register(new Exercise("biceps_curl", "Biceps Curls", 20, 20, "biceps_curls_count",
+                listener -> new BicepsCurlCounter(listener::onRepDetected)));
+        register(new Exercise("shoulder_press", "Shoulder Presses", 20, 20, "shoulder_presses_count",
+                listener -> new ShoulderPressCounter(listener::onRepDetected)));
+        register(new Exercise("squat", "Squats", 15, 25, "squats_count",
+                listener -> new SquatCounter(listener::onRepDetected)));
+    }
+
+    private ExerciseRegistry() {
+    }
+
+    public static synchronized void register(Exercise exercise) {
+        EXERCISES.put(exercise.id, exercise);
+    }
+
+    /**
+     * Look up an exercise; unknown or missing ids fall back to jumps, as the camera screen always has
+     */
+    public static synchronized Exercise get(String id) {
+        Exercise exercise = id != null ? EXERCISES.get(id) : null;
+        return exercise != null ? exercise : EXERCISES.get(DEFAULT_EXERCISE);
+    }
+
+    /**
+     * Look up an exercise by exact id, for tools that must not silently fall back to jumps
+     * @throws IllegalArgumentException if no exercise is registered under that id
+     */
+    public static synchronized Exercise require(String id) {
+        Exercise exercise = id != null ? EXERCISES.get(id) : null;
+        if (exercise == null) {
+            throw new IllegalArgumentException("Unknown exercise '" + id + "', registered: " + EXERCISES.keySet());
+        }
+        return exercise;
+    }
+
+    /**
+     * Snapshot in registration order (the replay tests run every counter)
+     */
+    public static synchronized List<Exercise> getAll() {
+        return new ArrayList<>(EXERCISES.values());
+    }
+}
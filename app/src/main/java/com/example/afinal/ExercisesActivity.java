@@ -19,6 +19,11 @@ public class ExercisesActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_exercises);
         
+        // Load the pose model in the background while the user picks an exercise / watches the tutorial
+        PoseSessionManager.getInstance(this).warmUp();
+        // Send any exercise sessions a previous run couldn't deliver
+        StatsSync.getInstance(this);
+        
         // Set immersive sticky mode for better fullscreen experience
         getWindow().getDecorView().setSystemUiVisibility(
             View.SYSTEM_UI_FLAG_IMMERSIVE_STICKY |
@@ -0,0 +1,402 @@
+package com.example.afinal;
+
+import android.util.Log;
+
+import androidx.camera.core.ImageProxy;
+
+import java.nio.FloatBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * FramePipeline - Bounded convert -> infer -> post-process -> dispatch pipeline
+ * Each stage runs on its own thread and hands off through a latest-frame-wins slot,
+ * so the camera can convert frame N+1 while the model is still running on frame N
+ * and a slow stage only ever drops stale frames instead of queueing them
+ * Every frame pins the PoseModelRuntime it was converted for, so the runtime can be swapped without a gap
+ * Stage timings go into PipelineMetrics; drops are counted here (intake rejections and stale frames replaced)
+ * Every stage is also a PipelineTrace section tagged with the frame id, for following one frame in Perfetto
+ * While the screen is hidden the pipeline is parked: it takes no frames, and its runtime may be detached to save memory
+ */
+public class FramePipeline {
+    private static final String TAG = "FramePipeline";
+
+    /**
+     * Work done by each stage; implemented by the screen that owns the model
+     */
+    public interface Stages {
+        /** Camera thread: fill the model input from the camera frame */
+        boolean convert(ImageProxy image, PoseModelRuntime runtime, FloatBuffer input);
+
+        /** Inference thread: one model run finished */
+        void onInferenceTime(PoseModelRuntime runtime, long nanos);
+
+        /** Dispatch executor (the analysis thread): consume the decoded pose; it is recycled afterwards, so don't keep it */
+        void dispatch(PoseFrame pose);
+    }
+
+    /**
+     * One camera frame travelling through the pipeline; pooled, never allocated per frame
+     */
+    public static class Frame {
+        public long frameId;
+        public long timestampNanos;
+        long convertedNanos;
+        boolean traced; // Async trace slice open; handed to the pose once decoded
+        public int imageWidth;
+        public int imageHeight;
+        PoseModelRuntime runtime;
+        TensorPool.Slot input;
+        TensorPool.Slot output;
+    }
+
+    private volatile PoseModelRuntime runtime;
+    private final Stages stages;
+    private final PipelineMetrics metrics;
+    private final ArrayBlockingQueue<Frame> framePool;
+    private final PoseFrame.Pool posePool;
+
+    private final LatestFrameStage<Frame> inferStage;
+    private final LatestFrameStage<Frame> postStage;
+    private final LatestFrameStage<PoseFrame> dispatchStage;
+
+    private volatile boolean closed = false;
+    private volatile boolean parked = false;
+    private long nextFrameId = 0; // Only touched by the camera thread
+
+    // Intake counters
+    private final AtomicLong framesSubmitted = new AtomicLong();
+    private final AtomicLong framesRejected = new AtomicLong();
+    private final AtomicLong framesFailed = new AtomicLong();
+
+    public FramePipeline(PoseModelRuntime runtime, int frameCapacity,
+                         Executor inferExecutor, Executor postExecutor, Executor dispatchExecutor,
+                         Stages stages, PipelineMetrics metrics) {
+        this.runtime = runtime;
+        this.stages = stages;
+        this.metrics = metrics;
+        this.framePool = new ArrayBlockingQueue<>(frameCapacity);
+        for (int i = 0; i < frameCapacity; i++) {
+            framePool.offer(new Frame());
+        }
+        // Decoded poses: one being dispatched + one waiting + one being decoded
+        posePool = new PoseFrame.Pool(3);
+
+        inferStage = new LatestFrameStage<>("infer", inferExecutor, this::runInfer, this::recycle);
+        postStage = new LatestFrameStage<>("post", postExecutor, this::runPost, this::recycle);
+        dispatchStage = new LatestFrameStage<>("dispatch", dispatchExecutor, this::runDispatch, this::dropPose);
+    }
+
+    /**
+     * Use a new runtime for frames submitted from now on; frames already in flight finish on the old one
+     * @return the previous runtime (caller still owns its reference)
+     */
+    public PoseModelRuntime setRuntime(PoseModelRuntime newRuntime) {
+        PoseModelRuntime previous = runtime;
+        runtime = newRuntime;
+        return previous;
+    }
+
+    /**
+     * Camera thread entry point; always closes the image before returning
+     */
+    public void submit(ImageProxy image) {
+        framesSubmitted.incrementAndGet();
+        Frame frame = null;
+        try {
+            if (closed || parked) {
+                framesRejected.incrementAndGet();
+                return;
+            }
+            frame = framePool.poll();
+            if (frame == null) {
+                framesRejected.incrementAndGet();
+                return;
+            }
+            PoseModelRuntime current = runtime;
+            if (current == null || !current.retain()) {
+                framesRejected.incrementAndGet();
+                recycle(frame);
+                frame = null;
+                return;
+            }
+            frame.runtime = current;
+            frame.input = current.inputPool.acquire();
+            if (frame.input == null) {
+                // Every input buffer is still waiting on inference - drop this frame
+                framesRejected.incrementAndGet();
+                recycle(frame);
+                frame = null;
+                return;
+            }
+
+            frame.frameId = nextFrameId++;
+            frame.timestampNanos = System.nanoTime();
+            frame.imageWidth = image.getWidth();
+            frame.imageHeight = image.getHeight();
+            PipelineTrace.beginFrame(frame.frameId);
+            frame.traced = true;
+
+            boolean converted;
+            PipelineTrace.begin(PipelineTrace.CONVERT, frame.frameId);
+            try {
+                converted = stages.convert(image, frame.runtime, frame.input.buffer);
+            } finally {
+                PipelineTrace.end();
+            }
+            if (!converted) {
+                framesFailed.incrementAndGet();
+                recycle(frame);
+                frame = null;
+                return;
+            }
+            frame.convertedNanos = System.nanoTime();
+            metrics.record(PipelineMetrics.Stage.CONVERT, frame.convertedNanos - frame.timestampNanos);
+
+            inferStage.offer(frame);
+            frame = null;
+        } catch (Exception e) {
+            Log.e(TAG, "Error converting frame", e);
+            framesFailed.incrementAndGet();
+        } finally {
+            if (frame != null) {
+                recycle(frame);
+            }
+            // The camera buffer is released as soon as conversion is done, not after inference
+            image.close();
+        }
+    }
+
+    private void runInfer(Frame frame) {
+        try {
+            if (closed) {
+                recycle(frame);
+                return;
+            }
+            PoseModelRuntime current = frame.runtime;
+            frame.output = current.outputPool.acquire();
+            if (frame.output == null) {
+                framesRejected.incrementAndGet();
+                recycle(frame);
+                return;
+            }
+
+            long start = System.nanoTime();
+            metrics.record(PipelineMetrics.Stage.INFER_WAIT, start - frame.convertedNanos);
+            PipelineTrace.begin(PipelineTrace.INFER, frame.frameId);
+            try {
+                current.run(frame.input, frame.output);
+            } finally {
+                PipelineTrace.end();
+            }
+            long inferNanos = System.nanoTime() - start;
+            metrics.record(PipelineMetrics.Stage.INFER, inferNanos);
+            stages.onInferenceTime(current, inferNanos);
+
+            // Input buffer is free again as soon as the model has consumed it
+            current.inputPool.release(frame.input);
+            frame.input = null;
+            postStage.offer(frame);
+        } catch (Exception e) {
+            Log.e(TAG, "Error running inference", e);
+            framesFailed.incrementAndGet();
+            recycle(frame);
+        }
+    }
+
+    private void runPost(Frame frame) {
+        PoseFrame pose = posePool.acquire();
+        try {
+            // Parse keypoints straight from the pinned output buffer into the pooled pose
+            long start = System.nanoTime();
+            boolean found;
+            PipelineTrace.begin(PipelineTrace.DECODE, frame.frameId);
+            try {
+                found = frame.runtime.decoder.decodeBest(
+                        frame.output.buffer, frame.imageWidth, frame.imageHeight, pose.data());
+            } finally {
+                PipelineTrace.end();
+            }
+            pose.setMetadata(frame.frameId, frame.timestampNanos, found);
+            metrics.recordSince(PipelineMetrics.Stage.DECODE, start);
+            // The pose carries the frame's trace slice from here on
+            frame.traced = false;
+        } catch (Exception e) {
+            Log.e(TAG, "Error post-processing frame", e);
+            framesFailed.incrementAndGet();
+            posePool.release(pose);
+            pose = null;
+        } finally {
+            // Tensors are done with once decoded; only the small pose travels on
+            recycle(frame);
+        }
+        if (pose != null) {
+            dispatchStage.offer(pose);
+        }
+    }
+
+    private void runDispatch(PoseFrame pose) {
+        try {
+            if (!closed) {
+                long start = System.nanoTime();
+                PipelineTrace.begin(PipelineTrace.COUNT, pose.getFrameId());
+                try {
+                    stages.dispatch(pose);
+                } finally {
+                    PipelineTrace.end();
+                }
+                long end = System.nanoTime();
+                metrics.record(PipelineMetrics.Stage.COUNT, end - start);
+                metrics.record(PipelineMetrics.Stage.CAMERA_TO_COUNTED, end - pose.getTimestampNanos());
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error dispatching frame", e);
+            framesFailed.incrementAndGet();
+        } finally {
+            PipelineTrace.endFrame(pose.getFrameId());
+            posePool.release(pose);
+        }
+    }
+
+    // Pose replaced by a newer one before the analysis thread got to it
+    private void dropPose(PoseFrame pose) {
+        PipelineTrace.endFrame(pose.getFrameId());
+        posePool.release(pose);
+    }
+
+    private void recycle(Frame frame) {
+        if (frame.traced) {
+            PipelineTrace.endFrame(frame.frameId);
+            frame.traced = false;
+        }
+        PoseModelRuntime current = frame.runtime;
+        if (current != null) {
+            if (frame.input != null) {
+                current.inputPool.release(frame.input);
+                frame.input = null;
+            }
+            if (frame.output != null) {
+                current.outputPool.release(frame.output);
+                frame.output = null;
+            }
+            // Last frame on a replaced runtime closes it
+            frame.runtime = null;
+            current.release();
+        }
+        framePool.offer(frame);
+    }
+
+    /**
+     * Stop taking frames while the screen is hidden and drop anything waiting between stages
+     * The runtime stays attached for a quick resume; detach it with setRuntime(null) to release its memory
+     */
+    public void park() {
+        parked = true;
+        inferStage.clear();
+        postStage.clear();
+        dispatchStage.clear();
+    }
+
+    /**
+     * Take frames again, on the given runtime if the parked one was detached
+     * @return the runtime replaced (caller still owns its reference), or null
+     */
+    public PoseModelRuntime unpark(PoseModelRuntime newRuntime) {
+        PoseModelRuntime previous = newRuntime != null ? setRuntime(newRuntime) : null;
+        parked = false;
+        return previous;
+    }
+
+    public boolean isParked() {
+        return parked;
+    }
+
+    public PoseModelRuntime getRuntime() {
+        return runtime;
+    }
+
+    /**
+     * Close the idle pooled tensors; anything in flight keeps its slot and the pools regrow on demand
+     * @return bytes released
+     */
+    public long trimPools() {
+        PoseModelRuntime current = runtime;
+        if (current == null) {
+            return 0;
+        }
+        return current.inputPool.trim() + current.outputPool.trim();
+    }
+
+    /**
+     * Bytes held by the current runtime's tensor pools
+     */
+    public long getPooledBytes() {
+        PoseModelRuntime current = runtime;
+        if (current == null) {
+            return 0;
+        }
+        return current.inputPool.getRetainedBytes() + current.outputPool.getRetainedBytes();
+    }
+
+    /**
+     * Stop accepting frames and drop anything still waiting between stages
+     * In-flight frames finish their current stage and are recycled
+     * @return the current runtime (caller still owns its reference)
+     */
+    public PoseModelRuntime close() {
+        closed = true;
+        inferStage.close();
+        postStage.close();
+        dispatchStage.close();
+        return setRuntime(null);
+    }
+
+    // Queue depths (0..2 each: waiting + running)
+    public int getInferDepth() {
+        return inferStage.getDepth();
+    }
+
+    public int getPostDepth() {
+        return postStage.getDepth();
+    }
+
+    public int getDispatchDepth() {
+        return dispatchStage.getDepth();
+    }
+
+    public long getFramesSubmitted() {
+        return framesSubmitted.get();
+    }
+
+    public long getFramesRejected() {
+        return framesRejected.get();
+    }
+
+    public long getFramesFailed() {
+        return framesFailed.get();
+    }
+
+    /**
+     * Frames that entered the pipeline but were replaced by a newer one before a stage picked them up
+     */
+    public long getFramesDropped() {
+        return inferStage.getDropped() + postStage.getDropped() + dispatchStage.getDropped();
+    }
+
+    public PipelineMetrics getMetrics() {
+        return metrics;
+    }
+
+    public long getFramesDispatched() {
+        return dispatchStage.getProcessed();
+    }
+
+    @Override
+    public String toString() {
+        return "FramePipeline{submitted=" + framesSubmitted.get()
+                + ", rejected=" + framesRejected.get()
+                + ", failed=" + framesFailed.get()
+                + ", " + inferStage + ", " + postStage + ", " + dispatchStage + "}";
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.afinal;
+
+/**
+ * FrameTrace - Fixed-size ring buffer of per-frame counter state, dumped on demand instead of logged every frame
+ * Records hold constant strings and up to four floats, so recording allocates nothing; with PoseLog.ENABLED
+ * off (release) every method returns immediately
+ */
+public final class FrameTrace {
+    private static final String TAG = "FrameTrace";
+    private static final int CAPACITY = 1024;
+    private static final int MAX_VALUES = 4;
+
+    private static final long[] frameIds = new long[CAPACITY];
+    private static final long[] timesNanos = new long[CAPACITY];
+    private static final String[] tags = new String[CAPACITY];
+    private static final String[] events = new String[CAPACITY];
+    private static final byte[] valueCounts = new byte[CAPACITY];
+    private static final float[] values = new float[CAPACITY * MAX_VALUES];
+
+    private static long currentFrameId = -1;
+    private static long currentFrameNanos = 0;
+    private static int next = 0;
+    private static long recorded = 0;
+
+    private FrameTrace() {
+    }
+
+    /**
+     * Called once per pose before the counter runs; later records are tagged with this frame
+     */
+    public static void beginFrame(long frameId, long timestampNanos) {
+        if (!PoseLog.ENABLED) {
+            return;
+        }
+        synchronized (FrameTrace.class) {
+            currentFrameId = frameId;
+            currentFrameNanos = timestampNanos;
+        }
+    }
+
+    public static void record(String tag, String event) {
+        if (PoseLog.ENABLED) {
+            append(tag, event, 0, 0f, 0f, 0f, 0f);
+        }
+    }
+
+    public static void record(String tag, String event, float a) {
+        if (PoseLog.ENABLED) {
+            append(tag, event, 1, a, 0f, 0f, 0f);
+        }
+    }
+
+    public static void record(String tag, String event, float a, float b) {
+        if (PoseLog.ENABLED) {
+            append(tag, event, 2, a, b, 0f, 0f);
+        }
+    }
+
+    public static void record(String tag, String event, float a, float b, float c) {
+        if (PoseLog.ENABLED) {
+            append(tag, event, 3, a, b, c, 0f);
+        }
+    }
+
+    public static void record(String tag, String event, float a, float b, float c, float d) {
+        if (PoseLog.ENABLED) {
+            append(tag, event, 4, a, b, c, d);
+        }
+    }
+
+    /**
+     * Booleans are stored as 1 / 0 so they fit in a value slot
+     */
+    public static float flag(boolean value) {
+        return value ? 1f : 0f;
+    }
+
+    private static synchronized void append(String tag, String event, int count, float a, float b, float c, float d) {
+        int i = next;
+        frameIds[i] = currentFrameId;
+        timesNanos[i] = System.nanoTime() - currentFrameNanos;
+        tags[i] = tag;
+        events[i] = event;
+        valueCounts[i] = (byte) count;
+        int o = i * MAX_VALUES;
+        values[o] = a;
+        values[o + 1] = b;
+        values[o + 2] = c;
+        values[o + 3] = d;
+        next = (i + 1) % CAPACITY;
+        recorded++;
+    }
+
+    /**
+     * Oldest to newest, one line per record: frame id, microseconds since capture, tag, event, values
+     */
+    public static synchronized String dump() {
+        if (!PoseLog.ENABLED || recorded == 0) {
+            return "";
+        }
+        int size = (int) Math.min(recorded, CAPACITY);
+        int start = recorded > CAPACITY ? next : 0;
+        StringBuilder sb = new StringBuilder(size * 64);
+        for (int n = 0; n < size; n++) {
+            int i = (start + n) % CAPACITY;
+            sb.append('#').append(frameIds[i])
+                    .append(" +").append(timesNanos[i] / 1000).append("us ")
+                    .append(tags[i]).append(' ').append(events[i]);
+            int o = i * MAX_VALUES;
+            for (int v = 0; v < valueCounts[i]; v++) {
+                sb.append(v == 0 ? " [" : ", ").append(String.format("%.3f", values[o + v]));
+            }
+            if (valueCounts[i] > 0) {
+                sb.append(']');
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Write the buffer to logcat in one burst (split into lines, logcat truncates long messages)
+     */
+    public static void dumpToLog() {
+        if (!PoseLog.ENABLED) {
+            return;
+        }
+        String dump = dump();
+        PoseLog.println(PoseLog.INFO, TAG, "---- frame trace (" + getRecordedCount() + " records, last " + CAPACITY + " kept) ----");
+        for (String line : dump.split("\n")) {
+            if (!line.isEmpty()) {
+                PoseLog.println(PoseLog.INFO, TAG, line);
+            }
+        }
+        PoseLog.println(PoseLog.INFO, TAG, "---- end frame trace ----");
+    }
+
+    public static synchronized void clear() {
+        next = 0;
+        recorded = 0;
+        currentFrameId = -1;
+    }
+
+    public static synchronized long getRecordedCount() {
+        return recorded;
+    }
+}
@@ -1,15 +1,11 @@
 package com.example.afinal;
 
-import android.os.Handler;
-import android.os.Looper;
-import android.util.Log;
-import java.util.List;
 
 /**
  * HighKneeCounter - Detects high knee exercises by tracking knee lifting above hip level
  * Counts alternating knee lifts with no cooldown for rapid movement
  */
-public class HighKneeCounter {
+public class HighKneeCounter implements RepCounter {
     public interface HighKneeListener {
         void onHighKneeDetected(int highKneeCount);
     }
@@ -32,7 +28,6 @@ public class HighKneeCounter {
     
     // Callback
     private HighKneeListener listener;
-    private final Handler mainHandler = new Handler(Looper.getMainLooper());
     
     public HighKneeCounter(HighKneeListener listener) {
         this.listener = listener;
@@ -42,57 +37,55 @@ public class HighKneeCounter {
      * Process keypoints to detect high knee movements
      * Tracks when knees are lifted significantly above hip level
      */
-    public void processKeypoints(List<float[]> keypoints) {
-        if (keypoints == null || keypoints.size() < 17) {
+    @Override
+    public void processKeypoints(PoseFrame pose) {
+        if (pose == null) {
             return;
         }
         
-        // Get hip and knee keypoints
-        float[] leftHip = keypoints.get(11);    // Left hip
-        float[] rightHip = keypoints.get(12);   // Right hip
-        float[] leftKnee = keypoints.get(13);   // Left knee
-        float[] rightKnee = keypoints.get(14);  // Right knee
-        
         // Check if we have enough confidence in the required keypoints
-        boolean leftLegValid = leftHip[2] > MIN_CONFIDENCE && leftKnee[2] > MIN_CONFIDENCE;
-        boolean rightLegValid = rightHip[2] > MIN_CONFIDENCE && rightKnee[2] > MIN_CONFIDENCE;
+        boolean leftLegValid = pose.confidence(PoseFrame.LEFT_HIP) > MIN_CONFIDENCE && pose.confidence(PoseFrame.LEFT_KNEE) > MIN_CONFIDENCE;
+        boolean rightLegValid = pose.confidence(PoseFrame.RIGHT_HIP) > MIN_CONFIDENCE && pose.confidence(PoseFrame.RIGHT_KNEE) > MIN_CONFIDENCE;
         
         // DETAILED COORDINATE LOGGING for debugging
-        Log.d(TAG, String.format("🔍 COORDINATES - LeftHip: [%.3f,%.3f,%.3f] RightHip: [%.3f,%.3f,%.3f]", 
-                leftHip[0], leftHip[1], leftHip[2], rightHip[0], rightHip[1], rightHip[2]));
-        Log.d(TAG, String.format("🔍 COORDINATES - LeftKnee: [%.3f,%.3f,%.3f] RightKnee: [%.3f,%.3f,%.3f]", 
-                leftKnee[0], leftKnee[1], leftKnee[2], rightKnee[0], rightKnee[1], rightKnee[2]));
-        Log.d(TAG, String.format("🔍 CONFIDENCE - LeftLeg: %s (%.3f,%.3f) RightLeg: %s (%.3f,%.3f)", 
-                leftLegValid, leftHip[2], leftKnee[2], rightLegValid, rightHip[2], rightKnee[2]));
+        FrameTrace.record(TAG, "left hip/knee", pose.y(PoseFrame.LEFT_HIP), pose.confidence(PoseFrame.LEFT_HIP),
+                pose.y(PoseFrame.LEFT_KNEE), pose.confidence(PoseFrame.LEFT_KNEE));
+        FrameTrace.record(TAG, "right hip/knee", pose.y(PoseFrame.RIGHT_HIP), pose.confidence(PoseFrame.RIGHT_HIP),
+                pose.y(PoseFrame.RIGHT_KNEE), pose.confidence(PoseFrame.RIGHT_KNEE));
+        FrameTrace.record(TAG, "legs valid", FrameTrace.flag(leftLegValid), FrameTrace.flag(rightLegValid));
         
         if (!leftLegValid && !rightLegValid) {
-            Log.d(TAG, "❌ Not enough confidence in hip/knee keypoints");
+            FrameTrace.record(TAG, "low confidence");
             return;
         }
         
         // Skip first frame - need to establish baseline
         if (!hasValidPrevFrame) {
             hasValidPrevFrame = true;
-            Log.d(TAG, "✅ First frame recorded for high knee detection");
+            PoseLog.d(TAG, "✅ First frame recorded for high knee detection");
             return;
         }
         
         // Track left leg high knee using simple upward movement
         if (leftLegValid) {
-            boolean leftKneeLifted = leftKneeTracker.processKneeUpwardMovement(leftKnee[1]);
+            boolean leftKneeLifted = leftKneeTracker.processKneeUpwardMovement(pose.y(PoseFrame.LEFT_KNEE), pose.getTimestampMillis());
             if (leftKneeLifted) {
                 highKneeCount++;
-                Log.d(TAG, "🦵 LEFT HIGH KNEE detected! Count: " + highKneeCount);
+                if (PoseLog.ENABLED) {
+                    PoseLog.d(TAG, "🦵 LEFT HIGH KNEE detected! Count: %s", highKneeCount);
+                }
                 notifyListener();
             }
         }
         
         // Track right leg high knee using simple upward movement  
         if (rightLegValid) {
-            boolean rightKneeLifted = rightKneeTracker.processKneeUpwardMovement(rightKnee[1]);
+            boolean rightKneeLifted = rightKneeTracker.processKneeUpwardMovement(pose.y(PoseFrame.RIGHT_KNEE), pose.getTimestampMillis());
             if (rightKneeLifted) {
                 highKneeCount++;
-                Log.d(TAG, "🦵 RIGHT HIGH KNEE detected! Count: " + highKneeCount);
+                if (PoseLog.ENABLED) {
+                    PoseLog.d(TAG, "🦵 RIGHT HIGH KNEE detected! Count: %s", highKneeCount);
+                }
                 notifyListener();
             }
         }
@@ -103,8 +96,7 @@ public class HighKneeCounter {
      */
     private void notifyListener() {
         if (listener != null) {
-            final int count = highKneeCount;
-            mainHandler.post(() -> listener.onHighKneeDetected(count));
+            listener.onHighKneeDetected(highKneeCount);
         }
     }
     
@@ -126,18 +118,19 @@ public class HighKneeCounter {
         /**
          * Process knee position using simple upward movement detection
          * @param kneeY Y position of knee
+         * @param currentTime frame time in ms (PoseFrame.getTimestampMillis)
          * @return true if a new high knee lift is detected
          */
-        public boolean processKneeUpwardMovement(float kneeY) {
-            long currentTime = System.currentTimeMillis();
-            
+        public boolean processKneeUpwardMovement(float kneeY, long currentTime) {
             // Establish baseline over first BASELINE_FRAMES frames
             if (frameCount < BASELINE_FRAMES) {
                 sumY += kneeY;
                 frameCount++;
                 if (frameCount == BASELINE_FRAMES) {
                     baselineY = sumY / BASELINE_FRAMES;
-                    Log.d(TAG, "✅ " + legName + " baseline established: " + baselineY);
+                    if (PoseLog.ENABLED) {
+                        PoseLog.d(TAG, "✅ %s baseline established: %s", legName, baselineY);
+                    }
                 }
                 return false; // Don't count during baseline establishment
             }
@@ -149,22 +142,24 @@ public class HighKneeCounter {
             boolean shouldGoUp = upwardMovement > UPWARD_MOVEMENT_THRESHOLD;
             boolean shouldGoDown = upwardMovement < DOWN_MOVEMENT_THRESHOLD;
             
-            Log.d(TAG, String.format("%s knee - BaselineY: %.3f, CurrentY: %.3f, UpMovement: %.3f, ShouldUp: %s, ShouldDown: %s, IsUp: %s, Cooldown: %s", 
-                    legName, baselineY, kneeY, upwardMovement, shouldGoUp, shouldGoDown, isKneeUp, 
-                    (currentTime - lastCountTime) < COOLDOWN_MS ? "YES" : "NO"));
+            FrameTrace.record(TAG, legName, baselineY, kneeY, upwardMovement, FrameTrace.flag(isKneeUp));
             
             // STATE TRANSITIONS with cooldown protection
             if (shouldGoUp && !isKneeUp) {
                 // Check cooldown - prevent counting too frequently
                 if (currentTime - lastCountTime < COOLDOWN_MS) {
-                    Log.d(TAG, "⏰ " + legName + " knee lift blocked by cooldown");
+                    if (PoseLog.ENABLED) {
+                        PoseLog.d(TAG, "⏰ %s knee lift blocked by cooldown", legName);
+                    }
                     return false;
                 }
                 
                 // Knee moved up significantly from baseline - count it!
                 isKneeUp = true;
                 lastCountTime = currentTime;
-                Log.d(TAG, "✅ " + legName + " knee LIFTED (moved up from baseline) - new high knee detected!");
+                if (PoseLog.ENABLED) {
+                    PoseLog.d(TAG, "✅ %s knee LIFTED (moved up from baseline) - new high knee detected!", legName);
+                }
                 return true; // New high knee detected
             }
             
@@ -172,7 +167,9 @@ public class HighKneeCounter {
             if (shouldGoDown && isKneeUp) {
                 // Knee moved back down to baseline - ready for next lift
                 isKneeUp = false;
-                Log.d(TAG, "⬇️ " + legName + " knee LOWERED (back to baseline) - ready for next lift");
+                if (PoseLog.ENABLED) {
+                    PoseLog.d(TAG, "⬇️ %s knee LOWERED (back to baseline) - ready for next lift", legName);
+                }
             }
             
             return false; // No new high knee detected
@@ -184,19 +181,22 @@ public class HighKneeCounter {
             baselineY = -1f;
             frameCount = 0;
             sumY = 0f;
-            Log.d(TAG, legName + " knee tracker reset");
+            if (PoseLog.ENABLED) {
+                PoseLog.d(TAG, "%s knee tracker reset", legName);
+            }
         }
     }
     
     /**
      * Reset the high knee counter to zero
      */
+    @Override
     public void reset() {
         highKneeCount = 0;
         hasValidPrevFrame = false;
         leftKneeTracker.reset();
         rightKneeTracker.reset();
-        Log.d(TAG, "High knee counter reset");
+        PoseLog.d(TAG, "High knee counter reset");
     }
     
     /**
@@ -205,4 +205,9 @@ public class HighKneeCounter {
     public int getHighKneeCount() {
         return highKneeCount;
     }
+    
+    @Override
+    public int getCount() {
+        return getHighKneeCount();
+    }
 } 
\ No newline at end of file
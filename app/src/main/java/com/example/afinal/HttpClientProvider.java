@@ -0,0 +1,112 @@
+package com.example.afinal;
+
+import android.content.Context;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Cache;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * HttpClientProvider - The one OkHttpClient the app talks to the stats API and Supabase with
+ * Sharing it means one connection pool (TLS sessions and HTTP/2 connections are reused across screens),
+ * one dispatcher thread pool and one disk cache, so GET responses with ETag / Cache-Control are revalidated
+ * with a conditional request (304) or served straight from disk instead of downloaded again
+ */
+public final class HttpClientProvider {
+    private static final long CACHE_SIZE_BYTES = 10L * 1024 * 1024;
+    private static final int MAX_IDLE_CONNECTIONS = 5;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+
+    private static volatile OkHttpClient client;
+
+    private HttpClientProvider() {
+    }
+
+    public static OkHttpClient get(Context context) {
+        if (client == null) {
+            synchronized (HttpClientProvider.class) {
+                if (client == null) {
+                    client = build(context.getApplicationContext());
+                }
+            }
+        }
+        return client;
+    }
+
+    private static OkHttpClient build(Context appContext) {
+        Dispatcher dispatcher = new Dispatcher();
+        // Stats and auth together never need more than a handful of calls per host
+        dispatcher.setMaxRequestsPerHost(6);
+
+        return new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                .dispatcher(dispatcher)
+                .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .cache(new Cache(new File(appContext.getCacheDir(), "http"), CACHE_SIZE_BYTES))
+                .connectTimeout(15, TimeUnit.SECONDS)
+                .readTimeout(20, TimeUnit.SECONDS)
+                .writeTimeout(20, TimeUnit.SECONDS)
+                .retryOnConnectionFailure(true)
+                .build();
+    }
+
+    /**
+     * Parses a response body as it streams in
+     */
+    public interface BodyReader<T> {
+        T read(ResponseBody body) throws IOException;
+    }
+
+    /**
+     * Async OkHttp call as a future: completes on the dispatcher thread with the body of a 2xx response,
+     * or fails with the IOException / ApiService.ApiException
+     */
+    public static CompletableFuture<String> call(OkHttpClient client, Request request) {
+        return call(client, request, ResponseBody::string);
+    }
+
+    /**
+     * Same, but the body is handed to the reader unread (e.g. to parse off its source) instead of as a String
+     */
+    public static <T> CompletableFuture<T> call(OkHttpClient client, Request request, BodyReader<T> reader) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        client.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (Response r = response) {
+                    if (!r.isSuccessful()) {
+                        future.completeExceptionally(new ApiService.ApiException(r.code()));
+                        return;
+                    }
+                    ResponseBody body = r.body();
+                    if (body == null) {
+                        throw new IOException("Empty response body");
+                    }
+                    future.complete(reader.read(body));
+                } catch (IOException | RuntimeException e) {
+                    // RuntimeException: a streaming adapter's IllegalStateException / NumberFormatException on a bad shape
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+        return future;
+    }
+}
@@ -1,13 +1,10 @@
 package com.example.afinal;
 
-import android.os.Handler;
-import android.os.Looper;
-import android.util.Log;
 
 /**
  * JackJumpsCounter - Detects jumping jacks by tracking jump motion + arm/leg spread
  */
-public class JackJumpsCounter {
+public class JackJumpsCounter implements RepCounter {
     public interface JackJumpsListener {
         void onJackJumpDetected(int jumpCount);
     }
@@ -31,7 +28,6 @@ public class JackJumpsCounter {
     
     // Callback
     private JackJumpsListener listener;
-    private final Handler mainHandler = new Handler(Looper.getMainLooper());
     
     public JackJumpsCounter(JackJumpsListener listener) {
         this.listener = listener;
@@ -43,28 +39,21 @@ public class JackJumpsCounter {
      * 2. Arms raised above shoulders  
      * (No leg detection - just arms and body movement)
      */
-    public void processKeypoints(java.util.List<float[]> keypoints) {
-        if (keypoints == null || keypoints.size() < 17) {
+    @Override
+    public void processKeypoints(PoseFrame pose) {
+        if (pose == null) {
             return;
         }
         
-        long currentTime = System.currentTimeMillis();
-        
-        // Get key body parts for jumping jack detection
-        float[] leftShoulder = keypoints.get(5);
-        float[] rightShoulder = keypoints.get(6);
-        float[] leftWrist = keypoints.get(9);
-        float[] rightWrist = keypoints.get(10);
-        float[] leftHip = keypoints.get(11);
-        float[] rightHip = keypoints.get(12);
+        long currentTime = pose.getTimestampMillis(); // Frame time, so replays behave like the live camera
         
         // Check basic confidence
-        if (leftShoulder[2] < MIN_CONFIDENCE || rightShoulder[2] < MIN_CONFIDENCE) {
+        if (pose.confidence(PoseFrame.LEFT_SHOULDER) < MIN_CONFIDENCE || pose.confidence(PoseFrame.RIGHT_SHOULDER) < MIN_CONFIDENCE) {
             return;
         }
         
         // Calculate body center for jump detection
-        float bodyCenterY = (leftShoulder[1] + rightShoulder[1] + leftHip[1] + rightHip[1]) / 4.0f;
+        float bodyCenterY = (pose.y(PoseFrame.LEFT_SHOULDER) + pose.y(PoseFrame.RIGHT_SHOULDER) + pose.y(PoseFrame.LEFT_HIP) + pose.y(PoseFrame.RIGHT_HIP)) / 4.0f;
         
         // Skip first frame (need previous frame for comparison)
         if (!hasValidPrevFrame) {
@@ -79,9 +68,9 @@ public class JackJumpsCounter {
         
         // 2. Check arms are raised (wrists above shoulders)
         boolean armsRaised = false;
-        if (leftWrist[2] > MIN_CONFIDENCE && rightWrist[2] > MIN_CONFIDENCE) {
-            float leftArmRaise = leftShoulder[1] - leftWrist[1]; // Positive = wrist above shoulder
-            float rightArmRaise = rightShoulder[1] - rightWrist[1]; // Positive = wrist above shoulder
+        if (pose.confidence(PoseFrame.LEFT_WRIST) > MIN_CONFIDENCE && pose.confidence(PoseFrame.RIGHT_WRIST) > MIN_CONFIDENCE) {
+            float leftArmRaise = pose.y(PoseFrame.LEFT_SHOULDER) - pose.y(PoseFrame.LEFT_WRIST); // Positive = wrist above shoulder
+            float rightArmRaise = pose.y(PoseFrame.RIGHT_SHOULDER) - pose.y(PoseFrame.RIGHT_WRIST); // Positive = wrist above shoulder
             armsRaised = (leftArmRaise > ARM_UP_THRESHOLD) && (rightArmRaise > ARM_UP_THRESHOLD);
         }
         
@@ -92,8 +81,8 @@ public class JackJumpsCounter {
         boolean isValidJackJump = isJumping && armsRaised;
         
         // Debug logging
-        Log.d(TAG, String.format("Jump:%.3f Arms:%s Valid:%s Cool:%s", 
-              verticalMovement, armsRaised, isValidJackJump, cooldownPassed));
+        FrameTrace.record(TAG, "state", verticalMovement, FrameTrace.flag(armsRaised),
+                FrameTrace.flag(isValidJackJump), FrameTrace.flag(cooldownPassed));
         
         // Detect jack jump
         if (isValidJackJump && !isInJackJumpPosition && cooldownPassed) {
@@ -101,11 +90,12 @@ public class JackJumpsCounter {
             jackJumpCount++;
             lastJackJumpTime = currentTime;
             
-            Log.d(TAG, "✅ JACK JUMP DETECTED! Count: " + jackJumpCount);
+            if (PoseLog.ENABLED) {
+                PoseLog.d(TAG, "✅ JACK JUMP DETECTED! Count: %s", jackJumpCount);
+            }
             
             if (listener != null) {
-                final int count = jackJumpCount;
-                mainHandler.post(() -> listener.onJackJumpDetected(count));
+                listener.onJackJumpDetected(jackJumpCount);
             }
         }
         
@@ -121,13 +111,14 @@ public class JackJumpsCounter {
     /**
      * Reset the jack jumps counter
      */
+    @Override
     public void reset() {
         jackJumpCount = 0;
         isInJackJumpPosition = false;
         lastJackJumpTime = 0;
         hasValidPrevFrame = false;
         prevBodyCenterY = 0f;
-        Log.d(TAG, "Jack jumps counter reset");
+        PoseLog.d(TAG, "Jack jumps counter reset");
     }
     
     /**
@@ -137,6 +128,11 @@ public class JackJumpsCounter {
         return jackJumpCount;
     }
     
+    @Override
+    public int getCount() {
+        return getJackJumpCount();
+    }
+    
     /**
      * Get current state for debugging
      */
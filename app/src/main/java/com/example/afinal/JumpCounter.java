@@ -1,13 +1,10 @@
 package com.example.afinal;
 
-import android.os.Handler;
-import android.os.Looper;
-import android.util.Log;
 
 /**
  * JumpCounter - Ultra-responsive jump detection using frame-to-frame movement analysis
  */
-public class JumpCounter {
+public class JumpCounter implements RepCounter {
     public interface JumpListener {
         void onJumpDetected(int jumpCount);
     }
@@ -39,7 +36,6 @@ public class JumpCounter {
     
     // Callback
     private JumpListener listener;
-    private final Handler mainHandler = new Handler(Looper.getMainLooper());
     
     public JumpCounter(JumpListener listener) {
         this.listener = listener;
@@ -48,38 +44,42 @@ public class JumpCounter {
     /**
      * Ultra-fast jump detection using frame-to-frame movement analysis
      */
-    public void processKeypoints(java.util.List<float[]> keypoints) {
-        if (keypoints == null || keypoints.size() < 17 || !jumpDetectionEnabled) {
+    @Override
+    public void processKeypoints(PoseFrame pose) {
+        if (pose == null || !jumpDetectionEnabled) {
             return;
         }
         
-        long currentTime = System.currentTimeMillis();
+        long currentTime = pose.getTimestampMillis(); // Frame time, so replays behave like the live camera
         
-        // Get key body parts for jump detection
-        float[] leftShoulder = keypoints.get(5);   // More responsive than baseline
-        float[] rightShoulder = keypoints.get(6);
-        float[] leftHip = keypoints.get(11);       // Hips move more during jumps
-        float[] rightHip = keypoints.get(12);
+        // Get key body parts for jump detection (shoulders are more responsive than baseline,
+        // hips move more during jumps)
+        float leftShoulderConf = pose.confidence(PoseFrame.LEFT_SHOULDER);
+        float rightShoulderConf = pose.confidence(PoseFrame.RIGHT_SHOULDER);
+        float leftHipConf = pose.confidence(PoseFrame.LEFT_HIP);
+        float rightHipConf = pose.confidence(PoseFrame.RIGHT_HIP);
         
         // Check if we have enough confidence
-        if (leftShoulder[2] < MIN_CONFIDENCE && rightShoulder[2] < MIN_CONFIDENCE &&
-            leftHip[2] < MIN_CONFIDENCE && rightHip[2] < MIN_CONFIDENCE) {
-            Log.d(TAG, "Not enough confidence for jump detection");
+        if (leftShoulderConf < MIN_CONFIDENCE && rightShoulderConf < MIN_CONFIDENCE &&
+            leftHipConf < MIN_CONFIDENCE && rightHipConf < MIN_CONFIDENCE) {
+            FrameTrace.record(TAG, "low confidence");
             return;
         }
         
         // Get current Y positions
-        float[] currentShoulderY = {leftShoulder[1], rightShoulder[1]};
-        float[] currentHipY = {leftHip[1], rightHip[1]};
+        float leftShoulderY = pose.y(PoseFrame.LEFT_SHOULDER);
+        float rightShoulderY = pose.y(PoseFrame.RIGHT_SHOULDER);
+        float leftHipY = pose.y(PoseFrame.LEFT_HIP);
+        float rightHipY = pose.y(PoseFrame.RIGHT_HIP);
             
         // Skip first frame (need previous frame for comparison)
         if (!hasValidPrevFrame) {
-            prevShoulderY[0] = currentShoulderY[0];
-            prevShoulderY[1] = currentShoulderY[1];
-            prevHipY[0] = currentHipY[0];
-            prevHipY[1] = currentHipY[1];
+            prevShoulderY[0] = leftShoulderY;
+            prevShoulderY[1] = rightShoulderY;
+            prevHipY[0] = leftHipY;
+            prevHipY[1] = rightHipY;
             hasValidPrevFrame = true;
-            Log.d(TAG, "First frame recorded for jump detection");
+            PoseLog.d(TAG, "First frame recorded for jump detection");
             return;
         }
         
@@ -90,12 +90,12 @@ public class JumpCounter {
         int validHips = 0;
         
         // Calculate average shoulder movement
-        if (leftShoulder[2] > MIN_CONFIDENCE) {
-            shoulderMovement += (currentShoulderY[0] - prevShoulderY[0]);
+        if (leftShoulderConf > MIN_CONFIDENCE) {
+            shoulderMovement += (leftShoulderY - prevShoulderY[0]);
             validShoulders++;
         }
-        if (rightShoulder[2] > MIN_CONFIDENCE) {
-            shoulderMovement += (currentShoulderY[1] - prevShoulderY[1]);
+        if (rightShoulderConf > MIN_CONFIDENCE) {
+            shoulderMovement += (rightShoulderY - prevShoulderY[1]);
             validShoulders++;
         }
         if (validShoulders > 0) {
@@ -103,12 +103,12 @@ public class JumpCounter {
         }
         
         // Calculate average hip movement
-        if (leftHip[2] > MIN_CONFIDENCE) {
-            hipMovement += (currentHipY[0] - prevHipY[0]);
+        if (leftHipConf > MIN_CONFIDENCE) {
+            hipMovement += (leftHipY - prevHipY[0]);
             validHips++;
         }
-        if (rightHip[2] > MIN_CONFIDENCE) {
-            hipMovement += (currentHipY[1] - prevHipY[1]);
+        if (rightHipConf > MIN_CONFIDENCE) {
+            hipMovement += (rightHipY - prevHipY[1]);
             validHips++;
         }
         if (validHips > 0) {
@@ -135,8 +135,8 @@ public class JumpCounter {
         boolean hasGoodConfidence = (validShoulders > 0 || validHips > 0);
         boolean cooldownPassed = currentTime - lastJumpTime > JUMP_COOLDOWN_MS;
         
-        Log.d(TAG, String.format("Movement: Total=%.4f, Strong=%s, Confidence=%s, Cooldown=%s", 
-                totalMovement, isStrongUpwardMovement, hasGoodConfidence, cooldownPassed));
+        FrameTrace.record(TAG, "movement", totalMovement, FrameTrace.flag(isStrongUpwardMovement),
+                FrameTrace.flag(hasGoodConfidence), FrameTrace.flag(cooldownPassed));
         
         if (isStrongUpwardMovement) {
             consecutiveUpwardFrames++;
@@ -154,13 +154,14 @@ public class JumpCounter {
                 lastJumpTime = currentTime;
                 isInUpwardMotion = true;
                 
-                Log.d(TAG, "✅ VALIDATED JUMP! Count: " + jumpCount + 
-                      " (frames: " + consecutiveUpwardFrames + ", height: " + totalUpwardMovement + ")");
+                if (PoseLog.ENABLED) {
+                    PoseLog.d(TAG, "✅ VALIDATED JUMP! Count: %s (frames: %s, height: %s)",
+                            jumpCount, consecutiveUpwardFrames, totalUpwardMovement);
+                }
                 
                 // Notify listener
                 if (listener != null) {
-                    final int count = jumpCount;
-                    mainHandler.post(() -> listener.onJumpDetected(count));
+                    listener.onJumpDetected(jumpCount);
                 }
                 
                 // Reset validation state
@@ -172,17 +173,17 @@ public class JumpCounter {
                 // Downward movement - end of jump motion
                 if (isInUpwardMotion) {
                     isInUpwardMotion = false;
-                    Log.d(TAG, "Jump motion completed");
+                    PoseLog.d(TAG, "Jump motion completed");
                 }
                 resetValidationState();
             }
         }
         
         // Update previous frame data
-        prevShoulderY[0] = currentShoulderY[0];
-        prevShoulderY[1] = currentShoulderY[1];
-        prevHipY[0] = currentHipY[0];
-        prevHipY[1] = currentHipY[1];
+        prevShoulderY[0] = leftShoulderY;
+        prevShoulderY[1] = rightShoulderY;
+        prevHipY[0] = leftHipY;
+        prevHipY[1] = rightHipY;
     }
     
     /**
@@ -199,15 +200,16 @@ public class JumpCounter {
     /**
      * Reset the jump counter to zero
      */
+    @Override
     public void reset() {
         jumpCount = 0;
         isInUpwardMotion = false;
         hasValidPrevFrame = false;
         resetValidationState();
         
-        Log.d(TAG, "Jump counter reset to 0");
+        PoseLog.d(TAG, "Jump counter reset to 0");
         if (listener != null) {
-            mainHandler.post(() -> listener.onJumpDetected(0));
+            listener.onJumpDetected(0);
         }
     }
     
@@ -218,12 +220,24 @@ public class JumpCounter {
         return jumpCount;
     }
     
+    @Override
+    public int getCount() {
+        return getJumpCount();
+    }
+    
     /**
      * Enable or disable jump detection
      */
     public void setJumpDetectionEnabled(boolean enabled) {
         this.jumpDetectionEnabled = enabled;
-        Log.d(TAG, "Jump detection " + (enabled ? "enabled" : "disabled"));
+        if (PoseLog.ENABLED) {
+            PoseLog.d(TAG, "Jump detection %s", (enabled ? "enabled" : "disabled"));
+        }
+    }
+    
+    @Override
+    public void setDetectionEnabled(boolean enabled) {
+        setJumpDetectionEnabled(enabled);
     }
     
     /**
@@ -236,18 +250,14 @@ public class JumpCounter {
     /**
      * Get the quality of pose detection for jump counting
      */
-    public float getDetectionQuality(java.util.List<float[]> keypoints) {
-        if (keypoints == null || keypoints.size() < 13) {
+    public float getDetectionQuality(PoseFrame pose) {
+        if (pose == null) {
             return 0f;
         }
         
         // Check confidence of key points for jump detection
-        float[] leftShoulder = keypoints.get(5);
-        float[] rightShoulder = keypoints.get(6);
-        float[] leftHip = keypoints.get(11);
-        float[] rightHip = keypoints.get(12);
-        
-        float totalConfidence = leftShoulder[2] + rightShoulder[2] + leftHip[2] + rightHip[2];
+        float totalConfidence = pose.confidence(PoseFrame.LEFT_SHOULDER) + pose.confidence(PoseFrame.RIGHT_SHOULDER)
+                + pose.confidence(PoseFrame.LEFT_HIP) + pose.confidence(PoseFrame.RIGHT_HIP);
         return Math.min(1.0f, totalConfidence / 4.0f);
     }
     
@@ -256,7 +266,9 @@ public class JumpCounter {
      */
     public void setMovementSensitivity(float sensitivity) {
         // This could be used to adjust MOVEMENT_THRESHOLD if needed
-        Log.d(TAG, "Movement sensitivity could be adjusted to: " + sensitivity);
+        if (PoseLog.ENABLED) {
+            PoseLog.d(TAG, "Movement sensitivity could be adjusted to: %s", sensitivity);
+        }
     }
     
     /**
@@ -265,4 +277,9 @@ public class JumpCounter {
     public long getLastJumpTime() {
         return lastJumpTime;
     }
+    
+    @Override
+    public long getLastRepTime() {
+        return lastJumpTime;
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.example.afinal;
+
+/**
+ * KeypointSmoother - Jitter filter the overlay applies to each incoming pose
+ * Raw positions for anything that moved, a light blend only for tiny moves of confident points;
+ * plain Java so the JVM benchmarks can measure exactly what PoseOverlayView runs
+ */
+public final class KeypointSmoother {
+    private static final float SMOOTHING_FACTOR = 0.1f; // Minimal smoothing for instant response
+    private static final float MIN_CONFIDENCE = 0.3f;
+    private static final float JITTER_DELTA = 0.01f;
+
+    private KeypointSmoother() {
+    }
+
+    /**
+     * Smooth incoming into smoothed in place (positions blended, confidence and metadata taken as-is)
+     */
+    public static void smooth(PoseFrame smoothed, PoseFrame incoming) {
+        float[] out = smoothed.data();
+        float[] in = incoming.data();
+        for (int o = 0; o < PoseFrame.SIZE; o += PoseFrame.VALUES_PER_KEYPOINT) {
+            // Use raw data for immediate response, only smooth if movement is very small (jitter)
+            float deltaX = Math.abs(in[o] - out[o]);
+            float deltaY = Math.abs(in[o + 1] - out[o + 1]);
+
+            if (in[o + 2] > MIN_CONFIDENCE && (deltaX < JITTER_DELTA || deltaY < JITTER_DELTA)) {
+                // Very small movement - apply minimal smoothing to reduce jitter
+                out[o] = SMOOTHING_FACTOR * out[o] + (1 - SMOOTHING_FACTOR) * in[o];
+                out[o + 1] = SMOOTHING_FACTOR * out[o + 1] + (1 - SMOOTHING_FACTOR) * in[o + 1];
+            } else {
+                // Normal or large movement - use raw data for instant response
+                out[o] = in[o];
+                out[o + 1] = in[o + 1];
+            }
+            out[o + 2] = in[o + 2]; // Always use raw confidence
+        }
+        smoothed.setMetadata(incoming.getFrameId(), incoming.getTimestampNanos(), incoming.hasPose());
+    }
+}
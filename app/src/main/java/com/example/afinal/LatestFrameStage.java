@@ -0,0 +1,142 @@
+package com.example.afinal;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * LatestFrameStage - One pipeline stage with a single-slot, latest-frame-wins input
+ * If a new item arrives while the previous one is still waiting, the waiting one is dropped
+ * (handed to the recycler), so a slow stage never builds up a backlog of stale frames
+ */
+public class LatestFrameStage<T> {
+    public interface Handler<T> {
+        void process(T item);
+    }
+
+    public interface Recycler<T> {
+        void recycle(T item);
+    }
+
+    private final String name;
+    private final Executor executor;
+    private final Handler<T> handler;
+    private final Recycler<T> recycler;
+
+    private final AtomicReference<T> pending = new AtomicReference<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private final Runnable drainTask = this::drain;
+    private volatile boolean busy = false;
+    private volatile boolean closed = false;
+
+    // Stage counters
+    private final AtomicLong offered = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public LatestFrameStage(String name, Executor executor, Handler<T> handler, Recycler<T> recycler) {
+        this.name = name;
+        this.executor = executor;
+        this.handler = handler;
+        this.recycler = recycler;
+    }
+
+    /**
+     * Hand an item to this stage; replaces (and recycles) any item still waiting
+     */
+    public void offer(T item) {
+        if (closed) {
+            recycler.recycle(item);
+            return;
+        }
+        offered.incrementAndGet();
+
+        T displaced = pending.getAndSet(item);
+        if (displaced != null) {
+            dropped.incrementAndGet();
+            recycler.recycle(displaced);
+        }
+
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(drainTask);
+            } catch (Exception e) {
+                // Executor already shut down - nothing will drain this stage anymore
+                scheduled.set(false);
+                clear();
+            }
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            T item = pending.getAndSet(null);
+            if (item == null) {
+                scheduled.set(false);
+                // Re-check in case an offer slipped in between the read and the flag reset
+                if (pending.get() != null && scheduled.compareAndSet(false, true)) {
+                    continue;
+                }
+                return;
+            }
+
+            if (closed) {
+                recycler.recycle(item);
+                continue;
+            }
+
+            busy = true;
+            try {
+                handler.process(item);
+                processed.incrementAndGet();
+            } finally {
+                busy = false;
+            }
+        }
+    }
+
+    /**
+     * Drop whatever is waiting (used on shutdown)
+     */
+    public void clear() {
+        T item = pending.getAndSet(null);
+        if (item != null) {
+            recycler.recycle(item);
+        }
+    }
+
+    public void close() {
+        closed = true;
+        clear();
+    }
+
+    /**
+     * Items currently in this stage: waiting (0-1) plus being processed (0-1)
+     */
+    public int getDepth() {
+        return (pending.get() != null ? 1 : 0) + (busy ? 1 : 0);
+    }
+
+    public long getOffered() {
+        return offered.get();
+    }
+
+    public long getProcessed() {
+        return processed.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name + "{depth=" + getDepth() + ", offered=" + offered.get()
+                + ", processed=" + processed.get() + ", dropped=" + dropped.get() + "}";
+    }
+}
@@ -1,16 +1,9 @@
 package com.example.afinal;
-import android.graphics.Bitmap.Config;
 
 import android.Manifest;
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.graphics.ImageFormat;
-import android.graphics.Rect;
 import android.view.Surface;
-import android.graphics.YuvImage;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
@@ -32,28 +25,23 @@ import androidx.camera.view.PreviewView;
 import androidx.core.content.ContextCompat;
 
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.gson.JsonObject;
 
-import ai.onnxruntime.OnnxTensor;
-import ai.onnxruntime.OnnxValue;
 import ai.onnxruntime.OrtEnvironment;
-import ai.onnxruntime.OrtException;
-import ai.onnxruntime.OrtProvider;
 import ai.onnxruntime.OrtSession;
 
-import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.ByteBuffer;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.FloatBuffer;
-import java.util.ArrayList;
-import java.util.EnumSet;
-import java.util.List;
+import java.nio.charset.StandardCharsets;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.atomic.AtomicBoolean;
 
-public class MainActivity extends AppCompatActivity implements JumpCounter.JumpListener, ArmCircleCounter.ArmCircleListener, HighKneeCounter.HighKneeListener, SideReachCounter.SideReachListener, JackJumpsCounter.JackJumpsListener, BicepsCurlCounter.BicepsCurlListener, ShoulderPressCounter.ShoulderPressListener, SquatCounter.SquatListener {
+public class MainActivity extends AppCompatActivity implements RepCounter.Listener {
     private PreviewView previewView;
     private PoseOverlayView poseOverlay;
     private TextView jumpCountText;
@@ -70,21 +58,27 @@ public class MainActivity extends AppCompatActivity implements JumpCounter.JumpL
     private TextView xpEarnedText;
     
     private OrtEnvironment env;
-    private OrtSession session;
+    private volatile QualityGovernor qualityGovernor;
     private ExecutorService cameraExecutor;
     private ExecutorService inferenceExecutor;
-    private JumpCounter jumpCounter;
-    private ArmCircleCounter armCircleCounter;
-    private HighKneeCounter highKneeCounter;
-    private SideReachCounter sideReachCounter;
-    private JackJumpsCounter jackJumpsCounter;
-    private BicepsCurlCounter bicepsCurlCounter;
-    private ShoulderPressCounter shoulderPressCounter;
-    private SquatCounter squatCounter;
+    private ExecutorService postProcessExecutor;
+    private ExecutorService analysisExecutor; // Rep counting, right after decoding
+    private ExecutorService modelSwapExecutor; // Tier swaps, plus lifecycle trims and rebuilds
+    private PipelineLifecycleController lifecycleController;
+    private ProcessCameraProvider cameraProvider; // Camera objects kept so analysis can be unbound while paused
+    private ImageAnalysis imageAnalysis;
+    private CameraSelector cameraSelector;
+    private boolean analysisBound = false; // Main thread
+    private volatile FramePipeline framePipeline;
+    private volatile RepCounter repCounter; // Only the active exercise's counter is ever built
     private Handler mainHandler;
+    private UiUpdateCoalescer uiUpdates; // Analysis thread -> main thread, once per vsync
+    private PoseRecording.Writer poseRecorder; // Debug "record_poses" runs only; analysis thread
+    private final PipelineMetrics metrics = new PipelineMetrics(); // Per-stage latency for this session
+    private TextView metricsOverlay; // Debug builds only
+    private static final long METRICS_OVERLAY_INTERVAL_MS = 500;
     
     // Thread safety
-    private final AtomicBoolean isProcessing = new AtomicBoolean(false);
     private volatile boolean isDestroyed = false;
     
     // Initialization state
@@ -92,7 +86,7 @@ public class MainActivity extends AppCompatActivity implements JumpCounter.JumpL
     private volatile boolean cameraReady = false;
     
     // Exercise state management
-    private boolean exerciseStarted = false;
+    private volatile boolean exerciseStarted = false;
     private boolean isCountingDown = true;
     private int countdownValue = 3;
     private boolean isInCooldown = false;
@@ -101,96 +95,20 @@ public class MainActivity extends AppCompatActivity implements JumpCounter.JumpL
     private static final long COOLDOWN_DURATION_MS = 1000; // 1 second cooldown
     
     // Stats tracking
-    private SharedPreferences userStats;
-    private boolean exerciseCompleted = false;
-    private static final int JUMPS_TO_COMPLETE = 20;
-    private static final int ARM_CIRCLES_TO_COMPLETE = 20;
-    private static final int HIGH_KNEES_TO_COMPLETE = 30; // More reps for high knees (rapid movement)
-    private static final int SIDE_REACHES_TO_COMPLETE = 20; // Side reach exercise
-    private static final int JACK_JUMPS_TO_COMPLETE = 12; // Jack jumps exercise (star jumps)
-    private static final int BICEPS_CURL_TO_COMPLETE = 20; // Biceps curl exercise
-    private static final int SHOULDER_PRESS_TO_COMPLETE = 20; // Shoulder press exercise
-    private static final int SQUATS_TO_COMPLETE = 15; // Squat exercise
-    private static final int JUMP_XP_REWARD = 20;
-    private static final int ARM_CIRCLES_XP_REWARD = 20;
-    private static final int HIGH_KNEES_XP_REWARD = 30;
-    private static final int SIDE_REACHES_XP_REWARD = 25;
-    private static final int JACK_JUMPS_XP_REWARD = 20;
-    private static final int BICEPS_CURL_XP_REWARD = 20;
-    private static final int SHOULDER_PRESS_XP_REWARD = 20;
-    private static final int SQUATS_XP_REWARD = 25;
+    private volatile boolean exerciseCompleted = false;
     private int remainingJumps = 20; // Countdown from 20 to 0
     
-    // Helper method to get XP reward based on exercise type
-    private int getCurrentXPReward() {
-        if ("arm_circles".equals(exerciseType)) {
-            return ARM_CIRCLES_XP_REWARD;
-        } else if ("high_knees".equals(exerciseType)) {
-            return HIGH_KNEES_XP_REWARD;
-        } else if ("side_reach".equals(exerciseType)) {
-            return SIDE_REACHES_XP_REWARD;
-        } else if ("jack_jumps".equals(exerciseType)) {
-            return JACK_JUMPS_XP_REWARD;
-        } else if ("biceps_curl".equals(exerciseType)) {
-            return BICEPS_CURL_XP_REWARD;
-        } else if ("shoulder_press".equals(exerciseType)) {
-            return SHOULDER_PRESS_XP_REWARD;
-        } else if ("squat".equals(exerciseType)) {
-            return SQUATS_XP_REWARD;
-        } else {
-            return JUMP_XP_REWARD;
-        }
-    }
-    
-    private String getExerciseCountKey(String exerciseType) {
-        if ("arm_circles".equals(exerciseType)) {
-            return "arm_circles_count";
-        } else if ("high_knees".equals(exerciseType)) {
-            return "high_knees_count";
-        } else if ("side_reach".equals(exerciseType)) {
-            return "side_reaches_count";
-        } else if ("jack_jumps".equals(exerciseType)) {
-            return "jack_jumps_count";
-        } else if ("biceps_curl".equals(exerciseType)) {
-            return "biceps_curls_count";
-        } else if ("shoulder_press".equals(exerciseType)) {
-            return "shoulder_presses_count";
-        } else if ("squat".equals(exerciseType)) {
-            return "squats_count";
-        } else {
-            return "jump_count";
-        }
-    }
-    
-    // Helper method to get completion count based on exercise type
-    private int getCurrentCompletionCount() {
-        if ("arm_circles".equals(exerciseType)) {
-            return ARM_CIRCLES_TO_COMPLETE;
-        } else if ("high_knees".equals(exerciseType)) {
-            return HIGH_KNEES_TO_COMPLETE;
-        } else if ("side_reach".equals(exerciseType)) {
-            return SIDE_REACHES_TO_COMPLETE;
-        } else if ("jack_jumps".equals(exerciseType)) {
-            return JACK_JUMPS_TO_COMPLETE;
-        } else if ("biceps_curl".equals(exerciseType)) {
-            return BICEPS_CURL_TO_COMPLETE;
-        } else if ("shoulder_press".equals(exerciseType)) {
-            return SHOULDER_PRESS_TO_COMPLETE;
-        } else if ("squat".equals(exerciseType)) {
-            return SQUATS_TO_COMPLETE;
-        } else {
-            return JUMPS_TO_COMPLETE;
-        }
-    }
-    
     // Exercise type management
-    private String exerciseType = "jump"; // Default to jump exercise
+    private String exerciseType = ExerciseRegistry.DEFAULT_EXERCISE; // Default to jump exercise
+    private ExerciseRegistry.Exercise exercise = ExerciseRegistry.get(ExerciseRegistry.DEFAULT_EXERCISE);
     private int remainingReps = 20; // Generic counter for any exercise
     
     // Constants for optimized processing
-    private static final int MODEL_INPUT_SIZE = 320;
-    private static final long INFERENCE_INTERVAL_MS = 8;
-    private long lastInferenceTime = 0;
+    private static final float TARGET_FPS = 20f; // Quality governor picks the best model that holds this
+    // Pipeline buffers: one converting + one waiting + one in the model, and output for infer + decode
+    private static final int INPUT_POOL_SIZE = 3;
+    private static final int OUTPUT_POOL_SIZE = 2;
+    private static final int PIPELINE_FRAMES = 8;
     
     // Memory management
     private static final int MAX_BITMAP_SIZE = 1024 * 1024;
@@ -206,34 +124,18 @@ public class MainActivity extends AppCompatActivity implements JumpCounter.JumpL
             mainHandler = new Handler(Looper.getMainLooper());
             cameraExecutor = Executors.newSingleThreadExecutor();
             inferenceExecutor = Executors.newSingleThreadExecutor();
+            postProcessExecutor = Executors.newSingleThreadExecutor();
+            analysisExecutor = Executors.newSingleThreadExecutor();
+            modelSwapExecutor = Executors.newSingleThreadExecutor();
+            lifecycleController = new PipelineLifecycleController(this, lifecycleHost, sessionLock,
+                    modelSwapExecutor, mainHandler);
 
-            // Initialize SharedPreferences for stats
-            userStats = getSharedPreferences("user_stats", MODE_PRIVATE);
-            
-            // Get exercise type from intent
-            exerciseType = getIntent().getStringExtra("exercise_type");
-            if (exerciseType == null) {
-                exerciseType = "jump"; // Default to jump
-            }
+            // Get exercise type from intent (unknown types fall back to jump)
+            exercise = ExerciseRegistry.get(getIntent().getStringExtra("exercise_type"));
+            exerciseType = exercise.id;
             
             // Set appropriate rep count based on exercise type
-            if ("arm_circles".equals(exerciseType)) {
-                remainingReps = ARM_CIRCLES_TO_COMPLETE;
-            } else if ("high_knees".equals(exerciseType)) {
-                remainingReps = HIGH_KNEES_TO_COMPLETE;
-            } else if ("side_reach".equals(exerciseType)) {
-                remainingReps = SIDE_REACHES_TO_COMPLETE;
-            } else if ("jack_jumps".equals(exerciseType)) {
-                remainingReps = JACK_JUMPS_TO_COMPLETE;
-            } else if ("biceps_curl".equals(exerciseType)) {
-                remainingReps = BICEPS_CURL_TO_COMPLETE;
-            } else if ("shoulder_press".equals(exerciseType)) {
-                remainingReps = SHOULDER_PRESS_TO_COMPLETE;
-            } else if ("squat".equals(exerciseType)) {
-                remainingReps = SQUATS_TO_COMPLETE;
-            } else {
-                remainingReps = JUMPS_TO_COMPLETE;
-            }
+            remainingReps = exercise.repTarget;
             
             // Initialize all UI elements
             previewView = findViewById(R.id.previewView);
@@ -255,20 +157,27 @@ public class MainActivity extends AppCompatActivity implements JumpCounter.JumpL
                 throw new IllegalStateException("Failed to find required views");
             }
             
-            // Initialize jump counter with this as the listener
-            jumpCounter = new JumpCounter(this);
-            // Initialize arm circle counter with this as the listener
-            armCircleCounter = new ArmCircleCounter(this);
-            // Initialize high knee counter with this as the listener
-            highKneeCounter = new HighKneeCounter(this);
-            // Initialize side reach counter with this as the listener
-            sideReachCounter = new SideReachCounter(this);
-            // Initialize jack jumps counter with this as the listener
-            jackJumpsCounter = new JackJumpsCounter(this);
-            // Initialize biceps curl counter with this as the listener
-            bicepsCurlCounter = new BicepsCurlCounter(this);
-            shoulderPressCounter = new ShoulderPressCounter(this);
-        squatCounter = new SquatCounter(this);
+            // Initialize the counter for this exercise with this as the listener
+            // (it only ever runs on the analysis thread)
+            repCounter = exercise.createCounter(this);
+            uiUpdates = new UiUpdateCoalescer(uiTarget);
+            if (PoseLog.ENABLED) {
+                // Debug builds: long-press the counter to dump the recent per-frame counter trace to logcat
+                jumpCountText.setOnLongClickListener(v -> {
+                    FrameTrace.dumpToLog();
+                    Toast.makeText(this, "Frame trace dumped to logcat", Toast.LENGTH_SHORT).show();
+                    return true;
+                });
+                if (getIntent().getBooleanExtra("record_poses", false)) {
+                    analysisExecutor.execute(this::startPoseRecording);
+                }
+                // Live per-stage latency in the corner of the camera view
+                metricsOverlay = findViewById(R.id.metricsOverlay);
+                if (metricsOverlay != null) {
+                    metricsOverlay.setVisibility(View.VISIBLE);
+                    mainHandler.post(metricsOverlayUpdater);
+                }
+            }
             updateCounterText();
             
 
@@ -311,9 +220,10 @@ public class MainActivity extends AppCompatActivity implements JumpCounter.JumpL
         countdownOverlay.setVisibility(View.VISIBLE);
         countdownText.setVisibility(View.VISIBLE);
         
-        // Disable jump detection during countdown
-        if (jumpCounter != null) {
-            jumpCounter.setJumpDetectionEnabled(false);
+        // Disable detection during countdown
+        RepCounter counter = repCounter;
+        if (counter != null) {
+            analysisExecutor.execute(() -> counter.setDetectionEnabled(false));
         }
         
         // Start countdown animation
@@ -358,14 +268,17 @@ public class MainActivity extends AppCompatActivity implements JumpCounter.JumpL
         
         // Initialize visual indicators (no ready text needed)
         
-        // Enable jump detection immediately - no need to wait for movement
-        if (jumpCounter != null) {
-            jumpCounter.setJumpDetectionEnabled(true);
-            // Reset the jump counter to start fresh
-            jumpCounter.reset();
-        armCircleCounter.reset();
+        // Enable detection immediately - no need to wait for movement
+        RepCounter counter = repCounter;
+        if (counter != null) {
+            // Counter state belongs to the analysis thread; queue behind any frame being counted
+            analysisExecutor.execute(() -> {
+                counter.setDetectionEnabled(true);
+                // Reset the counter to start fresh
+                counter.reset();
+            });
             // Reset remaining reps for countdown based on exercise type
-            remainingReps = getCurrentCompletionCount();
+            remainingReps = exercise.repTarget;
             updateCounterText();
         }
         
@@ -484,9 +397,9 @@ public class MainActivity extends AppCompatActivity implements JumpCounter.JumpL
             @Override
             public void run() {
                 if (exerciseStarted && !isDestroyed) {
-                    if (!isInCooldown && jumpCounter != null) {
-                        // Check if enough time has passed since last jump
-                        long timeSinceLastJump = System.currentTimeMillis() - jumpCounter.getLastJumpTime();
+                    if (!isInCooldown && repCounter != null) {
+                        // Check if enough time has passed since last jump (counters keep frame time, on the System.nanoTime clock)
+                        long timeSinceLastJump = System.nanoTime() / 1_000_000L - repCounter.getLastRepTime();
                         if (timeSinceLastJump >= COOLDOWN_DURATION_MS) {
                             showJumpReady();
                         }
@@ -499,66 +412,48 @@ public class MainActivity extends AppCompatActivity implements JumpCounter.JumpL
         });
     }
 
-    // JumpListener callback
+    // RepCounter.Listener callback, from whichever counter is active (analysis thread)
     @Override
-    public void onJumpDetected(int jumpCount) {
-        // Only process jump detection if we're doing jump exercises
-        if (!"jump".equals(exerciseType)) {
-            return;
-        }
-        
+    public void onRepDetected(int repCount) {
         // Don't process if exercise is already completed
-        if (exerciseCompleted) {
+        if (exerciseCompleted || isDestroyed) {
             return;
         }
-        
-        runOnUiThread(() -> {
-                remainingReps = JUMPS_TO_COMPLETE - jumpCount;
-            updateCounterText();
-            
-            // Play cool jump animation
-            playJumpAnimation();
-            
-            // Start cooldown immediately after jump
-            showCooldown();
-        });
-        
-        // Track jumps in stats
-        updateJumpStats(jumpCount);
-        
-        // Check if exercise is completed (when countdown reaches 0)
-        if (!exerciseCompleted && remainingReps <= 0) {
-            exerciseCompleted = true;
-            completeExercise();
-        }
+        uiUpdates.postRepCount(repCount);
     }
     
-    // ArmCircleListener callback
-    @Override
-    public void onArmCircleDetected(int armCircleCount) {
-        // Only process arm circle detection if we're doing arm circle exercises
-        if (!"arm_circles".equals(exerciseType)) {
-            return;
+    /**
+     * Main-thread side of the coalescer: latest rep count and overlay pose, once per vsync
+     */
+    private final UiUpdateCoalescer.Target uiTarget = new UiUpdateCoalescer.Target() {
+        @Override
+        public void onRepCount(int count) {
+            handleRepCount(count);
         }
-        
+
+        @Override
+        public void onPoseFrame(PoseFrame pose) {
+            if (!isDestroyed) {
+                poseOverlay.setKeypoints(pose);
+                metrics.recordSince(PipelineMetrics.Stage.CAMERA_TO_SCREEN, pose.getTimestampNanos());
+            }
+        }
+    };
+    
+    private void handleRepCount(int repCount) {
         // Don't process if exercise is already completed
-        if (exerciseCompleted) {
+        if (isDestroyed || exerciseCompleted) {
             return;
         }
         
-        runOnUiThread(() -> {
-            remainingReps = ARM_CIRCLES_TO_COMPLETE - armCircleCount;
-            updateCounterText();
-            
-            // Play animation (can reuse jump animation or create specific arm circle animation)
-            playJumpAnimation();
-            
-            // Start cooldown immediately after arm circle
-            showCooldown();
-        });
+        remainingReps = exercise.repTarget - repCount;
+        updateCounterText();
         
-        // Track arm circles in stats (reuse jump stats for now)
-        updateJumpStats(armCircleCount);
+        // Play cool jump animation
+        playJumpAnimation();
+        
+        // Start cooldown immediately after each rep
+        showCooldown();
         
         // Check if exercise is completed (when countdown reaches 0)
         if (!exerciseCompleted && remainingReps <= 0) {
@@ -568,53 +463,18 @@ public class MainActivity extends AppCompatActivity implements JumpCounter.JumpL
     }
     
     private void updateCounterText() {
-        if ("arm_circles".equals(exerciseType)) {
-            jumpCountText.setText("Arm Circles: " + remainingReps);
-        } else if ("high_knees".equals(exerciseType)) {
-            jumpCountText.setText("High Knees: " + remainingReps);
-        } else if ("side_reach".equals(exerciseType)) {
-            jumpCountText.setText("Side Reaches: " + remainingReps);
-        } else if ("jack_jumps".equals(exerciseType)) {
-            jumpCountText.setText("Jack Jumps: " + remainingReps);
-        } else if ("biceps_curl".equals(exerciseType)) {
-            jumpCountText.setText("Biceps Curls: " + remainingReps);
-        } else if ("shoulder_press".equals(exerciseType)) {
-            jumpCountText.setText("Shoulder Presses: " + remainingReps);
-        } else if ("squat".equals(exerciseType)) {
-            jumpCountText.setText("Squats: " + remainingReps);
-        } else {
-            jumpCountText.setText("Jumps: " + remainingReps);
-        }
-    }
-    
-    private void updateJumpStats(int currentJumps) {
-        // Update total jump count
-        int totalJumps = userStats.getInt("jump_count", 0);
-        
-        // Only add the new jumps
-        int prevJumps = userStats.getInt("current_exercise_jumps", 0);
-        int newJumps = currentJumps - prevJumps;
-        
-        if (newJumps > 0) {
-            totalJumps += newJumps;
-            userStats.edit()
-                .putInt("jump_count", totalJumps)
-                .putInt("current_exercise_jumps", currentJumps)
-                .apply();
-        }
+        jumpCountText.setText(exercise.label + ": " + remainingReps);
     }
     
     private void completeExercise() {
-        android.util.Log.d("MainActivity", "Exercise completed! Updating database...");
+        android.util.Log.d("MainActivity", "Exercise completed! Queueing stats update...");
         
-        // Update stats via API (database)
-        ApiService apiService = new ApiService();
         String userId = ApiService.getUserId(this);
         
         // Calculate session duration (in seconds)
         long sessionDuration = (System.currentTimeMillis() - exerciseStartTime) / 1000;
         
-        android.util.Log.d("MainActivity", "Sending to API - User: " + userId + ", Jumps: " + getCurrentCompletionCount() + ", XP: " + getCurrentXPReward() + ", Duration: " + sessionDuration + "s");
+        android.util.Log.d("MainActivity", "Queueing for API - User: " + userId + ", Reps: " + exercise.repTarget + ", XP: " + exercise.xpReward + ", Duration: " + sessionDuration + "s");
         
         // Check if user ID is valid
         if (userId == null || userId.isEmpty()) {
@@ -623,63 +483,16 @@ public class MainActivity extends AppCompatActivity implements JumpCounter.JumpL
             return;
         }
         
-        // Add timeout to API call and detailed logging
-        android.util.Log.d("MainActivity", "🔄 Starting API call to update database...");
+        // Count the session locally right away; the server's totals replace these once the outbox has synced
+        new StatsStore(this).addLocalSession(exercise.statsKey, exercise.repTarget, exercise.xpReward);
         
-        apiService.updateUserStats(userId, exerciseType, getCurrentCompletionCount(), getCurrentXPReward(), (int) sessionDuration)
-            .thenAccept(updatedStats -> {
-                // Database update successful!
-                runOnUiThread(() -> {
-                    android.util.Log.d("MainActivity", "✅ DATABASE UPDATE SUCCESS! New stats - Level: " + updatedStats.level + ", XP: " + updatedStats.xp + ", Total All Exercises: " + updatedStats.totalAllExercises);
-                    android.widget.Toast.makeText(this, "✅ Database updated successfully!", android.widget.Toast.LENGTH_SHORT).show();
-                    
-                    // Update local cache with fresh database data
-                    userStats.edit()
-                        .putInt("xp", updatedStats.xp)
-                        .putInt("level", updatedStats.level)
-                        .putInt("jump_count", updatedStats.totalJumps)
-                        .putInt("arm_circles_count", updatedStats.totalArmCircles)
-                        .putInt("high_knees_count", updatedStats.totalHighKnees)
-                        .putInt("side_reaches_count", updatedStats.totalSideReaches)
-                        .putInt("jack_jumps_count", updatedStats.totalJackJumps)
-                        .putInt("biceps_curls_count", updatedStats.totalBicepsCurls)
-                        .putInt("shoulder_presses_count", updatedStats.totalShoulderPresses)
-                        .putInt("squats_count", updatedStats.totalSquats)
-                        .putInt("exercises_completed", updatedStats.exercisesCompleted)
-                        .apply();
-                    
-                    // Database update successful - no need to show message
-                    
-                    // Show congratulations screen overlay
-                    showCongratulationsScreen();
-                });
-            })
-            .exceptionally(throwable -> {
-                // Database update failed - use local fallback
-                runOnUiThread(() -> {
-                    android.util.Log.e("MainActivity", "DATABASE UPDATE FAILED! Error: " + throwable.getMessage(), throwable);
-                    android.widget.Toast.makeText(this, "⚠️ Database update failed - check connection", android.widget.Toast.LENGTH_LONG).show();
-                    
-                    // Update local stats as fallback
-                    int currentXp = userStats.getInt("xp", 0);
-                    int exercisesCompleted = userStats.getInt("exercises_completed", 0);
-                    
-                    // Update the specific exercise count based on exercise type
-                    String exerciseCountKey = getExerciseCountKey(exerciseType);
-                    int currentCount = userStats.getInt(exerciseCountKey, 0);
-                    
-                    userStats.edit()
-                        .putInt("xp", currentXp + getCurrentXPReward())
-                        .putInt(exerciseCountKey, currentCount + getCurrentCompletionCount())
-                        .putInt("exercises_completed", exercisesCompleted + 1)
-                        .apply();
+        // Persisted and sent in the background, retried until the API has it
+        StatsSync.getInstance(this).enqueue(userId,
+                new ApiService.UpdateStatsRequest(exerciseType, exercise.repTarget, exercise.xpReward, (int) sessionDuration));
         
-                    showCongratulationsScreen();
-                });
-                return null;
-            });
+        showCongratulationsScreen();
     }
-    
+
     private void showCongratulationsScreen() {
         runOnUiThread(() -> {
             // Show congratulations overlay and text
@@ -688,7 +501,7 @@ public class MainActivity extends AppCompatActivity implements JumpCounter.JumpL
             xpEarnedText.setVisibility(View.VISIBLE);
             
             // Update XP text with actual earned amount
-            xpEarnedText.setText("+" + getCurrentXPReward() + " XP EARNED!");
+            xpEarnedText.setText("+" + exercise.xpReward + " XP EARNED!");
             
             // Make XP text tappable to proceed
             xpEarnedText.setOnClickListener(v -> {
@@ -787,24 +600,26 @@ public class MainActivity extends AppCompatActivity implements JumpCounter.JumpL
         inferenceExecutor.execute(() -> {
         try {
             env = OrtEnvironment.getEnvironment();
-            OrtSession.SessionOptions options = new OrtSession.SessionOptions();
-            
-                // Enable optimization for mobile with better memory management
-            options.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.ALL_OPT);
-                options.setIntraOpNumThreads(2);
-                options.setMemoryPatternOptimization(true);
-                options.setCPUArenaAllocator(false); // Reduce memory usage
             
-            byte[] modelBytes = loadModelFile();
-            if (modelBytes == null || modelBytes.length == 0) {
-                throw new IOException("Model file is empty or not found");
-            }
+            // Start on the tier this device settled on last time (shared session, usually already warm)
+            int startTier = QualityGovernor.loadTier(this);
+            PoseModelRuntime runtime = createInitialRuntime(startTier);
             
                 synchronized (sessionLock) {
-            session = env.createSession(modelBytes, options);
+                    if (isDestroyed) {
+                        runtime.release();
+                        return;
+                    }
+                    qualityGovernor = new QualityGovernor(runtime.tier, TARGET_FPS, this::onTierChangeRequested);
+                    framePipeline = new FramePipeline(runtime, PIPELINE_FRAMES,
+                            inferenceExecutor, postProcessExecutor, analysisExecutor, pipelineStages, metrics);
+                    if (lifecycleController.isPaused()) {
+                        // Loaded while hidden; resume unparks it
+                        framePipeline.park();
+                    }
                 }
                 
-            Log.i("PoseTracker", "Model loaded successfully");
+            Log.i("PoseTracker", "Model loaded successfully: " + runtime.variant);
                 modelReady = true;
                 checkIfReadyToStart();
                 
@@ -818,47 +633,80 @@ public class MainActivity extends AppCompatActivity implements JumpCounter.JumpL
         });
     }
 
-    private byte[] loadModelFile() throws IOException {
-        // First try to load yolov8n-pose.onnx (smaller model for faster inference)
-        byte[] modelBytes = tryLoadModelFile("yolov8n-pose.onnx");
-        
-        // If that fails, try other models
-        if (modelBytes == null) {
-            modelBytes = tryLoadModelFile("yolov8m-pose.onnx");
-        }
-        
-        if (modelBytes == null) {
-            throw new IOException("Failed to load any ONNX model file");
+    /**
+     * Runtime for the preferred tier, or the nearest tier that loads (e.g. if a model file is missing)
+     */
+    private PoseModelRuntime createInitialRuntime(int startTier) throws Exception {
+        Exception lastError = null;
+        for (int step = 0; step < ModelVariant.LADDER.length * 2; step++) {
+            // startTier, then cheaper tiers, then better ones
+            int tier = step < ModelVariant.LADDER.length - startTier
+                    ? startTier + step
+                    : startTier - (step - (ModelVariant.LADDER.length - startTier) + 1);
+            if (tier < 0) {
+                break;
+            }
+            try {
+                return createRuntime(tier, true);
+            } catch (Exception e) {
+                Log.e("PoseTracker", "Failed to load " + ModelVariant.LADDER[tier] + ": " + e.getMessage());
+                lastError = e;
+            }
         }
-        
-        return modelBytes;
+        throw lastError != null ? lastError : new IllegalStateException("No model variant available");
     }
-    
-    private byte[] tryLoadModelFile(String fileName) {
-        Log.i("PoseTracker", "Trying to load model: " + fileName);
+
+    private PoseModelRuntime createRuntime(int tier, boolean allowCalibration) throws Exception {
+        PoseSessionManager manager = PoseSessionManager.getInstance(this);
+        String assetName = ModelVariant.LADDER[tier].assetName;
+        OrtSession session = manager.acquire(assetName, allowCalibration);
         try {
-            InputStream inputStream = getAssets().open(fileName);
-            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-            int nRead;
-            byte[] data = new byte[16384];
-            while ((nRead = inputStream.read(data, 0, data.length)) != -1) {
-                buffer.write(data, 0, nRead);
-            }
-            inputStream.close();
-            byte[] modelBytes = buffer.toByteArray();
-            Log.i("PoseTracker", "Successfully loaded model: " + fileName);
-            return modelBytes;
-        } catch (IOException e) {
-            Log.e("PoseTracker", "Failed to load model file " + fileName + ": " + e.getMessage());
-            return null;
+            return PoseModelRuntime.create(OrtEnvironment.getEnvironment(), session, tier, INPUT_POOL_SIZE, OUTPUT_POOL_SIZE,
+                    () -> manager.release(assetName));
+        } catch (Exception e) {
+            manager.release(assetName);
+            throw e;
         }
     }
 
+    /**
+     * Quality governor wants another tier: build it in the background while the current one keeps running,
+     * then swap it into the pipeline so no frames are lost
+     */
+    private void onTierChangeRequested(int fromTier, int toTier) {
+        modelSwapExecutor.execute(() -> {
+            PoseModelRuntime runtime;
+            try {
+                // No provider calibration here: it would run the new model on every provider next to live inference
+                runtime = createRuntime(toTier, false);
+            } catch (Exception e) {
+                Log.e("PoseTracker", "Model switch to " + ModelVariant.LADDER[toTier] + " failed: " + e.getMessage());
+                qualityGovernor.onSwitchFailed(toTier);
+                return;
+            }
+
+            synchronized (sessionLock) {
+                FramePipeline pipeline = framePipeline;
+                if (isDestroyed || pipeline == null) {
+                    runtime.release();
+                    return;
+                }
+                PoseModelRuntime previous = pipeline.setRuntime(runtime);
+                if (previous != null) {
+                    // Closes once the last in-flight frame on it is recycled
+                    previous.release();
+                }
+            }
+            qualityGovernor.onSwitchComplete(toTier);
+            QualityGovernor.saveTier(this, toTier);
+        });
+    }
+
     private void startCamera() {
         ListenableFuture<ProcessCameraProvider> cameraProviderFuture = ProcessCameraProvider.getInstance(this);
         cameraProviderFuture.addListener(() -> {
             try {
-                ProcessCameraProvider cameraProvider = cameraProviderFuture.get();
+                cameraProvider = cameraProviderFuture.get();
 
                 Preview preview = new Preview.Builder()
                         .setTargetResolution(new Size(640, 480))
@@ -869,7 +717,7 @@ public class MainActivity extends AppCompatActivity implements JumpCounter.JumpL
                 int rotation = getWindowManager().getDefaultDisplay().getRotation();
                 
                 // Optimized camera settings with better memory management
-                ImageAnalysis imageAnalysis = new ImageAnalysis.Builder()
+                imageAnalysis = new ImageAnalysis.Builder()
                         .setTargetResolution(new Size(480, 640)) // Better aspect ratio for mobile
                         .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
                         .setOutputImageFormat(ImageAnalysis.OUTPUT_IMAGE_FORMAT_YUV_420_888)
@@ -878,12 +726,18 @@ public class MainActivity extends AppCompatActivity implements JumpCounter.JumpL
 
                 imageAnalysis.setAnalyzer(cameraExecutor, this::processImage);
 
-                CameraSelector cameraSelector = new CameraSelector.Builder()
+                cameraSelector = new CameraSelector.Builder()
                         .requireLensFacing(CameraSelector.LENS_FACING_FRONT)
                         .build();
 
                 cameraProvider.unbindAll();
-                cameraProvider.bindToLifecycle(this, cameraSelector, preview, imageAnalysis);
+                if (lifecycleController.isPaused()) {
+                    // Analysis is bound on resume
+                    cameraProvider.bindToLifecycle(this, cameraSelector, preview);
+                } else {
+                    cameraProvider.bindToLifecycle(this, cameraSelector, preview, imageAnalysis);
+                    analysisBound = true;
+                }
                 Log.i("PoseTracker", "Camera started successfully");
                 cameraReady = true;
                 checkIfReadyToStart();
@@ -898,292 +752,234 @@ public class MainActivity extends AppCompatActivity implements JumpCounter.JumpL
         }, ContextCompat.getMainExecutor(this));
     }
 
-    private void processImage(@NonNull ImageProxy imageProxy) {
-        // Check if we're already processing or destroyed
-        if (isDestroyed || !isProcessing.compareAndSet(false, true)) {
-            imageProxy.close();
-            return;
+    /**
+     * Pause/trim/resume hooks for the lifecycle controller
+     */
+    private final PipelineLifecycleController.Host lifecycleHost = new PipelineLifecycleController.Host() {
+        @Override
+        public FramePipeline getPipeline() {
+            return isDestroyed ? null : framePipeline;
         }
 
-        // Remove rate limiting for immediate landmark display
-            // Process every frame for maximum responsiveness
-        long currentTime = System.currentTimeMillis();
-        lastInferenceTime = currentTime;
-
-        // Run inference on separate thread to avoid blocking camera
-        inferenceExecutor.execute(() -> {
-            try {
-                synchronized (sessionLock) {
-                    if (session == null || isDestroyed) {
-                        return;
-                    }
-
-                    // Process with better error handling
-            float[] inputData = preprocessImage(imageProxy);
-            if (inputData == null) {
+        @Override
+        public void setAnalysisBound(boolean bound) {
+            if (cameraProvider == null || imageAnalysis == null || isDestroyed || bound == analysisBound) {
                 return;
             }
-            
-                    OnnxTensor inputTensor = null;
-            OrtSession.Result result = null;
-            
             try {
-                        inputTensor = OnnxTensor.createTensor(env, FloatBuffer.wrap(inputData), 
-                                new long[]{1, 3, MODEL_INPUT_SIZE, MODEL_INPUT_SIZE});
-                        
-                        // Run inference with timeout protection
-                result = session.run(java.util.Collections.singletonMap("images", inputTensor));
-                float[][][] output = (float[][][]) result.get(0).getValue();
-                
-                        // Parse keypoints with improved accuracy
-                List<float[]> keypoints = parseKeypoints(output, imageProxy.getWidth(), imageProxy.getHeight());
-                        
-                        // Update UI on main thread
-                        runOnUiThread(() -> {
-                            if (!isDestroyed) {
-                                // ALWAYS show landmarks - no conditions, no cooldown blocking
-                poseOverlay.setKeypoints(keypoints);
-                
-                                // Only process keypoints for detection AFTER exercise starts (not during countdown)
-                                if (keypoints.size() >= 17 && exerciseStarted) {
-                                    // Use appropriate counter based on exercise type
-                                    if ("arm_circles".equals(exerciseType)) {
-                                        armCircleCounter.processKeypoints(keypoints);
-                                    } else if ("high_knees".equals(exerciseType)) {
-                                        highKneeCounter.processKeypoints(keypoints);
-                                    } else if ("side_reach".equals(exerciseType)) {
-                                        sideReachCounter.processKeypoints(keypoints);
-                                                        } else if ("jack_jumps".equals(exerciseType)) {
-                        jackJumpsCounter.processKeypoints(keypoints);
-                                } else if ("biceps_curl".equals(exerciseType)) {
-                bicepsCurlCounter.processKeypoints(keypoints);
-            } else if ("shoulder_press".equals(exerciseType)) {
-                shoulderPressCounter.processKeypoints(keypoints);
-            } else if ("squat".equals(exerciseType)) {
-                squatCounter.processKeypoints(keypoints);
-            } else {
-                    jumpCounter.processKeypoints(keypoints);
-                                    }
-                }
-                            }
-                        });
-                        
-            } finally {
-                        // Clean up resources
-                if (inputTensor != null) {
-                            try {
-                    inputTensor.close();
-                            } catch (Exception e) {
-                                Log.e("PoseTracker", "Error closing input tensor", e);
-                            }
-                }
-                if (result != null) {
-                            try {
-                    result.close();
-                            } catch (Exception e) {
-                                Log.e("PoseTracker", "Error closing result", e);
-                            }
-                        }
+                if (bound) {
+                    cameraProvider.bindToLifecycle(MainActivity.this, cameraSelector, imageAnalysis);
+                } else {
+                    cameraProvider.unbind(imageAnalysis);
                 }
+                analysisBound = bound;
+                Log.i("PoseTracker", "Image analysis " + (bound ? "bound" : "unbound"));
+            } catch (Exception e) {
+                Log.e("PoseTracker", "Could not " + (bound ? "bind" : "unbind") + " image analysis: " + e.getMessage(), e);
             }
-        } catch (Exception e) {
-            Log.e("PoseTracker", "Error in image processing", e);
-        } finally {
-                isProcessing.set(false);
+        }
+
+        @Override
+        public PoseModelRuntime createRuntime() throws Exception {
+            QualityGovernor governor = qualityGovernor;
+            int tier = governor != null ? governor.getCurrentTier() : QualityGovernor.loadTier(MainActivity.this);
+            PoseModelRuntime runtime = createInitialRuntime(tier);
+            if (governor != null && runtime.tier != tier) {
+                governor.onSwitchComplete(runtime.tier);
+            }
+            return runtime;
+        }
+
+        @Override
+        public void onRebuildFailed(Exception e) {
+            Toast.makeText(MainActivity.this, "Failed to reload model: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+            finish();
+        }
+    };
+
+    private void processImage(@NonNull ImageProxy imageProxy) {
+        FramePipeline pipeline = framePipeline;
+        if (isDestroyed || pipeline == null) {
             imageProxy.close();
+            return;
+        }
+
+        // Convert on the camera thread; inference, decoding and UI dispatch continue on their own threads
+        PipelineTrace.begin(PipelineTrace.ANALYZE);
+        try {
+            pipeline.submit(imageProxy);
+        } finally {
+            PipelineTrace.end();
         }
-        });
     }
-    
 
+    /**
+     * Pipeline stages: convert (camera thread) -> infer -> decode -> count reps (analysis thread)
+     * Only the coalesced overlay pose and rep count reach the main thread
+     */
+    private final FramePipeline.Stages pipelineStages = new FramePipeline.Stages() {
+        @Override
+        public boolean convert(ImageProxy image, PoseModelRuntime runtime, FloatBuffer input) {
+            return preprocessImage(image, runtime.converter, input);
+        }
 
-    private float[] preprocessImage(ImageProxy imageProxy) {
-        try {
-            Bitmap bitmap = toBitmap(imageProxy);
-            if (bitmap == null) {
-                return null;
-            }
-            
-            // Get the device rotation and apply it
-            int rotation = imageProxy.getImageInfo().getRotationDegrees();
-            if (rotation != 0) {
-                android.graphics.Matrix matrix = new android.graphics.Matrix();
-                matrix.postRotate(rotation);
-                Bitmap rotatedBitmap = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
-                bitmap.recycle();
-                bitmap = rotatedBitmap;
+        @Override
+        public void onInferenceTime(PoseModelRuntime runtime, long nanos) {
+            QualityGovernor governor = qualityGovernor;
+            if (governor != null) {
+                governor.onInference(runtime.tier, nanos);
             }
-            
-            // Resize to a smaller size for better performance
-            Bitmap resizedBitmap = Bitmap.createScaledBitmap(bitmap, MODEL_INPUT_SIZE, MODEL_INPUT_SIZE, false);
-            if (bitmap != resizedBitmap) {
-                bitmap.recycle();
+        }
+
+        @Override
+        public void dispatch(PoseFrame keypoints) {
+            if (isDestroyed) {
+                return;
             }
-            
-            // Prepare arrays for processing
-            int[] pixels = new int[MODEL_INPUT_SIZE * MODEL_INPUT_SIZE];
-            float[] normalizedData = new float[3 * MODEL_INPUT_SIZE * MODEL_INPUT_SIZE];
-            
-            // Get all pixels at once
-            resizedBitmap.getPixels(pixels, 0, MODEL_INPUT_SIZE, 0, 0, MODEL_INPUT_SIZE, MODEL_INPUT_SIZE);
-            resizedBitmap.recycle();
-            
-            // Process pixels efficiently
-            int channelOffset = MODEL_INPUT_SIZE * MODEL_INPUT_SIZE;
-            for (int i = 0; i < pixels.length; i++) {
-                int pixel = pixels[i];
-                normalizedData[i] = ((pixel >> 16) & 0xFF) / 255.0f;                  // Red channel
-                normalizedData[i + channelOffset] = ((pixel >> 8) & 0xFF) / 255.0f;   // Green channel
-                normalizedData[i + channelOffset * 2] = (pixel & 0xFF) / 255.0f;      // Blue channel
+
+            FrameTrace.beginFrame(keypoints.getFrameId(), keypoints.getTimestampNanos());
+
+            // Only process keypoints for detection AFTER exercise starts (not during countdown)
+            RepCounter counter = repCounter;
+            if (exerciseStarted && counter != null) {
+                int before = counter.getCount();
+                counter.processKeypoints(keypoints);
+                // Only frames that counted a rep; reset() also calls the listener, with no frame behind it
+                if (counter.getCount() > before) {
+                    metrics.recordSince(PipelineMetrics.Stage.CAMERA_TO_REP, keypoints.getTimestampNanos());
+                }
+                recordPose(keypoints);
             }
-            
-            return normalizedData;
-        } catch (Exception e) {
-            Log.e("PoseTracker", "Preprocessing failed", e);
-            return null;
+
+            // ALWAYS show landmarks - no conditions, no cooldown blocking
+            uiUpdates.postPose(keypoints);
         }
-    }
+    };
 
-    private Bitmap toBitmap(ImageProxy imageProxy) {
+    /**
+     * Debug builds: save every pose the counter sees, for replaying through the counters in unit tests
+     * adb shell am start -n com.example.afinal/.MainActivity --es exercise_type squat --ez record_poses true
+     * then adb pull the .pose file from the app's external files dir (pose_recordings/)
+     */
+    private void startPoseRecording() {
+        File dir = getExternalFilesDir("pose_recordings");
+        if (dir == null) {
+            dir = new File(getFilesDir(), "pose_recordings");
+        }
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            Log.w("PoseTracker", "Can't create " + dir + ", not recording poses");
+            return;
+        }
+        File file = new File(dir, exerciseType + "-" + System.currentTimeMillis() + PoseRecording.FILE_EXTENSION);
         try {
-            if (imageProxy.getFormat() == ImageFormat.YUV_420_888) {
-                ImageProxy.PlaneProxy[] planes = imageProxy.getPlanes();
-                if (planes.length < 3) {
-                    return null;
-                }
-                
-                ByteBuffer yBuffer = planes[0].getBuffer();
-                ByteBuffer uBuffer = planes[1].getBuffer();
-                ByteBuffer vBuffer = planes[2].getBuffer();
+            poseRecorder = new PoseRecording.Writer(file, exerciseType);
+            Log.i("PoseTracker", "Recording poses to " + file);
+        } catch (IOException e) {
+            Log.w("PoseTracker", "Pose recording failed to start: " + e.getMessage());
+        }
+    }
 
-                int ySize = yBuffer.remaining();
-                int uSize = uBuffer.remaining();
-                int vSize = vBuffer.remaining();
+    // Analysis thread
+    private void recordPose(PoseFrame pose) {
+        PoseRecording.Writer recorder = poseRecorder;
+        if (recorder == null) {
+            return;
+        }
+        try {
+            recorder.write(pose);
+        } catch (IOException e) {
+            Log.w("PoseTracker", "Pose recording stopped: " + e.getMessage());
+            stopPoseRecording();
+        }
+    }
 
-                byte[] nv21 = new byte[ySize + uSize + vSize];
-                yBuffer.get(nv21, 0, ySize);
-                vBuffer.get(nv21, ySize, vSize);
-                uBuffer.get(nv21, ySize + vSize, uSize);
+    // Analysis thread
+    private void stopPoseRecording() {
+        PoseRecording.Writer recorder = poseRecorder;
+        poseRecorder = null;
+        if (recorder == null) {
+            return;
+        }
+        try {
+            recorder.close();
+            Log.i("PoseTracker", "Pose recording closed, " + recorder.getFrameCount() + " frames");
+        } catch (IOException e) {
+            Log.w("PoseTracker", "Pose recording close failed: " + e.getMessage());
+        }
+    }
 
-                int width = imageProxy.getWidth();
-                int height = imageProxy.getHeight();
-                YuvImage yuvImage = new YuvImage(nv21, ImageFormat.NV21, width, height, null);
-                ByteArrayOutputStream out = new ByteArrayOutputStream();
-                yuvImage.compressToJpeg(new Rect(0, 0, width, height), 75, out);
-                byte[] imageBytes = out.toByteArray();
-                return BitmapFactory.decodeByteArray(imageBytes, 0, imageBytes.length);
-            } else {
-                Log.e("PoseTracker", "Unsupported image format: " + imageProxy.getFormat());
-                return null;
+    private final Runnable metricsOverlayUpdater = new Runnable() {
+        @Override
+        public void run() {
+            if (isDestroyed || metricsOverlay == null) {
+                return;
             }
-        } catch (Exception e) {
-            Log.e("PoseTracker", "Bitmap conversion failed", e);
-            return null;
+            StringBuilder text = new StringBuilder("stage               p50    p95    max ms\n");
+            text.append(metrics.formatSummary());
+            FramePipeline pipeline = framePipeline;
+            if (pipeline != null) {
+                text.append("frames ").append(pipeline.getFramesDispatched())
+                        .append("  rejected ").append(pipeline.getFramesRejected())
+                        .append("  stale ").append(pipeline.getFramesDropped());
+            }
+            metricsOverlay.setText(text);
+            mainHandler.postDelayed(this, METRICS_OVERLAY_INTERVAL_MS);
+        }
+    };
+
+    /**
+     * Stage histograms plus the pipeline's frame accounting, for the end-of-session export
+     */
+    private JsonObject buildSessionReport(FramePipeline pipeline) {
+        JsonObject report = metrics.toJson();
+        report.addProperty("exercise", exerciseType);
+        ModelVariant variant = qualityGovernor != null ? ModelVariant.LADDER[qualityGovernor.getCurrentTier()] : null;
+        report.addProperty("model", variant != null ? variant.toString() : null);
+        JsonObject frames = new JsonObject();
+        frames.addProperty("submitted", pipeline.getFramesSubmitted());
+        frames.addProperty("dispatched", pipeline.getFramesDispatched());
+        // No free buffer at intake (what the old isProcessing gate dropped)
+        frames.addProperty("rejected", pipeline.getFramesRejected());
+        // Replaced by a newer frame while waiting between stages
+        frames.addProperty("stale", pipeline.getFramesDropped());
+        frames.addProperty("failed", pipeline.getFramesFailed());
+        if (uiUpdates != null) {
+            frames.addProperty("overlay_coalesced", uiUpdates.getPosesCoalesced());
+        }
+        report.add("frames", frames);
+        return report;
+    }
+
+    // Debug builds: <external files>/metrics/session-<time>.json, next to the pose recordings
+    private void writeSessionReport(JsonObject report) {
+        File dir = getExternalFilesDir("metrics");
+        if (dir == null) {
+            dir = new File(getFilesDir(), "metrics");
+        }
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            return;
+        }
+        File file = new File(dir, "session-" + System.currentTimeMillis() + ".json");
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            out.write(report.toString());
+            Log.i("PoseTracker", "Session metrics written to " + file);
+        } catch (IOException e) {
+            Log.w("PoseTracker", "Session metrics export failed: " + e.getMessage());
         }
     }
 
-    private List<float[]> parseKeypoints(float[][][] output, int imgWidth, int imgHeight) {
-        List<float[]> keypoints = new ArrayList<>();
+    private boolean preprocessImage(ImageProxy imageProxy, YuvFrameConverter frameConverter, FloatBuffer inputBuffer) {
         try {
-            if (output == null || output.length == 0 || output[0].length != 56) {
-                return createEmptyKeypoints();
-            }
-            
-            float[][] detections = output[0]; // Shape: [56, 8400]
-            int numDetections = detections[0].length;
-            
-            if (numDetections == 0) {
-                return createEmptyKeypoints();
-            }
-            
-            // Find best detection based on confidence and area
-            float bestScore = -1;
-            int bestIdx = -1;
-            
-            for (int i = 0; i < numDetections; i++) {
-                float score = detections[4][i];
-                
-                // Also consider bounding box area for better detection
-                if (detections.length > 4) {
-                    float x1 = detections[0][i];
-                    float y1 = detections[1][i];
-                    float x2 = detections[2][i];
-                    float y2 = detections[3][i];
-                    float area = Math.abs((x2 - x1) * (y2 - y1));
-                    
-                    // Prefer larger detections with reasonable confidence
-                    float combinedScore = score * (1 + area * 0.001f);
-                    
-                    if (combinedScore > bestScore) {
-                        bestScore = combinedScore;
-                        bestIdx = i;
-                    }
-                } else if (score > bestScore) {
-                    bestScore = score;
-                    bestIdx = i;
-                }
-            }
-            
-            // Very low threshold to show landmarks immediately - let overlay handle low confidence
-            if (bestIdx == -1 || detections[4][bestIdx] < 0.0001f) {
-                return createEmptyKeypoints();
-            }
-            
-            // Determine if we're in portrait mode based on actual image dimensions
-            boolean isPortrait = imgHeight > imgWidth;
-            
-            // Extract keypoints for the best detection with correct coordinate mapping
-            for (int k = 0; k < 17; k++) {
-                int xIdx = 5 + (k * 3);
-                int yIdx = 5 + (k * 3) + 1;
-                int confIdx = 5 + (k * 3) + 2;
-                
-                if (xIdx < detections.length && yIdx < detections.length && confIdx < detections.length) {
-                    float x = detections[xIdx][bestIdx];
-                    float y = detections[yIdx][bestIdx];
-                    float conf = detections[confIdx][bestIdx];
-                    
-                    // Normalize coordinates to 0-1 range
-                    x = x / MODEL_INPUT_SIZE;
-                    y = y / MODEL_INPUT_SIZE;
-                    
-                    // CAMERA IS MIRRORED - flip horizontally first
-                    x = 1.0f - x;
-                    
-                    if (isPortrait) {
-                        // For portrait mode, swap the axes after mirroring
-                        float temp = x;
-                        x = y;
-                        y = temp;
-                    }
-                    
-                    // Clamp values to ensure they're within valid range
-                    x = Math.max(0, Math.min(1, x));
-                    y = Math.max(0, Math.min(1, y));
-                    
-                    // Apply confidence smoothing for better stability
-                    conf = Math.max(0, Math.min(1, conf));
-                    
-                    keypoints.add(new float[]{x, y, conf});
-                } else {
-                    keypoints.add(new float[]{0, 0, 0});
-                }
+            // Direct YUV -> CHW path (rotate + resize in one pass, no JPEG round-trip)
+            if (frameConverter.convert(imageProxy, false, inputBuffer)) {
+                return true;
             }
         } catch (Exception e) {
-            Log.e("PoseTracker", "Error parsing keypoints", e);
-            return createEmptyKeypoints();
+            Log.e("PoseTracker", "Direct YUV conversion failed, using JPEG fallback", e);
         }
         
-        return keypoints;
-    }
-    
-    // Helper method to create empty keypoints list
-    private List<float[]> createEmptyKeypoints() {
-        List<float[]> emptyKeypoints = new ArrayList<>();
-        for (int i = 0; i < 17; i++) {
-            emptyKeypoints.add(new float[]{0, 0, 0});
-        }
-        return emptyKeypoints;
+        // Fallback for formats/strides the direct converter can't handle
+        return frameConverter.convertViaJpeg(imageProxy, inputBuffer);
     }
 
     @Override
@@ -1194,15 +990,25 @@ public class MainActivity extends AppCompatActivity implements JumpCounter.JumpL
         // Clean up ONNX resources BEFORE shutting down executors
         synchronized (sessionLock) {
             try {
-                if (session != null) {
-                    session.close();
-                    session = null;
-                }
-                if (env != null) {
-                    env.close();
-                    env = null;
+                // Stop the pipeline first so no new frames reach the session
+                FramePipeline pipeline = framePipeline;
+                framePipeline = null;
+                if (pipeline != null) {
+                    PoseModelRuntime runtime = pipeline.close();
+                    Log.i("PoseTracker", "Pipeline stats: " + pipeline);
+                    Log.i("PoseTracker", "Stage latency (p50/p95/max ms):\n" + metrics.formatSummary());
+                    if (PoseLog.ENABLED && analysisExecutor != null) {
+                        // Written off the main thread, ahead of the executor shutdown below
+                        JsonObject report = buildSessionReport(pipeline);
+                        analysisExecutor.execute(() -> writeSessionReport(report));
+                    }
+                    if (runtime != null) {
+                        // Pools close once in-flight frames are done; the session stays cached in the manager
+                        runtime.release();
+                    }
                 }
-            } catch (OrtException e) {
+                env = null;
+            } catch (Exception e) {
                 Log.e("PoseTracker", "Error closing ONNX resources", e);
             }
         }
@@ -1214,9 +1020,24 @@ public class MainActivity extends AppCompatActivity implements JumpCounter.JumpL
         if (inferenceExecutor != null) {
             inferenceExecutor.shutdown();
         }
+        if (postProcessExecutor != null) {
+            postProcessExecutor.shutdown();
+        }
+        if (analysisExecutor != null) {
+            // Queued behind the last frame, so the recording ends cleanly
+            analysisExecutor.execute(this::stopPoseRecording);
+            analysisExecutor.shutdown();
+        }
+        if (uiUpdates != null) {
+            Log.i("PoseTracker", "UI updates: " + uiUpdates);
+            uiUpdates.close();
+        }
+        if (modelSwapExecutor != null) {
+            modelSwapExecutor.shutdown();
+        }
         
         // Clear references
-        jumpCounter = null;
+        repCounter = null;
         poseOverlay = null;
         jumpCountText = null;
 
@@ -1235,215 +1056,31 @@ public class MainActivity extends AppCompatActivity implements JumpCounter.JumpL
     @Override
     protected void onPause() {
         super.onPause();
-        // Reset processing state when paused
-        isProcessing.set(false);
-    }
-    
-    @Override
-    protected void onResume() {
-        super.onResume();
-        // Reset state when resuming
-        if (jumpCounter != null) {
-            // Don't reset the counter, just ensure it's ready
-            Log.d("PoseTracker", "Activity resumed, current jumps: " + jumpCounter.getJumpCount());
-        }
-    }
-
-    @Override
-    public void onHighKneeDetected(int highKneeCount) {
-        // Only process high knee detection if we're doing high knee exercises
-        if (!"high_knees".equals(exerciseType)) {
-            return;
-        }
-        
-        // Don't process if exercise is already completed
-        if (exerciseCompleted) {
-            return;
-        }
-        
-        runOnUiThread(() -> {
-            remainingReps = HIGH_KNEES_TO_COMPLETE - highKneeCount;
-            updateCounterText();
-            
-            // Play animation (can reuse jump animation or create specific high knee animation)
-            playJumpAnimation();
-            
-            // Start cooldown immediately after high knee
-            showCooldown();
-        });
-        
-        // Track high knees in stats (reuse jump stats for now)
-        updateJumpStats(highKneeCount);
-        
-        // Check if exercise is completed (when countdown reaches 0)
-        if (!exerciseCompleted && remainingReps <= 0) {
-            exerciseCompleted = true;
-            completeExercise();
-        }
-    }
-
-    @Override
-    public void onSideReachDetected(int sideReachCount) {
-        // Only process side reach detection if we're doing side reach exercises
-        if (!"side_reach".equals(exerciseType)) {
-            return;
-        }
-        
-        // Don't process if exercise is already completed
-        if (exerciseCompleted) {
-            return;
-        }
-        
-        runOnUiThread(() -> {
-            remainingReps = SIDE_REACHES_TO_COMPLETE - sideReachCount;
-            updateCounterText();
-            
-            // Play animation (can reuse jump animation or create specific side reach animation)
-            playJumpAnimation();
-            
-            // Start cooldown immediately after side reach
-            showCooldown();
-        });
-        
-        // Track side reaches in stats (reuse jump stats for now)
-        updateJumpStats(sideReachCount);
-        
-        // Check if exercise is completed (when countdown reaches 0)
-        if (!exerciseCompleted && remainingReps <= 0) {
-            exerciseCompleted = true;
-            completeExercise();
-        }
-    }
-
-    @Override
-    public void onJackJumpDetected(int jackJumpCount) {
-        // Only process jack jump detection if we're doing jack jumps exercises
-        if (!"jack_jumps".equals(exerciseType)) {
-            return;
-        }
-        
-        // Don't process if exercise is already completed
-        if (exerciseCompleted) {
-            return;
-        }
-        
-        runOnUiThread(() -> {
-            remainingReps = JACK_JUMPS_TO_COMPLETE - jackJumpCount;
-            updateCounterText();
-            
-            // Play animation (can reuse jump animation or create specific jack jump animation)
-            playJumpAnimation();
-            
-            // Start cooldown immediately after jack jump
-            showCooldown();
-        });
-        
-        // Track jack jumps in stats (reuse jump stats for now)
-        updateJumpStats(jackJumpCount);
-        
-        // Check if exercise is completed (when countdown reaches 0)
-        if (!exerciseCompleted && remainingReps <= 0) {
-            exerciseCompleted = true;
-            completeExercise();
+        if (lifecycleController != null) {
+            // No frames while hidden; the runtime stays until the system asks for memory
+            lifecycleController.onPause();
         }
     }
 
     @Override
-    public void onBicepsCurlDetected(int bicepsCurlCount) {
-        // Only process biceps curl detection if we're doing biceps curl exercises
-        if (!"biceps_curl".equals(exerciseType)) {
-            return;
-        }
-        
-        // Don't process if exercise is already completed
-        if (exerciseCompleted) {
-            return;
-        }
-        
-        runOnUiThread(() -> {
-            remainingReps = BICEPS_CURL_TO_COMPLETE - bicepsCurlCount;
-            updateCounterText();
-            
-            // Play animation (can reuse jump animation or create specific biceps curl animation)
-            playJumpAnimation();
-            
-            // Start cooldown immediately after biceps curl
-            showCooldown();
-        });
-        
-        // Track biceps curls in stats (reuse jump stats for now)
-        updateJumpStats(bicepsCurlCount);
-        
-        // Check if exercise is completed (when countdown reaches 0)
-        if (!exerciseCompleted && remainingReps <= 0) {
-            exerciseCompleted = true;
-            completeExercise();
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if (lifecycleController != null && !isDestroyed) {
+            lifecycleController.onTrimMemory(level);
         }
     }
-
-    @Override
-    public void onShoulderPressDetected(int shoulderPressCount) {
-        // Only process shoulder press detection if we're doing shoulder press exercises
-        if (!"shoulder_press".equals(exerciseType)) {
-            return;
-        }
-        
-        // Don't process if exercise is already completed
-        if (exerciseCompleted) {
-            return;
-        }
-        
-        runOnUiThread(() -> {
-            remainingReps = SHOULDER_PRESS_TO_COMPLETE - shoulderPressCount;
-            updateCounterText();
-            
-            // Play animation (can reuse jump animation or create specific shoulder press animation)
-            playJumpAnimation();
-            
-            // Start cooldown immediately after shoulder press
-            showCooldown();
-        });
-        
-        // Track shoulder presses in stats (reuse jump stats for now)
-        updateJumpStats(shoulderPressCount);
-        
-        // Check if exercise is completed (when countdown reaches 0)
-        if (!exerciseCompleted && remainingReps <= 0) {
-            exerciseCompleted = true;
-            completeExercise();
-        }
-    }
-
+    
     @Override
-    public void onSquatDetected(int squatCount) {
-        // Only process squat detection if we're doing squat exercises
-        if (!"squat".equals(exerciseType)) {
-            return;
-        }
-        
-        // Don't process if exercise is already completed
-        if (exerciseCompleted) {
-            return;
+    protected void onResume() {
+        super.onResume();
+        // Reset state when resuming
+        if (repCounter != null) {
+            // Don't reset the counter, just ensure it's ready
+            Log.d("PoseTracker", "Activity resumed, current " + exerciseType + " reps: " + repCounter.getCount());
         }
-        
-        runOnUiThread(() -> {
-            remainingReps = SQUATS_TO_COMPLETE - squatCount;
-            updateCounterText();
-            
-            // Play animation (can reuse jump animation or create specific squat animation)
-            playJumpAnimation();
-            
-            // Start cooldown immediately after squat
-            showCooldown();
-        });
-        
-        // Track squats in stats (reuse jump stats for now)
-        updateJumpStats(squatCount);
-        
-        // Check if exercise is completed (when countdown reaches 0)
-        if (!exerciseCompleted && remainingReps <= 0) {
-            exerciseCompleted = true;
-            completeExercise();
+        if (lifecycleController != null) {
+            // Rebinds analysis, reloading the model first if a trim released it
+            lifecycleController.onResume();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,134 @@
+package com.example.afinal;
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.content.res.AssetFileDescriptor;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+
+/**
+ * ModelAssetLoader - Makes the bundled ONNX models available as files in app-private storage
+ * ORT's Java API only takes a byte[] or a file path, so instead of reading the whole model onto the heap
+ * we copy the (uncompressed) asset to disk once with a channel transfer and let ORT map the file natively
+ */
+public final class ModelAssetLoader {
+    private static final String TAG = "ModelAssetLoader";
+    private static final String MODEL_DIR = "models";
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private ModelAssetLoader() {
+    }
+
+    /**
+     * Return the on-disk copy of an asset model, copying it first if missing or stale
+     * @throws IOException if the asset doesn't exist or can't be copied
+     */
+    public static File getModelFile(Context context, String assetName) throws IOException {
+        File dir = new File(context.getFilesDir(), MODEL_DIR);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create model directory " + dir);
+        }
+        File target = new File(dir, assetName);
+
+        long start = System.nanoTime();
+        AssetFileDescriptor afd = openUncompressed(context, assetName);
+        try {
+            long assetLength = afd != null ? afd.getLength() : -1;
+            if (isUpToDate(context, target, assetLength)) {
+                Log.i(TAG, "Using cached model file " + target + " (" + target.length() + " bytes)");
+                return target;
+            }
+
+            File temp = new File(dir, assetName + ".tmp");
+            if (afd != null) {
+                copyFromDescriptor(afd, temp);
+            } else {
+                copyFromStream(context, assetName, temp);
+            }
+            if (!temp.renameTo(target)) {
+                temp.delete();
+                throw new IOException("Could not move model into place: " + target);
+            }
+        } finally {
+            if (afd != null) {
+                afd.close();
+            }
+        }
+
+        Log.i(TAG, String.format("Extracted %s (%d bytes) in %.1f ms",
+                assetName, target.length(), (System.nanoTime() - start) / 1e6));
+        return target;
+    }
+
+    /**
+     * Open the asset as a file descriptor; only works when it is stored uncompressed in the APK
+     */
+    private static AssetFileDescriptor openUncompressed(Context context, String assetName) throws IOException {
+        try {
+            return context.getAssets().openFd(assetName);
+        } catch (FileNotFoundException e) {
+            // Either missing or compressed - make sure it exists at all so the caller gets a clear failure
+            context.getAssets().open(assetName).close();
+            Log.w(TAG, assetName + " is compressed in the APK, falling back to a stream copy");
+            return null;
+        }
+    }
+
+    private static boolean isUpToDate(Context context, File target, long assetLength) {
+        if (!target.isFile()) {
+            return false;
+        }
+        if (assetLength >= 0 && target.length() != assetLength) {
+            return false;
+        }
+        // Re-extract after an app update in case the bundled model changed
+        return target.lastModified() >= getLastUpdateTime(context);
+    }
+
+    private static long getLastUpdateTime(Context context) {
+        try {
+            return context.getPackageManager().getPackageInfo(context.getPackageName(), 0).lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static void copyFromDescriptor(AssetFileDescriptor afd, File target) throws IOException {
+        try (FileInputStream in = afd.createInputStream();
+             FileOutputStream out = new FileOutputStream(target)) {
+            // The descriptor points into the APK, so transfer the asset's own byte range
+            FileChannel src = in.getChannel();
+            FileChannel dst = out.getChannel();
+            long offset = afd.getStartOffset();
+            long remaining = afd.getLength();
+            while (remaining > 0) {
+                long copied = src.transferTo(offset, remaining, dst);
+                if (copied <= 0) {
+                    throw new IOException("Model copy stalled with " + remaining + " bytes left");
+                }
+                offset += copied;
+                remaining -= copied;
+            }
+            out.getFD().sync();
+        }
+    }
+
+    private static void copyFromStream(Context context, String assetName, File target) throws IOException {
+        try (InputStream in = context.getAssets().open(assetName);
+             FileOutputStream out = new FileOutputStream(target)) {
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            out.getFD().sync();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.afinal;
+
+/**
+ * ModelVariant - One rung of the pose-model quality ladder (model file + input resolution)
+ * LADDER is ordered from best keypoints / slowest to cheapest; the quality governor moves along it
+ */
+public final class ModelVariant {
+    public static final String MODEL_MEDIUM = "yolov8m-pose.onnx";
+    public static final String MODEL_NANO = "yolov8n-pose.onnx";
+
+    public static final ModelVariant[] LADDER = {
+            new ModelVariant(MODEL_MEDIUM, 320),
+            new ModelVariant(MODEL_NANO, 320),
+            // Below 320 only works if the model was exported with dynamic input dims
+            new ModelVariant(MODEL_NANO, 256),
+            new ModelVariant(MODEL_NANO, 224),
+            new ModelVariant(MODEL_NANO, 192),
+    };
+
+    // Nano at full resolution, same as before the governor existed
+    public static final int DEFAULT_TIER = 1;
+
+    // YOLOv8 heads at strides 8, 16 and 32
+    private static final int[] STRIDES = {8, 16, 32};
+
+    public final String assetName;
+    public final int inputSize;
+
+    private ModelVariant(String assetName, int inputSize) {
+        this.assetName = assetName;
+        this.inputSize = inputSize;
+    }
+
+    /**
+     * Number of detection anchors the model produces for this input size: 40*40 + 20*20 + 10*10 = 2100 at 320
+     * (the [1, 56, N] output's N; 8400 is the 640 export)
+     */
+    public int getAnchorCount() {
+        int anchors = 0;
+        for (int stride : STRIDES) {
+            int cells = inputSize / stride;
+            anchors += cells * cells;
+        }
+        return anchors;
+    }
+
+    @Override
+    public String toString() {
+        return assetName + "@" + inputSize;
+    }
+}
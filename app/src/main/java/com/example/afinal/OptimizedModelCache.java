@@ -0,0 +1,150 @@
+package com.example.afinal;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * OptimizedModelCache - Keeps the graph-optimized model ORT produces on first load
+ * Entries are keyed by model content hash, ORT version and session options, so a new model,
+ * an ORT upgrade or different options never pick up a stale artifact
+ */
+public final class OptimizedModelCache {
+    private static final String TAG = "OptimizedModelCache";
+    private static final String CACHE_DIR = "models/optimized";
+    private static final String HASH_SUFFIX = ".sha256";
+
+    private final File dir;
+
+    public OptimizedModelCache(Context context) {
+        this.dir = new File(context.getFilesDir(), CACHE_DIR);
+    }
+
+    /**
+     * Cache key for a model file + runtime/options description
+     */
+    public static String buildKey(File modelFile, String ortVersion, String optionsSignature) throws IOException {
+        String material = getModelHash(modelFile) + "|" + ortVersion + "|" + optionsSignature;
+        return sha256(material.getBytes(StandardCharsets.UTF_8)).substring(0, 16);
+    }
+
+    /**
+     * The cached optimized model for this key, or null if there isn't one yet
+     */
+    public File getCached(String modelName, String key) {
+        File file = fileFor(modelName, key);
+        return file.isFile() && file.length() > 0 ? file : null;
+    }
+
+    /**
+     * Temporary path to hand to setOptimizedModelFilePath; commit() moves it into place once the session loaded
+     */
+    public File getPendingFile(String modelName, String key) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create cache directory " + dir);
+        }
+        File pending = new File(dir, fileFor(modelName, key).getName() + ".tmp");
+        pending.delete();
+        return pending;
+    }
+
+    public void commit(String modelName, String key, File pending) {
+        File target = fileFor(modelName, key);
+        if (!pending.isFile() || pending.length() == 0 || !pending.renameTo(target)) {
+            Log.w(TAG, "ORT did not produce an optimized model for " + modelName);
+            pending.delete();
+            return;
+        }
+        Log.i(TAG, "Cached optimized model " + target.getName() + " (" + target.length() + " bytes)");
+        evictOthers(modelName, target);
+    }
+
+    /**
+     * Drop an entry that failed to load so the next start re-optimizes from the original model
+     */
+    public void invalidate(String modelName, String key) {
+        File file = fileFor(modelName, key);
+        if (file.delete()) {
+            Log.w(TAG, "Invalidated optimized model " + file.getName());
+        }
+    }
+
+    private File fileFor(String modelName, String key) {
+        String base = modelName.endsWith(".onnx") ? modelName.substring(0, modelName.length() - 5) : modelName;
+        return new File(dir, base + "-" + key + ".opt.onnx");
+    }
+
+    private void evictOthers(String modelName, File keep) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        String prefix = fileFor(modelName, "").getName().replace(".opt.onnx", "");
+        for (File file : files) {
+            if (!file.equals(keep) && file.getName().startsWith(prefix)) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * SHA-256 of the model file, remembered in a sidecar so it's only computed once per extracted model
+     */
+    static String getModelHash(File modelFile) throws IOException {
+        File sidecar = new File(modelFile.getPath() + HASH_SUFFIX);
+        if (sidecar.isFile() && sidecar.lastModified() >= modelFile.lastModified()) {
+            try (InputStream in = new FileInputStream(sidecar)) {
+                byte[] bytes = new byte[64];
+                int read = in.read(bytes);
+                if (read == 64) {
+                    return new String(bytes, StandardCharsets.US_ASCII);
+                }
+            }
+        }
+
+        long start = System.nanoTime();
+        MessageDigest digest = newDigest();
+        try (InputStream in = new FileInputStream(modelFile)) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        String hash = toHex(digest.digest());
+        try (FileOutputStream out = new FileOutputStream(sidecar)) {
+            out.write(hash.getBytes(StandardCharsets.US_ASCII));
+        }
+        Log.i(TAG, String.format("Hashed %s in %.1f ms", modelFile.getName(), (System.nanoTime() - start) / 1e6));
+        return hash;
+    }
+
+    private static String sha256(byte[] data) {
+        return toHex(newDigest().digest(data));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
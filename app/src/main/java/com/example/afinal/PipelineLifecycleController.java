@@ -0,0 +1,222 @@
+package com.example.afinal;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.os.Debug;
+import android.os.Handler;
+import android.util.Log;
+
+import java.util.Locale;
+import java.util.concurrent.Executor;
+
+/**
+ * PipelineLifecycleController - Parks the pose pipeline while the exercise screen is hidden and gives memory back on trim
+ * Pause unbinds the ImageAnalysis use case and parks the pipeline; a trim closes the idle pooled tensors while running,
+ * or detaches the whole runtime while parked, and severe pressure closes the shared ORT session too
+ * Resume rebuilds whatever was released on the worker thread; every trim logs native and Java heap before and after
+ */
+public final class PipelineLifecycleController {
+    private static final String TAG = "PipelineLifecycle";
+
+    /**
+     * The screen that owns the camera and the pipeline
+     */
+    public interface Host {
+        /** Called under the pipeline lock: the current pipeline, null before the model loads or after destroy */
+        FramePipeline getPipeline();
+
+        /** Main thread: bind or unbind the ImageAnalysis use case (the preview stays bound) */
+        void setAnalysisBound(boolean bound);
+
+        /** Worker thread: build a runtime at the current quality tier, blocking until its session is ready */
+        PoseModelRuntime createRuntime() throws Exception;
+
+        /** Main thread: the runtime released by a trim could not be rebuilt */
+        void onRebuildFailed(Exception e);
+    }
+
+    private final Context appContext;
+    private final Host host;
+    private final Object lock;
+    private final Executor worker;
+    private final Handler mainHandler;
+
+    private volatile boolean paused = false;
+    private int generation = 0; // Guarded by lock; bumped on every pause/resume so a stale rebuild steps aside
+
+    /**
+     * @param lock the lock the host swaps its pipeline and runtimes under
+     * @param worker serial executor for trims and rebuilds (the one that already does model swaps)
+     */
+    public PipelineLifecycleController(Context context, Host host, Object lock, Executor worker, Handler mainHandler) {
+        this.appContext = context.getApplicationContext();
+        this.host = host;
+        this.lock = lock;
+        this.worker = worker;
+        this.mainHandler = mainHandler;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Main thread: stop camera frames and park the pipeline, keeping its runtime for a quick return
+     */
+    public void onPause() {
+        paused = true;
+        host.setAnalysisBound(false);
+        synchronized (lock) {
+            generation++;
+            FramePipeline pipeline = host.getPipeline();
+            if (pipeline != null) {
+                pipeline.park();
+            }
+        }
+    }
+
+    /**
+     * Main thread: unpark straight away if the runtime survived, otherwise rebuild it first
+     */
+    public void onResume() {
+        if (!paused) {
+            return;
+        }
+        paused = false;
+
+        int resumeGeneration;
+        boolean needsRuntime;
+        synchronized (lock) {
+            resumeGeneration = ++generation;
+            FramePipeline pipeline = host.getPipeline();
+            needsRuntime = pipeline != null && pipeline.getRuntime() == null;
+            if (pipeline != null && !needsRuntime) {
+                pipeline.unpark(null);
+            }
+        }
+        if (needsRuntime) {
+            worker.execute(() -> rebuild(resumeGeneration));
+        } else {
+            host.setAnalysisBound(true);
+        }
+    }
+
+    /**
+     * Main thread: forward of Activity.onTrimMemory
+     */
+    public void onTrimMemory(int level) {
+        // Nothing is worth dropping mid-exercise until the system is actually running low
+        if (!paused && level < ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            return;
+        }
+        boolean severe = level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL;
+        worker.execute(() -> trim(level, severe));
+    }
+
+    private void trim(int level, boolean severe) {
+        FramePipeline pipeline;
+        Footprint before;
+        PoseModelRuntime detached = null;
+        long trimmed = 0;
+        synchronized (lock) {
+            pipeline = host.getPipeline();
+            if (pipeline == null) {
+                return;
+            }
+            before = Footprint.capture(pipeline);
+            if (pipeline.isParked()) {
+                // Hidden: the whole runtime goes and is rebuilt on resume
+                detached = pipeline.setRuntime(null);
+            } else {
+                // Still counting reps: only the pool slots no frame is using
+                trimmed = pipeline.trimPools();
+            }
+        }
+        if (detached != null) {
+            // Pools close once the last in-flight frame is recycled; the session goes back to the manager
+            detached.release();
+        }
+        if (severe) {
+            // A session still in use is closed by the manager as soon as its runtime lets go
+            PoseSessionManager.getInstance(appContext).releaseSessions("trim level " + level);
+        }
+
+        String action = detached != null ? "released runtime " + detached.variant
+                : "trimmed " + trimmed + " pooled bytes";
+        Log.i(TAG, "Trim level " + level + (severe ? " (severe)" : "") + ", " + action + ": "
+                + before.describeChange(Footprint.capture(pipeline)));
+    }
+
+    private void rebuild(int resumeGeneration) {
+        long start = System.nanoTime();
+        PoseModelRuntime runtime;
+        try {
+            runtime = host.createRuntime();
+        } catch (Exception e) {
+            Log.e(TAG, "Rebuild after trim failed: " + e.getMessage(), e);
+            mainHandler.post(() -> host.onRebuildFailed(e));
+            return;
+        }
+
+        FramePipeline pipeline;
+        synchronized (lock) {
+            pipeline = host.getPipeline();
+            if (pipeline == null || resumeGeneration != generation) {
+                // Destroyed, or paused again while loading - that pause/resume decides what happens next
+                runtime.release();
+                return;
+            }
+            PoseModelRuntime previous = pipeline.unpark(runtime);
+            if (previous != null) {
+                previous.release();
+            }
+        }
+        Log.i(TAG, String.format(Locale.US, "Rebuilt %s in %.1f ms, %s", runtime.variant,
+                (System.nanoTime() - start) / 1e6, Footprint.capture(pipeline)));
+        mainHandler.post(() -> {
+            if (!paused) {
+                host.setAnalysisBound(true);
+            }
+        });
+    }
+
+    /**
+     * Native heap, Java heap and tensor-pool bytes at one moment
+     * Pool buffers are direct ByteBuffers, which ART keeps on the Java heap, so that only drops after the next GC;
+     * the native heap (ORT session, arenas, tensor handles) drops as soon as they are closed
+     */
+    static final class Footprint {
+        final long nativeBytes;
+        final long javaBytes;
+        final long pooledBytes;
+
+        Footprint(long nativeBytes, long javaBytes, long pooledBytes) {
+            this.nativeBytes = nativeBytes;
+            this.javaBytes = javaBytes;
+            this.pooledBytes = pooledBytes;
+        }
+
+        static Footprint capture(FramePipeline pipeline) {
+            Runtime runtime = Runtime.getRuntime();
+            return new Footprint(Debug.getNativeHeapAllocatedSize(), runtime.totalMemory() - runtime.freeMemory(),
+                    pipeline != null ? pipeline.getPooledBytes() : 0);
+        }
+
+        String describeChange(Footprint after) {
+            return String.format(Locale.US, "native %.1f -> %.1f MB, java heap %.1f -> %.1f MB, tensor pools %.2f -> %.2f MB",
+                    mb(nativeBytes), mb(after.nativeBytes), mb(javaBytes), mb(after.javaBytes),
+                    mb(pooledBytes), mb(after.pooledBytes));
+        }
+
+        private static double mb(long bytes) {
+            return bytes / (1024.0 * 1024.0);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "native %.1f MB, java heap %.1f MB, tensor pools %.2f MB",
+                    mb(nativeBytes), mb(javaBytes), mb(pooledBytes));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.afinal;
+
+import com.google.gson.JsonObject;
+
+import java.util.Locale;
+
+/**
+ * PipelineMetrics - Where a camera frame's time goes, one LatencyHistogram per stage
+ * Each stage records from its own thread with System.nanoTime deltas; "camera" means the moment the
+ * analyzer received the frame (FramePipeline.Frame.timestampNanos), which every later stage carries along
+ */
+public final class PipelineMetrics {
+
+    public enum Stage {
+        CONVERT("convert"),                      // YUV -> CHW input, camera thread
+        INFER_WAIT("infer_wait"),                // Converted frame waiting for the model
+        INFER("infer"),                          // Model run
+        DECODE("decode"),                        // Anchor scan + keypoints
+        COUNT("count"),                          // Rep counter + UI hand-off, analysis thread
+        CAMERA_TO_COUNTED("camera_to_counted"),  // Frame arrival -> counter done with it
+        CAMERA_TO_SCREEN("camera_to_screen"),    // Frame arrival -> vsync that draws its pose
+        CAMERA_TO_REP("camera_to_rep");          // Frame arrival -> counter done with the frame that raised the count
+
+        public final String key;
+
+        Stage(String key) {
+            this.key = key;
+        }
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[STAGES.length];
+    private final long startedAtMillis = System.currentTimeMillis();
+
+    public PipelineMetrics() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    public void record(Stage stage, long nanos) {
+        histograms[stage.ordinal()].record(nanos);
+    }
+
+    public void recordSince(Stage stage, long startNanos) {
+        histograms[stage.ordinal()].recordSince(startNanos);
+    }
+
+    public LatencyHistogram get(Stage stage) {
+        return histograms[stage.ordinal()];
+    }
+
+    /**
+     * One line per stage for the debug overlay: p50 / p95 / max in ms
+     */
+    public String formatSummary() {
+        StringBuilder sb = new StringBuilder(STAGES.length * 48);
+        for (Stage stage : STAGES) {
+            LatencyHistogram h = histograms[stage.ordinal()];
+            if (h.getCount() == 0) {
+                continue;
+            }
+            sb.append(String.format(Locale.US, "%-18s %6.1f %6.1f %6.1f\n", stage.key,
+                    h.getValueAtPercentile(50) / 1e6, h.getValueAtPercentile(95) / 1e6, h.getMaxNanos() / 1e6));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Session export: per stage count, mean, p50/p90/p95/p99 and max, all in microseconds
+     */
+    public JsonObject toJson() {
+        JsonObject stages = new JsonObject();
+        for (Stage stage : STAGES) {
+            LatencyHistogram h = histograms[stage.ordinal()];
+            JsonObject json = new JsonObject();
+            json.addProperty("count", h.getCount());
+            json.addProperty("mean_us", h.getMeanNanos() / 1000);
+            json.addProperty("p50_us", h.getValueAtPercentile(50) / 1000);
+            json.addProperty("p90_us", h.getValueAtPercentile(90) / 1000);
+            json.addProperty("p95_us", h.getValueAtPercentile(95) / 1000);
+            json.addProperty("p99_us", h.getValueAtPercentile(99) / 1000);
+            json.addProperty("max_us", h.getMaxNanos() / 1000);
+            stages.add(stage.key, json);
+        }
+        JsonObject root = new JsonObject();
+        root.addProperty("started_at_ms", startedAtMillis);
+        root.addProperty("duration_ms", System.currentTimeMillis() - startedAtMillis);
+        root.add("stages", stages);
+        return root;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.afinal;
+
+import androidx.tracing.Trace;
+
+/**
+ * PipelineTrace - Systrace/Perfetto sections for the frame pipeline, named with the frame id
+ * Each stage is a "<stage> #<frameId>" slice on the thread that ran it, and every frame also gets an async
+ * "frame" slice (cookie = frame id) from camera arrival until its pose is counted or dropped, so one frame
+ * can be followed across the camera, inference, post-process, analysis and main threads
+ * Names are only built while a trace is being captured; otherwise only the constant stage name is passed
+ */
+public final class PipelineTrace {
+    public static final String ANALYZE = "analyze";
+    public static final String CONVERT = "convert";
+    public static final String JPEG_DECODE = "jpeg decode";
+    public static final String NORMALIZE = "normalize";
+    public static final String INFER = "session.run";
+    public static final String DECODE = "decode";
+    public static final String COUNT = "count";
+    public static final String UI_FRAME = "ui frame";
+    public static final String OVERLAY_DRAW = "overlay draw";
+
+    private static final String FRAME = "frame";
+
+    private PipelineTrace() {
+    }
+
+    /**
+     * Open a slice on this thread; always pair with end() in a finally
+     */
+    public static void begin(String stage, long frameId) {
+        Trace.beginSection(Trace.isEnabled() ? stage + " #" + frameId : stage);
+    }
+
+    public static void begin(String stage) {
+        Trace.beginSection(stage);
+    }
+
+    public static void end() {
+        Trace.endSection();
+    }
+
+    /**
+     * Camera thread: a new frame entered the pipeline
+     */
+    public static void beginFrame(long frameId) {
+        Trace.beginAsyncSection(FRAME, (int) frameId);
+    }
+
+    /**
+     * Whichever thread finishes with the frame last: counted, dropped as stale, or failed
+     */
+    public static void endFrame(long frameId) {
+        Trace.endAsyncSection(FRAME, (int) frameId);
+    }
+}
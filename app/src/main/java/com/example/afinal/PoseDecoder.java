@@ -0,0 +1,224 @@
+package com.example.afinal;
+
+import java.nio.FloatBuffer;
+
+/**
+ * PoseDecoder - Post-processing for the YOLOv8-pose output tensor [1, 56, anchors]
+ * Reads the flat output buffer in place (channel-major, so every channel row is one contiguous stream),
+ * finds the winning anchor in a single pass and only decodes the 17 keypoints of that anchor
+ */
+public class PoseDecoder {
+    public static final int NUM_KEYPOINTS = 17;
+    public static final int VALUES_PER_KEYPOINT = 3;
+    public static final int KEYPOINT_VALUES = NUM_KEYPOINTS * VALUES_PER_KEYPOINT;
+
+    // Output channel layout: cx, cy, w, h, score, then 17 x (x, y, conf)
+    private static final int CHANNEL_SCORE = 4;
+    private static final int CHANNEL_FIRST_KEYPOINT = 5;
+    private static final int EXPECTED_CHANNELS = CHANNEL_FIRST_KEYPOINT + KEYPOINT_VALUES;
+
+    // Very low threshold to show landmarks immediately - let overlay handle low confidence
+    private static final float MIN_BEST_SCORE = 0.0001f;
+    private static final int MAX_CANDIDATES = 256;
+
+    private final int channels;
+    private final int anchors;
+    private final float inputSize;
+
+    // Scratch for top-K + NMS, allocated once
+    private final int[] candidateAnchors = new int[MAX_CANDIDATES];
+    private final float[] candidateScores = new float[MAX_CANDIDATES];
+    private final boolean[] suppressed = new boolean[MAX_CANDIDATES];
+
+    public PoseDecoder(int channels, int anchors, int inputSize) {
+        if (channels != EXPECTED_CHANNELS) {
+            throw new IllegalArgumentException("Expected " + EXPECTED_CHANNELS + " output channels, got " + channels);
+        }
+        this.channels = channels;
+        this.anchors = anchors;
+        this.inputSize = inputSize;
+    }
+
+    /**
+     * Find the best anchor using the same confidence * size preference as before
+     * @return anchor index, or -1 if nothing is above the minimum score
+     */
+    public int findBestAnchor(FloatBuffer output) {
+        final int base = output.position();
+        final int rowCx = base;
+        final int rowCy = base + anchors;
+        final int rowW = base + anchors * 2;
+        final int rowH = base + anchors * 3;
+        final int rowScore = base + anchors * CHANNEL_SCORE;
+
+        float bestScore = -1;
+        int bestIdx = -1;
+        for (int i = 0; i < anchors; i++) {
+            float score = output.get(rowScore + i);
+            float cx = output.get(rowCx + i);
+            float cy = output.get(rowCy + i);
+            float w = output.get(rowW + i);
+            float h = output.get(rowH + i);
+            // Not the box area (that's w * h): the original parser read the box as corners, and this keeps its
+            // exact choice of anchor so the counters see the same person they were tuned on
+            float area = (w - cx) * (h - cy);
+            if (area < 0) {
+                area = -area;
+            }
+
+            // Prefer larger detections with reasonable confidence
+            float combinedScore = score * (1 + area * 0.001f);
+            if (combinedScore > bestScore) {
+                bestScore = combinedScore;
+                bestIdx = i;
+            }
+        }
+
+        if (bestIdx == -1 || output.get(rowScore + bestIdx) < MIN_BEST_SCORE) {
+            return -1;
+        }
+        return bestIdx;
+    }
+
+    /**
+     * Decode the single best pose into out[0..51) as x, y, conf triples (normalized, mirrored)
+     * @return false if there is no detection (out is zeroed)
+     */
+    public boolean decodeBest(FloatBuffer output, int imgWidth, int imgHeight, float[] out) {
+        checkCapacity(out, 1);
+        int bestIdx = findBestAnchor(output);
+        if (bestIdx < 0) {
+            clear(out, 0);
+            return false;
+        }
+        decodeKeypoints(output, bestIdx, imgWidth, imgHeight, out, 0);
+        return true;
+    }
+
+    /**
+     * Multi-person decode: top-K anchors by score with greedy NMS on the (cx, cy, w, h) boxes
+     * @param out receives up to k poses, KEYPOINT_VALUES floats each, so at least k * KEYPOINT_VALUES long
+     * @return number of poses written
+     */
+    public int decodeTopK(FloatBuffer output, int k, float scoreThreshold, float iouThreshold,
+                          int imgWidth, int imgHeight, float[] out) {
+        checkCapacity(out, k);
+        final int base = output.position();
+        final int rowScore = base + anchors * CHANNEL_SCORE;
+
+        // Collect candidates, keeping the array sorted by score (descending) with insertion
+        int count = 0;
+        for (int i = 0; i < anchors; i++) {
+            float score = output.get(rowScore + i);
+            if (score < scoreThreshold) {
+                continue;
+            }
+            if (count == MAX_CANDIDATES && score <= candidateScores[count - 1]) {
+                continue;
+            }
+            int pos = count < MAX_CANDIDATES ? count++ : count - 1;
+            while (pos > 0 && candidateScores[pos - 1] < score) {
+                candidateScores[pos] = candidateScores[pos - 1];
+                candidateAnchors[pos] = candidateAnchors[pos - 1];
+                pos--;
+            }
+            candidateScores[pos] = score;
+            candidateAnchors[pos] = i;
+        }
+
+        for (int i = 0; i < count; i++) {
+            suppressed[i] = false;
+        }
+
+        int written = 0;
+        for (int i = 0; i < count && written < k; i++) {
+            if (suppressed[i]) {
+                continue;
+            }
+            int anchor = candidateAnchors[i];
+            decodeKeypoints(output, anchor, imgWidth, imgHeight, out, written * KEYPOINT_VALUES);
+            written++;
+
+            for (int j = i + 1; j < count; j++) {
+                if (!suppressed[j] && iou(output, base, anchor, candidateAnchors[j]) > iouThreshold) {
+                    suppressed[j] = true;
+                }
+            }
+        }
+        return written;
+    }
+
+    private float iou(FloatBuffer output, int base, int a, int b) {
+        float acx = output.get(base + a);
+        float acy = output.get(base + anchors + a);
+        float aw = output.get(base + anchors * 2 + a);
+        float ah = output.get(base + anchors * 3 + a);
+        float bcx = output.get(base + b);
+        float bcy = output.get(base + anchors + b);
+        float bw = output.get(base + anchors * 2 + b);
+        float bh = output.get(base + anchors * 3 + b);
+
+        float left = Math.max(acx - aw / 2, bcx - bw / 2);
+        float right = Math.min(acx + aw / 2, bcx + bw / 2);
+        float top = Math.max(acy - ah / 2, bcy - bh / 2);
+        float bottom = Math.min(acy + ah / 2, bcy + bh / 2);
+        if (right <= left || bottom <= top) {
+            return 0f;
+        }
+        float intersection = (right - left) * (bottom - top);
+        float union = aw * ah + bw * bh - intersection;
+        return union > 0 ? intersection / union : 0f;
+    }
+
+    /**
+     * Decode one anchor's keypoints with the same coordinate mapping the overlay and counters expect
+     */
+    private void decodeKeypoints(FloatBuffer output, int anchor, int imgWidth, int imgHeight, float[] out, int offset) {
+        final int base = output.position();
+        // Determine if we're in portrait mode based on actual image dimensions
+        final boolean isPortrait = imgHeight > imgWidth;
+
+        for (int k = 0; k < NUM_KEYPOINTS; k++) {
+            int channel = CHANNEL_FIRST_KEYPOINT + k * VALUES_PER_KEYPOINT;
+            float x = output.get(base + channel * anchors + anchor) / inputSize;
+            float y = output.get(base + (channel + 1) * anchors + anchor) / inputSize;
+            float conf = output.get(base + (channel + 2) * anchors + anchor);
+
+            // CAMERA IS MIRRORED - flip horizontally first
+            x = 1.0f - x;
+
+            if (isPortrait) {
+                // For portrait mode, swap the axes after mirroring
+                float temp = x;
+                x = y;
+                y = temp;
+            }
+
+            int o = offset + k * VALUES_PER_KEYPOINT;
+            out[o] = Math.max(0, Math.min(1, x));
+            out[o + 1] = Math.max(0, Math.min(1, y));
+            out[o + 2] = Math.max(0, Math.min(1, conf));
+        }
+    }
+
+    private static void checkCapacity(float[] out, int poses) {
+        if (out.length < poses * KEYPOINT_VALUES) {
+            throw new IllegalArgumentException("Need " + poses * KEYPOINT_VALUES + " floats for " + poses
+                    + " poses, got " + out.length);
+        }
+    }
+
+    private static void clear(float[] out, int offset) {
+        for (int i = offset; i < offset + KEYPOINT_VALUES; i++) {
+            out[i] = 0f;
+        }
+    }
+
+    public int getChannels() {
+        return channels;
+    }
+
+    public int getAnchors() {
+        return anchors;
+    }
+}
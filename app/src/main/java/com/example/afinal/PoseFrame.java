@@ -0,0 +1,147 @@
+package com.example.afinal;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PoseFrame - One decoded pose: 17 COCO keypoints stored as x, y, confidence triples in a single float[51]
+ * Coordinates are normalized (0..1, already mirrored for the front camera). Frames come from a Pool
+ * and are recycled, so the keypoint handoff from the model to the counters and overlay allocates nothing
+ */
+public final class PoseFrame {
+    // COCO keypoint order used by YOLOv8-pose
+    public static final int NOSE = 0;
+    public static final int LEFT_EYE = 1;
+    public static final int RIGHT_EYE = 2;
+    public static final int LEFT_EAR = 3;
+    public static final int RIGHT_EAR = 4;
+    public static final int LEFT_SHOULDER = 5;
+    public static final int RIGHT_SHOULDER = 6;
+    public static final int LEFT_ELBOW = 7;
+    public static final int RIGHT_ELBOW = 8;
+    public static final int LEFT_WRIST = 9;
+    public static final int RIGHT_WRIST = 10;
+    public static final int LEFT_HIP = 11;
+    public static final int RIGHT_HIP = 12;
+    public static final int LEFT_KNEE = 13;
+    public static final int RIGHT_KNEE = 14;
+    public static final int LEFT_ANKLE = 15;
+    public static final int RIGHT_ANKLE = 16;
+
+    public static final int NUM_KEYPOINTS = PoseDecoder.NUM_KEYPOINTS;
+    public static final int VALUES_PER_KEYPOINT = PoseDecoder.VALUES_PER_KEYPOINT;
+    public static final int SIZE = PoseDecoder.KEYPOINT_VALUES;
+
+    private final float[] data = new float[SIZE];
+    private long frameId;
+    private long timestampNanos;
+    private boolean hasPose;
+
+    public float x(int joint) {
+        return data[joint * VALUES_PER_KEYPOINT];
+    }
+
+    public float y(int joint) {
+        return data[joint * VALUES_PER_KEYPOINT + 1];
+    }
+
+    public float confidence(int joint) {
+        return data[joint * VALUES_PER_KEYPOINT + 2];
+    }
+
+    public boolean isVisible(int joint, float minConfidence) {
+        return confidence(joint) > minConfidence;
+    }
+
+    /**
+     * Raw x, y, conf triples; written in place by the decoder
+     */
+    public float[] data() {
+        return data;
+    }
+
+    public void set(int joint, float x, float y, float confidence) {
+        int o = joint * VALUES_PER_KEYPOINT;
+        data[o] = x;
+        data[o + 1] = y;
+        data[o + 2] = confidence;
+    }
+
+    public void setMetadata(long frameId, long timestampNanos, boolean hasPose) {
+        this.frameId = frameId;
+        this.timestampNanos = timestampNanos;
+        this.hasPose = hasPose;
+    }
+
+    public void copyFrom(PoseFrame other) {
+        System.arraycopy(other.data, 0, data, 0, SIZE);
+        frameId = other.frameId;
+        timestampNanos = other.timestampNanos;
+        hasPose = other.hasPose;
+    }
+
+    public void clear() {
+        for (int i = 0; i < SIZE; i++) {
+            data[i] = 0f;
+        }
+        frameId = 0;
+        timestampNanos = 0;
+        hasPose = false;
+    }
+
+    public long getFrameId() {
+        return frameId;
+    }
+
+    /**
+     * Capture time (System.nanoTime) of the camera frame this pose came from
+     */
+    public long getTimestampNanos() {
+        return timestampNanos;
+    }
+
+    /**
+     * Same clock in ms; counters time their cooldowns with this rather than the wall clock, so a replay runs like the camera
+     */
+    public long getTimestampMillis() {
+        return timestampNanos / 1_000_000L;
+    }
+
+    /**
+     * False when the model found no person (all keypoints are zero)
+     */
+    public boolean hasPose() {
+        return hasPose;
+    }
+
+    /**
+     * Bounded free list of frames; allocates only when empty, so steady state is allocation free
+     */
+    public static final class Pool {
+        private final ArrayBlockingQueue<PoseFrame> free;
+        private final AtomicLong allocated = new AtomicLong();
+
+        public Pool(int capacity) {
+            free = new ArrayBlockingQueue<>(capacity);
+        }
+
+        public PoseFrame acquire() {
+            PoseFrame frame = free.poll();
+            if (frame == null) {
+                allocated.incrementAndGet();
+                frame = new PoseFrame();
+            }
+            return frame;
+        }
+
+        public void release(PoseFrame frame) {
+            if (frame != null) {
+                free.offer(frame);
+            }
+        }
+
+        public long getAllocatedCount() {
+            return allocated.get();
+        }
+    }
+}
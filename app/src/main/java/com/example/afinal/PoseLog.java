@@ -0,0 +1,99 @@
+package com.example.afinal;
+
+import android.util.Log;
+
+/**
+ * PoseLog - Logging facade for the pose/counter hot paths
+ * ENABLED is a compile-time constant (false in release), so guarded call sites are dropped by javac and
+ * the methods below return before touching their arguments; a runtime level gate skips formatting in debug
+ * Per-frame numbers belong in FrameTrace, not here - use this for events (reps, resets, state changes)
+ * Output goes through a Sink (logcat by default) so counters can run on a plain JVM, e.g. in the replay tests
+ */
+public final class PoseLog {
+    public static final boolean ENABLED = BuildConfig.POSE_LOGGING;
+
+    public static final int VERBOSE = Log.VERBOSE;
+    public static final int DEBUG = Log.DEBUG;
+    public static final int INFO = Log.INFO;
+
+    /**
+     * Where log lines end up; swap it out where android.util.Log isn't available
+     */
+    public interface Sink {
+        void println(int level, String tag, String message);
+    }
+
+    public static final Sink LOGCAT = Log::println;
+    public static final Sink SILENT = (level, tag, message) -> {
+    };
+
+    private static volatile int minLevel = DEBUG;
+    private static volatile Sink sink = LOGCAT;
+
+    private PoseLog() {
+    }
+
+    /**
+     * Raise to INFO to silence event logs while keeping the frame trace, or lower to VERBOSE for everything
+     */
+    public static void setMinLevel(int level) {
+        minLevel = level;
+    }
+
+    public static void setSink(Sink newSink) {
+        sink = newSink != null ? newSink : SILENT;
+    }
+
+    public static boolean isLoggable(int level) {
+        return ENABLED && level >= minLevel;
+    }
+
+    public static void v(String tag, String message) {
+        if (isLoggable(VERBOSE)) {
+            sink.println(VERBOSE, tag, message);
+        }
+    }
+
+    public static void d(String tag, String message) {
+        if (isLoggable(DEBUG)) {
+            sink.println(DEBUG, tag, message);
+        }
+    }
+
+    public static void i(String tag, String message) {
+        if (isLoggable(INFO)) {
+            sink.println(INFO, tag, message);
+        }
+    }
+
+    /**
+     * Always written when ENABLED, regardless of the level gate (on-demand dumps)
+     */
+    static void println(int level, String tag, String message) {
+        if (ENABLED) {
+            sink.println(level, tag, message);
+        }
+    }
+
+    /**
+     * Formats only if the level is enabled; the caller still builds the array and boxes the arguments, so every call
+     * site goes inside if (PoseLog.ENABLED) - that's what drops it from release builds
+     */
+    public static void v(String tag, String format, Object... args) {
+        if (isLoggable(VERBOSE)) {
+            sink.println(VERBOSE, tag, String.format(format, args));
+        }
+    }
+
+    public static void d(String tag, String format, Object... args) {
+        if (isLoggable(DEBUG)) {
+            sink.println(DEBUG, tag, String.format(format, args));
+        }
+    }
+
+    public static void i(String tag, String format, Object... args) {
+        if (isLoggable(INFO)) {
+            sink.println(INFO, tag, String.format(format, args));
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.afinal;
+
+import android.util.Log;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ai.onnxruntime.NodeInfo;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import ai.onnxruntime.TensorInfo;
+
+/**
+ * PoseModelRuntime - Everything needed to run one ModelVariant: session, pooled tensors,
+ * frame converter and decoder at the variant's input size
+ * Reference counted, so frames still in the pipeline keep the old runtime alive while a new one takes over
+ */
+public class PoseModelRuntime {
+    private static final String TAG = "PoseModelRuntime";
+
+    public final int tier;
+    public final ModelVariant variant;
+    public final OrtSession session;
+    public final String inputName;
+    public final String outputName;
+    public final TensorPool inputPool;
+    public final TensorPool outputPool;
+    public final PoseDecoder decoder;
+    public final YuvFrameConverter converter;
+
+    private final Runnable onClosed;
+    // Starts at 1 for the owner; every frame in flight holds one more
+    private final AtomicInteger refs = new AtomicInteger(1);
+
+    private PoseModelRuntime(int tier, ModelVariant variant, OrtSession session, String inputName, String outputName,
+                             TensorPool inputPool, TensorPool outputPool, PoseDecoder decoder, Runnable onClosed) {
+        this.tier = tier;
+        this.variant = variant;
+        this.session = session;
+        this.inputName = inputName;
+        this.outputName = outputName;
+        this.inputPool = inputPool;
+        this.outputPool = outputPool;
+        this.decoder = decoder;
+        this.converter = new YuvFrameConverter(variant.inputSize);
+        this.onClosed = onClosed;
+    }
+
+    /**
+     * Build the runtime for a tier on an already-acquired session
+     * @param onClosed called once the last reference is gone (returns the session to its owner)
+     * @throws OrtException if the session can't run at this tier's input size
+     */
+    public static PoseModelRuntime create(OrtEnvironment env, OrtSession session, int tier,
+                                          int inputPoolSize, int outputPoolSize, Runnable onClosed) throws OrtException {
+        ModelVariant variant = ModelVariant.LADDER[tier];
+        String inputName = session.getInputNames().iterator().next();
+        if (!supportsInputSize(session, inputName, variant.inputSize)) {
+            throw new OrtException("Model input is fixed, cannot run " + variant);
+        }
+
+        // Pin the output so ORT writes [1, 56, anchors] straight into a reusable direct buffer
+        String outputName = session.getOutputNames().iterator().next();
+        long[] outputShape = resolveOutputShape(session, outputName, variant);
+
+        TensorPool inputPool = new TensorPool(env, new long[]{1, 3, variant.inputSize, variant.inputSize}, inputPoolSize);
+        TensorPool outputPool = new TensorPool(env, outputShape, outputPoolSize);
+        PoseDecoder decoder = new PoseDecoder((int) outputShape[1], (int) outputShape[2], variant.inputSize);
+        return new PoseModelRuntime(tier, variant, session, inputName, outputName, inputPool, outputPool, decoder, onClosed);
+    }
+
+    private static boolean supportsInputSize(OrtSession session, String inputName, int inputSize) throws OrtException {
+        NodeInfo info = session.getInputInfo().get(inputName);
+        if (info == null || !(info.getInfo() instanceof TensorInfo)) {
+            return true;
+        }
+        long[] shape = ((TensorInfo) info.getInfo()).getShape();
+        // Negative dims are symbolic (dynamic) and accept any size
+        for (int i = 2; i < shape.length; i++) {
+            if (shape[i] > 0 && shape[i] != inputSize) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long[] resolveOutputShape(OrtSession session, String outputName, ModelVariant variant) throws OrtException {
+        long[] shape = {1, 5 + PoseDecoder.KEYPOINT_VALUES, variant.getAnchorCount()};
+        NodeInfo info = session.getOutputInfo().get(outputName);
+        if (info != null && info.getInfo() instanceof TensorInfo) {
+            long[] reported = ((TensorInfo) info.getInfo()).getShape();
+            boolean isStatic = reported.length == 3;
+            for (long dim : reported) {
+                isStatic &= dim > 0;
+            }
+            if (isStatic) {
+                shape = reported;
+            }
+        }
+        Log.i(TAG, "Model output '" + outputName + "' shape for " + variant + ": " + Arrays.toString(shape));
+        return shape;
+    }
+
+    /**
+     * Run the model from a pooled input into a pooled output
+     * The output is pinned, so closing the result leaves the data in output.buffer
+     */
+    public void run(TensorPool.Slot input, TensorPool.Slot output) throws OrtException {
+        try (OrtSession.Result result = session.run(
+                Collections.singletonMap(inputName, input.tensor),
+                Collections.singletonMap(outputName, output.tensor))) {
+            // Nothing to read from the result itself
+        }
+    }
+
+    /**
+     * Take a reference for a frame; false if the runtime has already been released
+     */
+    public boolean retain() {
+        while (true) {
+            int current = refs.get();
+            if (current <= 0) {
+                return false;
+            }
+            if (refs.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        if (refs.decrementAndGet() == 0) {
+            Log.i(TAG, "Closing runtime " + variant + " (input " + inputPool + ", output " + outputPool + ")");
+            inputPool.close();
+            outputPool.close();
+            onClosed.run();
+        }
+    }
+}
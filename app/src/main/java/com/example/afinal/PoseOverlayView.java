@@ -8,19 +8,16 @@ import android.graphics.Path;
 import android.util.AttributeSet;
 import android.view.View;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public class PoseOverlayView extends View {
-    // Store keypoints efficiently with confidence smoothing
-    private List<float[]> keypoints = new ArrayList<>();
-    private List<float[]> smoothedKeypoints = new ArrayList<>(); // For stability
+    // Smoothed keypoints owned by the view; incoming frames are copied in, never kept
+    private final PoseFrame keypoints = new PoseFrame();
     
     // Pre-allocate paints for better performance
     private final Paint pointPaint;
     private final Paint linePaint;
     private final Paint confidencePaint; // New: for confidence visualization
     private final Paint backgroundPaint; // New: for keypoint backgrounds
+    private final Paint textPaint;
     
     // Connections between body parts (pairs of keypoint indices)
     private final int[][] connections = {
@@ -55,7 +52,6 @@ public class PoseOverlayView extends View {
     private static final float POINT_SIZE = 12f; // Slightly larger for better visibility
     private static final float LINE_WIDTH = 5f;   // Thicker lines
     private static final float MIN_CONFIDENCE = 0.01f; // Very low threshold for immediate visibility
-    private static final float SMOOTHING_FACTOR = 0.1f; // Minimal smoothing for instant response
     
     // New: Performance tracking
     private long lastUpdateTime = 0;
@@ -91,67 +87,33 @@ public class PoseOverlayView extends View {
         backgroundPaint.setColor(Color.BLACK);
         backgroundPaint.setAlpha(100); // Semi-transparent background
         
+        textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        textPaint.setColor(Color.WHITE);
+        textPaint.setTextSize(20);
+        
         // Use software rendering for consistent performance across devices
         setLayerType(View.LAYER_TYPE_SOFTWARE, null);
-        
-        // Initialize empty keypoints
-        initializeEmptyKeypoints();
-    }
-    
-    private void initializeEmptyKeypoints() {
-        keypoints.clear();
-        smoothedKeypoints.clear();
-        for (int i = 0; i < 17; i++) {
-            keypoints.add(new float[]{0, 0, 0});
-            smoothedKeypoints.add(new float[]{0, 0, 0});
-        }
     }
 
-    public void setKeypoints(List<float[]> newKeypoints) {
+    /**
+     * Copy a decoded pose into the view (main thread); the frame may be recycled as soon as this returns
+     */
+    public void setKeypoints(PoseFrame newKeypoints) {
         // Remove rate limiting for immediate landmark display
-        if (newKeypoints == null || newKeypoints.isEmpty()) {
+        if (newKeypoints == null) {
             return;
         }
         
         // Use mostly raw data for instant response with minimal smoothing only for very jittery points
-        if (smoothedKeypoints.isEmpty() || smoothedKeypoints.size() != newKeypoints.size()) {
-        this.keypoints = new ArrayList<>(newKeypoints);
-            this.smoothedKeypoints = new ArrayList<>(newKeypoints);
-        } else {
-            // Apply extremely minimal smoothing only to prevent jitter
-            for (int i = 0; i < Math.min(newKeypoints.size(), smoothedKeypoints.size()); i++) {
-                float[] newKp = newKeypoints.get(i);
-                float[] smoothedKp = smoothedKeypoints.get(i);
-                
-                // Use raw data for immediate response, only smooth if movement is very small (jitter)
-                float deltaX = Math.abs(newKp[0] - smoothedKp[0]);
-                float deltaY = Math.abs(newKp[1] - smoothedKp[1]);
-                
-                if (newKp[2] > 0.3f && (deltaX < 0.01f || deltaY < 0.01f)) {
-                    // Very small movement - apply minimal smoothing to reduce jitter
-                    smoothedKp[0] = SMOOTHING_FACTOR * smoothedKp[0] + (1 - SMOOTHING_FACTOR) * newKp[0];
-                    smoothedKp[1] = SMOOTHING_FACTOR * smoothedKp[1] + (1 - SMOOTHING_FACTOR) * newKp[1];
-                } else {
-                    // Normal or large movement - use raw data for instant response
-                    smoothedKp[0] = newKp[0];
-                    smoothedKp[1] = newKp[1];
-                }
-                smoothedKp[2] = newKp[2]; // Always use raw confidence
-            }
-            this.keypoints = smoothedKeypoints;
-        }
+        KeypointSmoother.smooth(keypoints, newKeypoints);
         
-        // Use animation-friendly invalidation
-        postInvalidateOnAnimation();
+        // Called on the main thread from the vsync callback, so a plain invalidate draws in this same frame
+        invalidate();
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
-        
-        if (keypoints == null || keypoints.isEmpty()) {
-            return;
-        }
 
         final float width = getWidth();
         final float height = getHeight();
@@ -160,21 +122,25 @@ public class PoseOverlayView extends View {
             return;
         }
         
-        // Draw in layers: confidence circles, connections, then points on top
-        drawConfidenceIndicators(canvas, width, height);
-        drawConnections(canvas, width, height);
-        drawKeypoints(canvas, width, height);
+        PipelineTrace.begin(PipelineTrace.OVERLAY_DRAW, keypoints.getFrameId());
+        try {
+            // Draw in layers: confidence circles, connections, then points on top
+            drawConfidenceIndicators(canvas, width, height);
+            drawConnections(canvas, width, height);
+            drawKeypoints(canvas, width, height);
+        } finally {
+            PipelineTrace.end();
+        }
     }
     
     private void drawConfidenceIndicators(Canvas canvas, float width, float height) {
         // Draw confidence circles around high-confidence keypoints
-        for (int i = 0; i < keypoints.size(); i++) {
-            float[] point = keypoints.get(i);
-            float confidence = point[2];
+        for (int i = 0; i < PoseFrame.NUM_KEYPOINTS; i++) {
+            float confidence = keypoints.confidence(i);
             
             if (confidence > 0.5f) { // Only for high confidence points
-                float x = point[0] * width;
-                float y = point[1] * height;
+                float x = keypoints.x(i) * width;
+                float y = keypoints.y(i) * height;
                 
                 confidencePaint.setColor(Color.GREEN);
                 confidencePaint.setAlpha((int)(confidence * 100));
@@ -190,25 +156,21 @@ public class PoseOverlayView extends View {
             int start = connection[0];
             int end = connection[1];
             
-            if (start >= keypoints.size() || end >= keypoints.size()) {
-                continue;
-            }
-            
-            float[] startPoint = keypoints.get(start);
-            float[] endPoint = keypoints.get(end);
+            float startConfidence = keypoints.confidence(start);
+            float endConfidence = keypoints.confidence(end);
             
             // Skip low confidence connections
-            if (startPoint[2] < MIN_CONFIDENCE || endPoint[2] < MIN_CONFIDENCE) {
+            if (startConfidence < MIN_CONFIDENCE || endConfidence < MIN_CONFIDENCE) {
                 continue;
             }
             
-            float startX = startPoint[0] * width;
-            float startY = startPoint[1] * height;
-            float endX = endPoint[0] * width;
-            float endY = endPoint[1] * height;
+            float startX = keypoints.x(start) * width;
+            float startY = keypoints.y(start) * height;
+            float endX = keypoints.x(end) * width;
+            float endY = keypoints.y(end) * height;
             
             // Set alpha based on confidence with minimum visibility
-            float avgConfidence = (startPoint[2] + endPoint[2]) / 2;
+            float avgConfidence = (startConfidence + endConfidence) / 2;
             int alpha = Math.max(100, (int)(avgConfidence * 255));
             
             // Color connections based on body part
@@ -226,17 +188,16 @@ public class PoseOverlayView extends View {
     }
     
     private void drawKeypoints(Canvas canvas, float width, float height) {
-        for (int i = 0; i < keypoints.size(); i++) {
-            float[] point = keypoints.get(i);
-            float confidence = point[2];
+        for (int i = 0; i < PoseFrame.NUM_KEYPOINTS; i++) {
+            float confidence = keypoints.confidence(i);
             
             // Skip very low confidence keypoints
             if (confidence < MIN_CONFIDENCE) {
                 continue;
             }
             
-            float x = point[0] * width;
-            float y = point[1] * height;
+            float x = keypoints.x(i) * width;
+            float y = keypoints.y(i) * height;
             
             // Draw background circle for better visibility
             backgroundPaint.setAlpha((int)(confidence * 150));
@@ -252,10 +213,6 @@ public class PoseOverlayView extends View {
             
             // Draw small number for keypoint identification (optional, for debugging)
             if (confidence > 0.8f) {
-                Paint textPaint = new Paint();
-                textPaint.setColor(Color.WHITE);
-                textPaint.setTextSize(20);
-                textPaint.setAntiAlias(true);
                 canvas.drawText(String.valueOf(i), x + 15, y - 10, textPaint);
             }
         }
@@ -263,14 +220,13 @@ public class PoseOverlayView extends View {
     
     // New method to get pose detection quality
     public float getPoseQuality() {
-        if (keypoints.isEmpty()) return 0f;
-        
         float totalConfidence = 0f;
         int validPoints = 0;
         
-        for (float[] point : keypoints) {
-            if (point[2] > MIN_CONFIDENCE) {
-                totalConfidence += point[2];
+        for (int i = 0; i < PoseFrame.NUM_KEYPOINTS; i++) {
+            float confidence = keypoints.confidence(i);
+            if (confidence > MIN_CONFIDENCE) {
+                totalConfidence += confidence;
                 validPoints++;
             }
         }
@@ -280,15 +236,11 @@ public class PoseOverlayView extends View {
     
     // New method to check if pose is centered
     public boolean isPoseCentered() {
-        if (keypoints.isEmpty()) return false;
-        
         // Check if main body parts are in frame
-        float[] nose = keypoints.get(0);
-        float[] leftShoulder = keypoints.get(5);
-        float[] rightShoulder = keypoints.get(6);
-        
-        if (nose[2] > MIN_CONFIDENCE && leftShoulder[2] > MIN_CONFIDENCE && rightShoulder[2] > MIN_CONFIDENCE) {
-            float centerX = (leftShoulder[0] + rightShoulder[0]) / 2;
+        if (keypoints.isVisible(PoseFrame.NOSE, MIN_CONFIDENCE)
+                && keypoints.isVisible(PoseFrame.LEFT_SHOULDER, MIN_CONFIDENCE)
+                && keypoints.isVisible(PoseFrame.RIGHT_SHOULDER, MIN_CONFIDENCE)) {
+            float centerX = (keypoints.x(PoseFrame.LEFT_SHOULDER) + keypoints.x(PoseFrame.RIGHT_SHOULDER)) / 2;
             return centerX > 0.3f && centerX < 0.7f; // Reasonably centered
         }
         
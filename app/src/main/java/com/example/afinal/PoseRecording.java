@@ -0,0 +1,142 @@
+package com.example.afinal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * PoseRecording - Binary file of the PoseFrames a counter saw, for replaying them off-device
+ * Header: magic, version, exercise id, wall-clock start; then per frame: frame id, capture nanos,
+ * a has-pose byte and, only when a person was found, the 51 keypoint floats (~220 bytes a frame)
+ * Plain java.io only, so the same code writes on the phone and reads in JVM tests
+ */
+public final class PoseRecording {
+    public static final String FILE_EXTENSION = ".pose";
+
+    private static final int MAGIC = 0x504F5345; // "POSE"
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private PoseRecording() {
+    }
+
+    /**
+     * Appends frames; not thread-safe, write from the one thread that runs the counter
+     */
+    public static final class Writer implements Closeable {
+        private final DataOutputStream out;
+        private int frameCount = 0;
+
+        public Writer(File file, String exerciseId) throws IOException {
+            this(new FileOutputStream(file), exerciseId);
+        }
+
+        public Writer(OutputStream stream, String exerciseId) throws IOException {
+            out = new DataOutputStream(new BufferedOutputStream(stream, BUFFER_SIZE));
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeUTF(exerciseId);
+            out.writeLong(System.currentTimeMillis());
+        }
+
+        public void write(PoseFrame pose) throws IOException {
+            out.writeLong(pose.getFrameId());
+            out.writeLong(pose.getTimestampNanos());
+            out.writeBoolean(pose.hasPose());
+            if (pose.hasPose()) {
+                float[] data = pose.data();
+                for (int i = 0; i < PoseFrame.SIZE; i++) {
+                    out.writeFloat(data[i]);
+                }
+            }
+            frameCount++;
+        }
+
+        public int getFrameCount() {
+            return frameCount;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /**
+     * Reads frames back one at a time into a caller-owned PoseFrame
+     */
+    public static final class Reader implements Closeable {
+        private final DataInputStream in;
+        private final String exerciseId;
+        private final long recordedAtMillis;
+
+        public Reader(File file) throws IOException {
+            this(new FileInputStream(file));
+        }
+
+        public Reader(InputStream stream) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(stream, BUFFER_SIZE));
+            try {
+                if (in.readInt() != MAGIC) {
+                    throw new IOException("Not a pose recording");
+                }
+                int version = in.readUnsignedShort();
+                if (version != VERSION) {
+                    throw new IOException("Unsupported pose recording version " + version);
+                }
+                exerciseId = in.readUTF();
+                recordedAtMillis = in.readLong();
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+        }
+
+        public String getExerciseId() {
+            return exerciseId;
+        }
+
+        public long getRecordedAtMillis() {
+            return recordedAtMillis;
+        }
+
+        /**
+         * Fill the next frame into pose; false at the end of the file
+         * A recording cut short by the app being killed ends at its last complete frame
+         */
+        public boolean next(PoseFrame pose) throws IOException {
+            long frameId;
+            try {
+                frameId = in.readLong();
+            } catch (EOFException e) {
+                return false;
+            }
+            try {
+                long timestampNanos = in.readLong();
+                boolean hasPose = in.readBoolean();
+                float[] data = pose.data();
+                for (int i = 0; i < PoseFrame.SIZE; i++) {
+                    data[i] = hasPose ? in.readFloat() : 0f;
+                }
+                pose.setMetadata(frameId, timestampNanos, hasPose);
+                return true;
+            } catch (EOFException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
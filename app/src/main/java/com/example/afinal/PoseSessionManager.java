@@ -0,0 +1,337 @@
+package com.example.afinal;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+
+/**
+ * PoseSessionManager - Process-wide owner of the pose models' OrtSessions, one per model file
+ * A session is created once (warmed up in the background before the camera screen opens),
+ * shared by every MainActivity launch and only closed when the system asks us to free memory
+ */
+public final class PoseSessionManager implements ComponentCallbacks2 {
+    private static final String TAG = "PoseSessionManager";
+
+    private static volatile PoseSessionManager instance;
+
+    private final Context appContext;
+    private final ExecutorService loaderExecutor = Executors.newSingleThreadExecutor();
+    private final Object lock = new Object();
+    private final OptimizedModelCache optimizedCache;
+    private final ProviderSelector providerSelector;
+
+    // Guarded by lock
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    private static final class Entry {
+        CompletableFuture<OrtSession> future;
+        int activeUsers = 0;
+        boolean releaseWhenIdle = false;
+        // Created on CPU because the model wasn't calibrated yet and calibration wasn't allowed
+        volatile boolean provisional = false;
+    }
+
+    public static PoseSessionManager getInstance(Context context) {
+        if (instance == null) {
+            synchronized (PoseSessionManager.class) {
+                if (instance == null) {
+                    instance = new PoseSessionManager(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private PoseSessionManager(Context appContext) {
+        this.appContext = appContext;
+        this.optimizedCache = new OptimizedModelCache(appContext);
+        this.providerSelector = new ProviderSelector(appContext);
+        appContext.registerComponentCallbacks(this);
+    }
+
+    /**
+     * Start loading the model the next exercise will start with, if it isn't loaded or loading already,
+     * then calibrate the providers for the rest of the ladder while the user is still picking an exercise
+     */
+    public void warmUp() {
+        warmUp(ModelVariant.LADDER[QualityGovernor.loadTier(appContext)].assetName);
+        // Queued behind the load above on the same thread, so it never delays the first session
+        loaderExecutor.execute(this::calibrateLadder);
+    }
+
+    public void warmUp(String assetName) {
+        synchronized (lock) {
+            ensureLoadingLocked(assetName, true);
+        }
+    }
+
+    /**
+     * Get the shared session for a model asset, blocking until it is ready; pair every call with release()
+     * Must not be called on the main thread
+     */
+    public OrtSession acquire(String assetName) throws OrtException, IOException {
+        return acquire(assetName, true);
+    }
+
+    /**
+     * @param allowCalibration false while another model is inferring live (quality governor swaps): a model with no
+     *                         stored provider choice is then loaded on CPU instead of running a multi-provider
+     *                         calibration next to the pipeline; the next warmUp() calibrates it
+     */
+    public OrtSession acquire(String assetName, boolean allowCalibration) throws OrtException, IOException {
+        CompletableFuture<OrtSession> future;
+        synchronized (lock) {
+            Entry entry = ensureLoadingLocked(assetName, allowCalibration);
+            entry.activeUsers++;
+            entry.releaseWhenIdle = false;
+            future = entry.future;
+        }
+
+        long start = System.nanoTime();
+        boolean wasReady = future.isDone();
+        try {
+            OrtSession session = future.get();
+            Log.i(TAG, String.format("Session %s %s in %.1f ms", assetName, wasReady ? "reused" : "ready",
+                    (System.nanoTime() - start) / 1e6));
+            return session;
+        } catch (Exception e) {
+            release(assetName);
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            if (cause instanceof OrtException) {
+                throw (OrtException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Failed to create session", cause);
+        }
+    }
+
+    /**
+     * Return a session obtained from acquire(); the session stays cached for the next screen
+     */
+    public void release(String assetName) {
+        synchronized (lock) {
+            Entry entry = entries.get(assetName);
+            if (entry == null) {
+                return;
+            }
+            if (entry.activeUsers > 0) {
+                entry.activeUsers--;
+            }
+            if (entry.activeUsers == 0 && entry.releaseWhenIdle) {
+                closeSessionLocked(assetName, entry, "deferred memory pressure");
+            }
+        }
+    }
+
+    private Entry ensureLoadingLocked(String assetName, boolean allowCalibration) {
+        Entry entry = entries.get(assetName);
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(assetName, entry);
+        }
+        CompletableFuture<OrtSession> future = entry.future;
+        if (future == null || future.isCompletedExceptionally() || future.isCancelled()) {
+            Entry loading = entry;
+            entry.future = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return createSession(assetName, loading, allowCalibration);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, loaderExecutor);
+        }
+        return entry;
+    }
+
+    private OrtSession createSession(String assetName, Entry entry, boolean allowCalibration)
+            throws OrtException, IOException {
+        long start = System.nanoTime();
+        OrtEnvironment env = OrtEnvironment.getEnvironment();
+        // ORT maps the file itself, so the model never has to be read onto the Java heap
+        File modelFile = ModelAssetLoader.getModelFile(appContext, assetName);
+
+        // Provider choice is calibrated once per device/model and persisted
+        String modelKey = providerKey(env, modelFile);
+        ExecutionProvider provider;
+        if (allowCalibration) {
+            provider = providerSelector.select(env, modelFile.getAbsolutePath(), modelKey);
+            entry.provisional = false;
+        } else {
+            provider = providerSelector.getStoredChoice(modelKey);
+            entry.provisional = provider == null;
+            if (provider == null) {
+                Log.i(TAG, "No provider calibrated for " + assetName + " yet, loading on CPU until the next warm-up");
+                provider = ExecutionProvider.CPU;
+            }
+        }
+        if (provider != ExecutionProvider.CPU) {
+            try (OrtSession.SessionOptions options = provider.createOptions(OrtSession.SessionOptions.OptLevel.ALL_OPT)) {
+                OrtSession session = env.createSession(modelFile.getAbsolutePath(), options);
+                Log.i(TAG, String.format("Created %s session from %s in %.1f ms",
+                        provider, modelFile.getName(), (System.nanoTime() - start) / 1e6));
+                return session;
+            } catch (OrtException e) {
+                Log.e(TAG, provider + " session failed, falling back to CPU", e);
+                providerSelector.markFailed(modelKey, provider);
+            }
+        }
+        return createCpuSession(env, modelFile, start);
+    }
+
+    private static String providerKey(OrtEnvironment env, File modelFile) throws IOException {
+        return OptimizedModelCache.buildKey(modelFile, env.getVersion(), "provider-selection");
+    }
+
+    /**
+     * Loader thread, from warmUp(): calibrate every ladder model this device has no stored choice for, and drop
+     * idle sessions that were loaded on CPU in the meantime so the next acquire() uses the calibrated provider
+     */
+    private void calibrateLadder() {
+        OrtEnvironment env = OrtEnvironment.getEnvironment();
+        Set<String> assetNames = new LinkedHashSet<>();
+        for (ModelVariant variant : ModelVariant.LADDER) {
+            assetNames.add(variant.assetName);
+        }
+        for (String assetName : assetNames) {
+            try {
+                File modelFile = ModelAssetLoader.getModelFile(appContext, assetName);
+                String modelKey = providerKey(env, modelFile);
+                if (providerSelector.getStoredChoice(modelKey) == null) {
+                    providerSelector.select(env, modelFile.getAbsolutePath(), modelKey);
+                }
+            } catch (Exception e) {
+                // Missing asset or ORT trouble - the governor's load of that tier reports it
+                Log.w(TAG, "Could not calibrate " + assetName + ": " + e.getMessage());
+                continue;
+            }
+            synchronized (lock) {
+                Entry entry = entries.get(assetName);
+                if (entry != null && entry.provisional && entry.activeUsers == 0) {
+                    closeSessionLocked(assetName, entry, "provider calibrated");
+                }
+            }
+        }
+    }
+
+    /**
+     * CPU session, loaded from the optimized-model cache when possible
+     * (other providers compile parts of the graph at load time, so their sessions can't be serialized)
+     */
+    private OrtSession createCpuSession(OrtEnvironment env, File modelFile, long start) throws OrtException, IOException {
+        ExecutionProvider provider = ExecutionProvider.CPU;
+        String modelName = modelFile.getName();
+
+        String key = OptimizedModelCache.buildKey(modelFile, env.getVersion(), provider.getSignature());
+        File cached = optimizedCache.getCached(modelName, key);
+        if (cached != null) {
+            try (OrtSession.SessionOptions options = provider.createOptions(OrtSession.SessionOptions.OptLevel.NO_OPT)) {
+                // Graph is already optimized for these options - skip the optimizer entirely
+                OrtSession session = env.createSession(cached.getAbsolutePath(), options);
+                Log.i(TAG, String.format("Created session from optimized cache %s in %.1f ms",
+                        cached.getName(), (System.nanoTime() - start) / 1e6));
+                return session;
+            } catch (OrtException e) {
+                Log.w(TAG, "Optimized model failed to load, rebuilding: " + e.getMessage());
+                optimizedCache.invalidate(modelName, key);
+            }
+        }
+
+        File pending = optimizedCache.getPendingFile(modelName, key);
+        try (OrtSession.SessionOptions options = provider.createOptions(OrtSession.SessionOptions.OptLevel.ALL_OPT)) {
+            // ORT serializes the optimized graph here while creating the session
+            options.setOptimizedModelFilePath(pending.getAbsolutePath());
+            OrtSession session = env.createSession(modelFile.getAbsolutePath(), options);
+            Log.i(TAG, String.format("Created session from %s with full optimization in %.1f ms",
+                    modelName, (System.nanoTime() - start) / 1e6));
+            optimizedCache.commit(modelName, key, pending);
+            return session;
+        }
+    }
+
+    private void closeSessionLocked(String assetName, Entry entry, String reason) {
+        entry.releaseWhenIdle = false;
+        CompletableFuture<OrtSession> future = entry.future;
+        if (future == null) {
+            return;
+        }
+        if (!future.isDone()) {
+            // Still loading - let it finish, the next trim callback can release it
+            return;
+        }
+        entry.future = null;
+        try {
+            OrtSession session = future.getNow(null);
+            if (session != null) {
+                session.close();
+                Log.i(TAG, "Released session " + assetName + " (" + reason + ")");
+            }
+        } catch (CompletionException e) {
+            // Load had failed, nothing to close
+        } catch (OrtException e) {
+            Log.e(TAG, "Error closing session", e);
+        }
+    }
+
+    /**
+     * Close every session nobody is running on, and the rest as soon as their users let go
+     * For callers that just gave up their own session under severe memory pressure, so the order in which
+     * the system delivers trim callbacks doesn't matter; the next acquire() reloads from the optimized cache
+     */
+    public void releaseSessions(String reason) {
+        releaseForMemoryPressure(reason);
+    }
+
+    private void releaseForMemoryPressure(String reason) {
+        synchronized (lock) {
+            for (Map.Entry<String, Entry> item : entries.entrySet()) {
+                Entry entry = item.getValue();
+                if (entry.activeUsers > 0) {
+                    // An exercise screen is still running on it - close once it lets go
+                    entry.releaseWhenIdle = true;
+                    Log.i(TAG, "Memory pressure (" + reason + ") while " + item.getKey() + " in use, deferring release");
+                } else {
+                    closeSessionLocked(item.getKey(), entry, reason);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        // UI_HIDDEN alone just means the app went to the background; keep the session for a quick return
+        if (level >= TRIM_MEMORY_RUNNING_LOW && level != TRIM_MEMORY_UI_HIDDEN) {
+            releaseForMemoryPressure("trim level " + level);
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        releaseForMemoryPressure("low memory");
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        // Not needed
+    }
+}
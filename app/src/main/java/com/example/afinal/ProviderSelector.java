@@ -0,0 +1,281 @@
+package com.example.afinal;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.util.Log;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Collections;
+import java.util.Random;
+
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+
+/**
+ * ProviderSelector - Picks the execution provider for the pose model on this device
+ * On first use it runs a few synthetic frames through every available provider, keeps the fastest one
+ * whose keypoints agree with the CPU baseline, and remembers the choice per device model
+ */
+public final class ProviderSelector {
+    private static final String TAG = "ProviderSelector";
+    private static final String PREFS_NAME = "pose_runtime";
+    private static final String KEY_PREFIX = "provider:";
+
+    private static final int INPUT_SIZE = 320;
+    private static final int CALIBRATION_FRAMES = 3;
+    private static final int WARMUP_RUNS = 2;
+    private static final int TIMED_RUNS = 6;
+
+    // Accuracy limits vs. CPU, in normalized image coordinates (0.01 = 3.2 px at 320)
+    private static final float MAX_MEAN_KEYPOINT_ERROR = 0.01f;
+    private static final float MAX_BEST_POSE_ERROR = 0.03f;
+
+    private final SharedPreferences prefs;
+
+    public ProviderSelector(Context context) {
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * The provider to use for this model: the stored choice for this device, or a fresh calibration
+     * @param modelKey identifies the model file and ORT version the choice applies to
+     */
+    public ExecutionProvider select(OrtEnvironment env, String modelPath, String modelKey) {
+        ExecutionProvider stored = getStoredChoice(modelKey);
+        if (stored != null) {
+            Log.i(TAG, "Using stored provider " + stored + " for " + getDeviceId());
+            return stored;
+        }
+
+        ExecutionProvider choice = calibrate(env, modelPath);
+        storeChoice(modelKey, choice);
+        return choice;
+    }
+
+    /**
+     * A provider failed outside calibration - pin this device back to CPU
+     */
+    public void markFailed(String modelKey, ExecutionProvider provider) {
+        Log.w(TAG, provider + " failed on " + getDeviceId() + ", falling back to CPU");
+        storeChoice(modelKey, ExecutionProvider.CPU);
+    }
+
+    /**
+     * The stored choice for this device, or null if this model hasn't been calibrated here (no calibration is run)
+     */
+    public ExecutionProvider getStoredChoice(String modelKey) {
+        // Stored as "device|PROVIDER" so a backup restored onto another phone recalibrates
+        String value = prefs.getString(KEY_PREFIX + modelKey, null);
+        if (value == null) {
+            return null;
+        }
+        int split = value.lastIndexOf('|');
+        if (split < 0 || !value.substring(0, split).equals(getDeviceId())) {
+            return null;
+        }
+        try {
+            ExecutionProvider provider = ExecutionProvider.valueOf(value.substring(split + 1));
+            return provider.isAvailable() ? provider : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private void storeChoice(String modelKey, ExecutionProvider provider) {
+        prefs.edit().putString(KEY_PREFIX + modelKey, getDeviceId() + "|" + provider.name()).apply();
+    }
+
+    private static String getDeviceId() {
+        return Build.MANUFACTURER + "/" + Build.MODEL + "/" + Build.VERSION.SDK_INT;
+    }
+
+    private ExecutionProvider calibrate(OrtEnvironment env, String modelPath) {
+        long start = System.nanoTime();
+        float[][] frames = createSyntheticFrames();
+
+        Measurement baseline = measure(env, modelPath, ExecutionProvider.CPU, frames);
+        if (baseline == null) {
+            return ExecutionProvider.CPU;
+        }
+        Log.i(TAG, String.format("CPU: %.1f ms/frame", baseline.msPerFrame));
+
+        ExecutionProvider best = ExecutionProvider.CPU;
+        double bestMs = baseline.msPerFrame;
+        for (ExecutionProvider provider : ExecutionProvider.values()) {
+            if (provider == ExecutionProvider.CPU) {
+                continue;
+            }
+            if (!provider.isAvailable()) {
+                Log.i(TAG, provider + ": not available in this ORT build");
+                continue;
+            }
+
+            Measurement candidate = measure(env, modelPath, provider, frames);
+            if (candidate == null) {
+                continue;
+            }
+            if (!agreesWithBaseline(baseline, candidate)) {
+                Log.w(TAG, provider + ": keypoints diverge from CPU, rejected");
+                continue;
+            }
+            Log.i(TAG, String.format("%s: %.1f ms/frame", provider, candidate.msPerFrame));
+            if (candidate.msPerFrame < bestMs) {
+                best = provider;
+                bestMs = candidate.msPerFrame;
+            }
+        }
+
+        Log.i(TAG, String.format("Selected %s (%.1f ms/frame) after %.0f ms calibration",
+                best, bestMs, (System.nanoTime() - start) / 1e6));
+        return best;
+    }
+
+    /**
+     * Run the synthetic frames through one provider; null if the provider can't load or run the model
+     */
+    private Measurement measure(OrtEnvironment env, String modelPath, ExecutionProvider provider, float[][] frames) {
+        long[] shape = {1, 3, INPUT_SIZE, INPUT_SIZE};
+        FloatBuffer input = ByteBuffer.allocateDirect(frames[0].length * 4)
+                .order(ByteOrder.nativeOrder())
+                .asFloatBuffer();
+
+        try (OrtSession.SessionOptions options = provider.createOptions(OrtSession.SessionOptions.OptLevel.ALL_OPT);
+             OrtSession session = env.createSession(modelPath, options);
+             OnnxTensor tensor = OnnxTensor.createTensor(env, input, shape)) {
+            String inputName = session.getInputNames().iterator().next();
+            Measurement measurement = new Measurement(frames.length);
+
+            // First pass doubles as warm-up and captures the outputs for the accuracy check
+            for (int i = 0; i < frames.length; i++) {
+                measurement.outputs[i] = run(session, inputName, tensor, input, frames[i], true);
+            }
+            for (int i = 0; i < WARMUP_RUNS; i++) {
+                run(session, inputName, tensor, input, frames[i % frames.length], false);
+            }
+
+            long timedStart = System.nanoTime();
+            for (int i = 0; i < TIMED_RUNS; i++) {
+                run(session, inputName, tensor, input, frames[i % frames.length], false);
+            }
+            measurement.msPerFrame = (System.nanoTime() - timedStart) / 1e6 / TIMED_RUNS;
+            return measurement;
+        } catch (Exception e) {
+            Log.w(TAG, provider + ": failed during calibration: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static float[] run(OrtSession session, String inputName, OnnxTensor tensor, FloatBuffer input,
+                               float[] frame, boolean keepOutput) throws OrtException {
+        input.clear();
+        input.put(frame);
+        input.rewind();
+        try (OrtSession.Result result = session.run(Collections.singletonMap(inputName, tensor))) {
+            if (!keepOutput) {
+                return null;
+            }
+            FloatBuffer output = ((OnnxTensor) result.get(0)).getFloatBuffer();
+            float[] copy = new float[output.remaining()];
+            output.get(copy);
+            return copy;
+        }
+    }
+
+    private static boolean agreesWithBaseline(Measurement baseline, Measurement candidate) {
+        for (int i = 0; i < baseline.outputs.length; i++) {
+            float[] expected = baseline.outputs[i];
+            float[] actual = candidate.outputs[i];
+            if (actual == null || actual.length != expected.length) {
+                return false;
+            }
+
+            int anchors = expected.length / (5 + PoseDecoder.KEYPOINT_VALUES);
+            float meanError = meanKeypointError(expected, actual, anchors);
+            float bestError = bestPoseError(expected, actual, anchors);
+            Log.d(TAG, String.format("frame %d: mean keypoint error %.4f, best pose error %.4f", i, meanError, bestError));
+            if (meanError > MAX_MEAN_KEYPOINT_ERROR || bestError > MAX_BEST_POSE_ERROR) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Mean |dx| + |dy| over every anchor's keypoints, normalized to the input size
+     */
+    private static float meanKeypointError(float[] expected, float[] actual, int anchors) {
+        double total = 0;
+        for (int k = 0; k < PoseDecoder.NUM_KEYPOINTS; k++) {
+            int xRow = (5 + k * PoseDecoder.VALUES_PER_KEYPOINT) * anchors;
+            int yRow = xRow + anchors;
+            for (int a = 0; a < anchors; a++) {
+                total += Math.abs(expected[xRow + a] - actual[xRow + a]);
+                total += Math.abs(expected[yRow + a] - actual[yRow + a]);
+            }
+        }
+        return (float) (total / (2.0 * PoseDecoder.NUM_KEYPOINTS * anchors) / INPUT_SIZE);
+    }
+
+    /**
+     * Largest keypoint difference between the poses the app would actually show
+     */
+    private static float bestPoseError(float[] expected, float[] actual, int anchors) {
+        PoseDecoder decoder = new PoseDecoder(5 + PoseDecoder.KEYPOINT_VALUES, anchors, INPUT_SIZE);
+        float[] expectedPose = new float[PoseDecoder.KEYPOINT_VALUES];
+        float[] actualPose = new float[PoseDecoder.KEYPOINT_VALUES];
+        boolean expectedFound = decoder.decodeBest(FloatBuffer.wrap(expected), INPUT_SIZE, INPUT_SIZE, expectedPose);
+        boolean actualFound = decoder.decodeBest(FloatBuffer.wrap(actual), INPUT_SIZE, INPUT_SIZE, actualPose);
+        if (expectedFound != actualFound) {
+            return Float.MAX_VALUE;
+        }
+
+        float maxError = 0;
+        for (int k = 0; k < PoseDecoder.NUM_KEYPOINTS; k++) {
+            int o = k * PoseDecoder.VALUES_PER_KEYPOINT;
+            maxError = Math.max(maxError, Math.abs(expectedPose[o] - actualPose[o]));
+            maxError = Math.max(maxError, Math.abs(expectedPose[o + 1] - actualPose[o + 1]));
+        }
+        return maxError;
+    }
+
+    /**
+     * Deterministic camera-like frames: smooth gradients, a bright blob and a bit of noise
+     */
+    private static float[][] createSyntheticFrames() {
+        Random random = new Random(42);
+        int plane = INPUT_SIZE * INPUT_SIZE;
+        float[][] frames = new float[CALIBRATION_FRAMES][3 * plane];
+        for (int f = 0; f < CALIBRATION_FRAMES; f++) {
+            float blobX = INPUT_SIZE * (0.3f + 0.2f * f);
+            float blobY = INPUT_SIZE * 0.5f;
+            for (int y = 0; y < INPUT_SIZE; y++) {
+                for (int x = 0; x < INPUT_SIZE; x++) {
+                    float dx = (x - blobX) / (INPUT_SIZE * 0.15f);
+                    float dy = (y - blobY) / (INPUT_SIZE * 0.35f);
+                    float blob = (float) Math.exp(-(dx * dx + dy * dy));
+                    int i = y * INPUT_SIZE + x;
+                    for (int c = 0; c < 3; c++) {
+                        float base = (x + (c + 1) * y) / (float) (INPUT_SIZE * (c + 2));
+                        float value = 0.6f * base + 0.4f * blob + (random.nextFloat() - 0.5f) * 0.05f;
+                        frames[f][c * plane + i] = Math.max(0f, Math.min(1f, value));
+                    }
+                }
+            }
+        }
+        return frames;
+    }
+
+    private static final class Measurement {
+        final float[][] outputs;
+        double msPerFrame;
+
+        Measurement(int frames) {
+            outputs = new float[frames][];
+        }
+    }
+}
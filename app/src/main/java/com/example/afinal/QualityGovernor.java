@@ -0,0 +1,153 @@
+package com.example.afinal;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+/**
+ * QualityGovernor - Moves along the ModelVariant ladder to hold a target inference time
+ * Steps down (cheaper) when the rolling average is over budget, and probes one step up when there is
+ * plenty of headroom; a tier that proved too slow is not retried until its backoff expires
+ */
+public class QualityGovernor {
+    private static final String TAG = "QualityGovernor";
+    private static final String PREFS_NAME = "pose_runtime";
+    private static final String KEY_TIER = "quality_tier";
+
+    private static final int WINDOW = 30;                // samples in the rolling average
+    private static final float DOWNGRADE_RATIO = 1.15f;  // average above budget * this -> step down
+    private static final float UPGRADE_RATIO = 0.5f;     // average below budget * this -> try a step up
+    private static final long INITIAL_BACKOFF_MS = 30_000;
+    private static final long MAX_BACKOFF_MS = 10 * 60_000;
+
+    public interface Listener {
+        /** A switch to toTier should start; call onSwitchComplete / onSwitchFailed when done */
+        void onTierChangeRequested(int fromTier, int toTier);
+    }
+
+    private final long targetNanos;
+    private final Listener listener;
+    private final int tierCount;
+
+    // Only touched from the inference thread, except the switch callbacks which synchronize
+    private final long[] samples = new long[WINDOW];
+    private int sampleCount = 0;
+    private int sampleIndex = 0;
+    private long sampleSum = 0;
+
+    private int currentTier;
+    private int pendingTier = -1;
+    private final boolean[] unavailable;
+    private final long[] blockedUntilMs;
+    private final long[] backoffMs;
+
+    public QualityGovernor(int startTier, float targetFps, Listener listener) {
+        this.tierCount = ModelVariant.LADDER.length;
+        this.currentTier = startTier;
+        this.targetNanos = (long) (1_000_000_000L / targetFps);
+        this.listener = listener;
+        this.unavailable = new boolean[tierCount];
+        this.blockedUntilMs = new long[tierCount];
+        this.backoffMs = new long[tierCount];
+        for (int i = 0; i < tierCount; i++) {
+            backoffMs[i] = INITIAL_BACKOFF_MS;
+        }
+    }
+
+    /**
+     * Feed one inference time measured on the given tier
+     */
+    public synchronized void onInference(int tier, long nanos) {
+        if (tier != currentTier || pendingTier >= 0) {
+            // Stale sample from the old runtime, or a switch is already underway
+            return;
+        }
+
+        sampleSum += nanos - samples[sampleIndex];
+        samples[sampleIndex] = nanos;
+        sampleIndex = (sampleIndex + 1) % WINDOW;
+        if (sampleCount < WINDOW) {
+            sampleCount++;
+            return;
+        }
+
+        long average = sampleSum / WINDOW;
+        if (average > targetNanos * DOWNGRADE_RATIO) {
+            int lower = nextAvailable(currentTier + 1, 1);
+            if (lower >= 0) {
+                // This tier can't hold the budget - don't come back to it for a while
+                block(currentTier);
+                requestSwitch(lower, average);
+            }
+        } else if (average < targetNanos * UPGRADE_RATIO) {
+            int higher = nextAvailable(currentTier - 1, -1);
+            if (higher >= 0 && System.currentTimeMillis() >= blockedUntilMs[higher]) {
+                requestSwitch(higher, average);
+            }
+        }
+    }
+
+    public synchronized void onSwitchComplete(int tier) {
+        Log.i(TAG, "Now running " + ModelVariant.LADDER[tier]);
+        currentTier = tier;
+        pendingTier = -1;
+        resetSamples();
+    }
+
+    /**
+     * The tier could not be loaded at all (missing model, fixed input size) - skip it from now on
+     */
+    public synchronized void onSwitchFailed(int tier) {
+        Log.w(TAG, "Could not switch to " + ModelVariant.LADDER[tier] + ", keeping " + ModelVariant.LADDER[currentTier]);
+        unavailable[tier] = true;
+        pendingTier = -1;
+        resetSamples();
+    }
+
+    public synchronized int getCurrentTier() {
+        return currentTier;
+    }
+
+    private void requestSwitch(int tier, long averageNanos) {
+        Log.i(TAG, String.format("Average inference %.1f ms (target %.1f ms), switching %s -> %s",
+                averageNanos / 1e6, targetNanos / 1e6, ModelVariant.LADDER[currentTier], ModelVariant.LADDER[tier]));
+        pendingTier = tier;
+        listener.onTierChangeRequested(currentTier, tier);
+    }
+
+    private void block(int tier) {
+        blockedUntilMs[tier] = System.currentTimeMillis() + backoffMs[tier];
+        backoffMs[tier] = Math.min(backoffMs[tier] * 2, MAX_BACKOFF_MS);
+    }
+
+    private int nextAvailable(int from, int step) {
+        for (int tier = from; tier >= 0 && tier < tierCount; tier += step) {
+            if (!unavailable[tier]) {
+                return tier;
+            }
+        }
+        return -1;
+    }
+
+    private void resetSamples() {
+        sampleCount = 0;
+        sampleIndex = 0;
+        sampleSum = 0;
+        for (int i = 0; i < WINDOW; i++) {
+            samples[i] = 0;
+        }
+    }
+
+    /**
+     * Last tier this device settled on, so the next exercise starts there
+     */
+    public static int loadTier(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        int tier = prefs.getInt(KEY_TIER, ModelVariant.DEFAULT_TIER);
+        return tier >= 0 && tier < ModelVariant.LADDER.length ? tier : ModelVariant.DEFAULT_TIER;
+    }
+
+    public static void saveTier(Context context, int tier) {
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit().putInt(KEY_TIER, tier).apply();
+    }
+}
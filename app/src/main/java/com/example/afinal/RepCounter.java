@@ -0,0 +1,37 @@
+package com.example.afinal;
+
+/**
+ * RepCounter - Common shape of every exercise counter, so the activity drives whichever one is active
+ * through a single call per frame instead of branching on the exercise type
+ */
+public interface RepCounter {
+    /**
+     * Called with the running rep count on the thread that runs processKeypoints (the analysis thread),
+     * so implementations must hand UI work off themselves
+     */
+    interface Listener {
+        void onRepDetected(int count);
+    }
+
+    /**
+     * Feed one decoded pose; the frame is recycled after this returns, so don't keep it
+     */
+    void processKeypoints(PoseFrame pose);
+
+    void reset();
+
+    int getCount();
+
+    /**
+     * Pause detection (e.g. during the countdown); counters without a switch ignore this
+     */
+    default void setDetectionEnabled(boolean enabled) {
+    }
+
+    /**
+     * Time of the last counted rep (PoseFrame.getTimestampMillis), or 0 if the counter doesn't drive the cooldown
+     */
+    default long getLastRepTime() {
+        return 0;
+    }
+}
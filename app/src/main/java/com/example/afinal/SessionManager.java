@@ -0,0 +1,227 @@
+package com.example.afinal;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.text.TextUtils;
+import android.util.Log;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+
+/**
+ * SessionManager - The signed-in Supabase session, cached in memory on top of the "user_session" prefs
+ * Access and refresh tokens are kept with the access token's expiry, and a refresh-token grant is scheduled
+ * ahead of it (or run at once when the app starts close to it), so routing never has to ask the network
+ */
+public final class SessionManager {
+    private static final String TAG = "SessionManager";
+    private static final String PREFS_NAME = "user_session";
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    // Refresh this long before the access token lapses
+    private static final long REFRESH_MARGIN_MS = 5 * 60_000;
+    // Network trouble during a refresh: try again after this
+    private static final long RETRY_DELAY_MS = 60_000;
+
+    /**
+     * Immutable snapshot of the tokens; a refresh swaps in a new one
+     */
+    public static final class Session {
+        public final String userId;
+        public final String email;
+        public final String accessToken;
+        public final String refreshToken;
+        public final long expiresAtMillis; // 0 if the server didn't say
+
+        Session(String userId, String email, String accessToken, String refreshToken, long expiresAtMillis) {
+            this.userId = userId;
+            this.email = email;
+            this.accessToken = accessToken;
+            this.refreshToken = refreshToken;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        public boolean isExpired(long nowMillis) {
+            return expiresAtMillis > 0 && nowMillis >= expiresAtMillis;
+        }
+
+        public boolean canRefresh() {
+            return !TextUtils.isEmpty(refreshToken);
+        }
+    }
+
+    private static volatile SessionManager instance;
+
+    private final Context appContext;
+    private final SharedPreferences prefs;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private volatile Session session; // null when signed out
+
+    // Guarded by this
+    private ScheduledFuture<?> scheduledRefresh;
+    private CompletableFuture<Session> refreshInFlight;
+
+    public static SessionManager getInstance(Context context) {
+        if (instance == null) {
+            synchronized (SessionManager.class) {
+                if (instance == null) {
+                    instance = new SessionManager(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private SessionManager(Context appContext) {
+        this.appContext = appContext;
+        this.prefs = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.session = load();
+        scheduleRefresh();
+    }
+
+    private Session load() {
+        String userId = prefs.getString("user_id", null);
+        if (!prefs.getBoolean("is_logged_in", false) || TextUtils.isEmpty(userId)) {
+            return null;
+        }
+        return new Session(userId, prefs.getString("user_email", null), prefs.getString("access_token", null),
+                prefs.getString("refresh_token", null), prefs.getLong("expires_at", 0));
+    }
+
+    public Session getSession() {
+        return session;
+    }
+
+    public String getUserId() {
+        Session current = session;
+        return current != null ? current.userId : null;
+    }
+
+    /**
+     * Whether the home screen can open straight away: the access token is still valid, or it has lapsed but
+     * can be refreshed in the background (the stats API doesn't need the token, so nothing waits on it)
+     * Answered from memory - no network call
+     */
+    public boolean hasUsableSession() {
+        Session current = session;
+        return current != null && (!current.isExpired(System.currentTimeMillis()) || current.canRefresh());
+    }
+
+    /**
+     * Store the session from a Supabase token response (password login or refresh)
+     */
+    public Session onSignedIn(ApiJson.AuthResponse authResponse) {
+        Session previous = session;
+        String userId = authResponse.userId != null ? authResponse.userId : previous != null ? previous.userId : null;
+        String email = authResponse.email != null ? authResponse.email : previous != null ? previous.email : null;
+        String accessToken = authResponse.accessToken;
+        String refreshToken = authResponse.refreshToken != null ? authResponse.refreshToken
+                : previous != null ? previous.refreshToken : null;
+        long expiresAt = authResponse.expiresInSeconds > 0
+                ? System.currentTimeMillis() + authResponse.expiresInSeconds * 1000 : 0;
+
+        if (userId != null && !userId.equals(prefs.getString("user_id", userId))) {
+            // Someone else logged in on this device - don't show them the previous user's stats
+            new StatsStore(appContext).clear();
+        }
+
+        Session updated = new Session(userId, email, accessToken, refreshToken, expiresAt);
+        session = updated;
+        prefs.edit()
+                .putString("user_id", userId)
+                .putString("user_email", email)
+                .putString("access_token", accessToken)
+                .putString("refresh_token", refreshToken)
+                .putLong("expires_at", expiresAt)
+                .putBoolean("is_logged_in", userId != null)
+                .apply();
+        scheduleRefresh();
+        return updated;
+    }
+
+    public void signOut() {
+        synchronized (this) {
+            if (scheduledRefresh != null) {
+                scheduledRefresh.cancel(false);
+                scheduledRefresh = null;
+            }
+        }
+        session = null;
+        prefs.edit().clear().apply();
+        // Whoever logs in next starts from their own stats
+        new StatsStore(appContext).clear();
+    }
+
+    /**
+     * Exchange the refresh token for a new session; concurrent callers share one request
+     */
+    public synchronized CompletableFuture<Session> refresh() {
+        if (refreshInFlight != null && !refreshInFlight.isDone()) {
+            return refreshInFlight;
+        }
+        Session current = session;
+        if (current == null || !current.canRefresh()) {
+            CompletableFuture<Session> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IllegalStateException("No refresh token"));
+            return failed;
+        }
+
+        Request request = new Request.Builder()
+                .url(AuthActivity.SUPABASE_URL + "/auth/v1/token?grant_type=refresh_token")
+                .post(RequestBody.create(ApiJson.refreshBody(current.refreshToken), JSON))
+                .addHeader("apikey", AuthActivity.SUPABASE_ANON_KEY)
+                .build();
+        long start = System.nanoTime();
+        refreshInFlight = HttpClientProvider.call(HttpClientProvider.get(appContext), request,
+                body -> ApiJson.readAuthResponse(body.charStream()))
+                .thenApply(authResponse -> {
+                    Session refreshed = onSignedIn(authResponse);
+                    Log.i(TAG, String.format("Session refreshed in %.0f ms", (System.nanoTime() - start) / 1e6));
+                    return refreshed;
+                });
+        refreshInFlight.whenComplete((refreshed, throwable) -> {
+            if (throwable != null) {
+                onRefreshFailed(throwable.getCause() != null ? throwable.getCause() : throwable);
+            }
+        });
+        return refreshInFlight;
+    }
+
+    private void onRefreshFailed(Throwable cause) {
+        int code = cause instanceof ApiService.ApiException ? ((ApiService.ApiException) cause).code : 0;
+        if (code >= 400 && code < 500 && code != 408 && code != 429) {
+            // Refresh token revoked or already used - the next start goes through login
+            Log.w(TAG, "Refresh token rejected (" + cause.getMessage() + "), signing out");
+            signOut();
+            return;
+        }
+        Log.w(TAG, "Session refresh failed (" + cause.getMessage() + "), retrying in " + RETRY_DELAY_MS / 1000 + " s");
+        synchronized (this) {
+            if (session != null) {
+                scheduledRefresh = scheduler.schedule(this::refresh, RETRY_DELAY_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private synchronized void scheduleRefresh() {
+        if (scheduledRefresh != null) {
+            scheduledRefresh.cancel(false);
+            scheduledRefresh = null;
+        }
+        Session current = session;
+        if (current == null || !current.canRefresh() || current.expiresAtMillis == 0) {
+            return;
+        }
+        long delay = Math.max(0, current.expiresAtMillis - REFRESH_MARGIN_MS - System.currentTimeMillis());
+        scheduledRefresh = scheduler.schedule(this::refresh, delay, TimeUnit.MILLISECONDS);
+        Log.d(TAG, "Session refresh in " + delay / 1000 + " s");
+    }
+}
@@ -1,13 +1,10 @@
 package com.example.afinal;
 
-import android.os.Handler;
-import android.os.Looper;
-import android.util.Log;
 
 /**
  * ShoulderPressCounter - Detects shoulder press movements by tracking wrist movement from shoulder level to above head
  */
-public class ShoulderPressCounter {
+public class ShoulderPressCounter implements RepCounter {
     public interface ShoulderPressListener {
         void onShoulderPressDetected(int pressCount);
     }
@@ -31,7 +28,6 @@ public class ShoulderPressCounter {
     
     // Callback
     private ShoulderPressListener listener;
-    private final Handler mainHandler = new Handler(Looper.getMainLooper());
     
     public ShoulderPressCounter(ShoulderPressListener listener) {
         this.listener = listener;
@@ -43,22 +39,17 @@ public class ShoulderPressCounter {
      * 2. Detect press: Wrist moves significantly UP from shoulder level - counts as 1 rep
      * 3. Reset: Wait for return to starting position before next rep can be counted
      */
-    public void processKeypoints(java.util.List<float[]> keypoints) {
-        if (keypoints == null || keypoints.size() < 17) {
+    @Override
+    public void processKeypoints(PoseFrame pose) {
+        if (pose == null) {
             return;
         }
         
-        long currentTime = System.currentTimeMillis();
-        
-        // Get arm and shoulder keypoints
-        float[] leftShoulder = keypoints.get(5);
-        float[] rightShoulder = keypoints.get(6);
-        float[] leftWrist = keypoints.get(9);
-        float[] rightWrist = keypoints.get(10);
+        long currentTime = pose.getTimestampMillis(); // Frame time, so replays behave like the live camera
         
         // Check basic confidence for at least one arm
-        boolean leftArmValid = leftShoulder[2] > MIN_CONFIDENCE && leftWrist[2] > MIN_CONFIDENCE;
-        boolean rightArmValid = rightShoulder[2] > MIN_CONFIDENCE && rightWrist[2] > MIN_CONFIDENCE;
+        boolean leftArmValid = pose.confidence(PoseFrame.LEFT_SHOULDER) > MIN_CONFIDENCE && pose.confidence(PoseFrame.LEFT_WRIST) > MIN_CONFIDENCE;
+        boolean rightArmValid = pose.confidence(PoseFrame.RIGHT_SHOULDER) > MIN_CONFIDENCE && pose.confidence(PoseFrame.RIGHT_WRIST) > MIN_CONFIDENCE;
         
         if (!leftArmValid && !rightArmValid) {
             return;
@@ -67,10 +58,10 @@ public class ShoulderPressCounter {
         // Establish baseline shoulder positions on first valid frame
         if (!hasValidFrame) {
             if (leftArmValid) {
-                baselineLeftShoulderY = leftShoulder[1];
+                baselineLeftShoulderY = pose.y(PoseFrame.LEFT_SHOULDER);
             }
             if (rightArmValid) {
-                baselineRightShoulderY = rightShoulder[1];
+                baselineRightShoulderY = pose.y(PoseFrame.RIGHT_SHOULDER);
             }
             hasValidFrame = true;
             return;
@@ -85,13 +76,15 @@ public class ShoulderPressCounter {
         
         // Check left arm
         if (leftArmValid) {
-            float leftWristRelativeToShoulder = leftShoulder[1] - leftWrist[1]; // Positive = wrist above shoulder
+            float leftWristRelativeToShoulder = pose.y(PoseFrame.LEFT_SHOULDER) - pose.y(PoseFrame.LEFT_WRIST); // Positive = wrist above shoulder
             
             // Check if in starting position (wrist close to shoulder level)
             if (Math.abs(leftWristRelativeToShoulder) <= STARTING_POSITION_THRESHOLD) {
                 if (!isInStartingPosition) {
                     isInStartingPosition = true;
-                    Log.d(TAG, "Left arm in STARTING POSITION: wrist-shoulder=" + leftWristRelativeToShoulder);
+                    if (PoseLog.ENABLED) {
+                        PoseLog.d(TAG, "Left arm in STARTING POSITION: wrist-shoulder=%s", leftWristRelativeToShoulder);
+                    }
                 }
             }
             // Check if pressing up (wrist significantly above shoulder) - COUNT AS 1 REP
@@ -99,19 +92,23 @@ public class ShoulderPressCounter {
                 pressDetected = true;
                 armUsed = "LEFT";
                 isInStartingPosition = false; // No longer in starting position
-                Log.d(TAG, "✅ LEFT ARM SHOULDER PRESS! wrist-shoulder=" + leftWristRelativeToShoulder);
+                if (PoseLog.ENABLED) {
+                    PoseLog.d(TAG, "✅ LEFT ARM SHOULDER PRESS! wrist-shoulder=%s", leftWristRelativeToShoulder);
+                }
             }
         }
         
         // Check right arm (if left arm didn't detect press)
         if (!pressDetected && rightArmValid) {
-            float rightWristRelativeToShoulder = rightShoulder[1] - rightWrist[1]; // Positive = wrist above shoulder
+            float rightWristRelativeToShoulder = pose.y(PoseFrame.RIGHT_SHOULDER) - pose.y(PoseFrame.RIGHT_WRIST); // Positive = wrist above shoulder
             
             // Check if in starting position (wrist close to shoulder level)
             if (Math.abs(rightWristRelativeToShoulder) <= STARTING_POSITION_THRESHOLD) {
                 if (!isInStartingPosition) {
                     isInStartingPosition = true;
-                    Log.d(TAG, "Right arm in STARTING POSITION: wrist-shoulder=" + rightWristRelativeToShoulder);
+                    if (PoseLog.ENABLED) {
+                        PoseLog.d(TAG, "Right arm in STARTING POSITION: wrist-shoulder=%s", rightWristRelativeToShoulder);
+                    }
                 }
             }
             // Check if pressing up (wrist significantly above shoulder) - COUNT AS 1 REP
@@ -119,16 +116,18 @@ public class ShoulderPressCounter {
                 pressDetected = true;
                 armUsed = "RIGHT";
                 isInStartingPosition = false; // No longer in starting position
-                Log.d(TAG, "✅ RIGHT ARM SHOULDER PRESS! wrist-shoulder=" + rightWristRelativeToShoulder);
+                if (PoseLog.ENABLED) {
+                    PoseLog.d(TAG, "✅ RIGHT ARM SHOULDER PRESS! wrist-shoulder=%s", rightWristRelativeToShoulder);
+                }
             }
         }
         
-        // Debug logging with position values
-        if (leftArmValid || rightArmValid) {
-            float leftPos = leftArmValid ? (leftShoulder[1] - leftWrist[1]) : 0f;
-            float rightPos = rightArmValid ? (rightShoulder[1] - rightWrist[1]) : 0f;
-            Log.d(TAG, String.format("Starting:%s Detected:%s Arm:%s Cool:%s L:%.3f R:%.3f", 
-                  isInStartingPosition, pressDetected, armUsed, cooldownPassed, leftPos, rightPos));
+        // Debug logging with position values (compiled out of release builds)
+        if (PoseLog.ENABLED && (leftArmValid || rightArmValid)) {
+            float leftPos = leftArmValid ? (pose.y(PoseFrame.LEFT_SHOULDER) - pose.y(PoseFrame.LEFT_WRIST)) : 0f;
+            float rightPos = rightArmValid ? (pose.y(PoseFrame.RIGHT_SHOULDER) - pose.y(PoseFrame.RIGHT_WRIST)) : 0f;
+            FrameTrace.record(TAG, "state", leftPos, rightPos, FrameTrace.flag(isInStartingPosition),
+                    FrameTrace.flag(pressDetected));
         }
         
         // Count the shoulder press
@@ -136,26 +135,28 @@ public class ShoulderPressCounter {
             shoulderPressCount++;
             lastShoulderPressTime = currentTime;
             
-            Log.d(TAG, "✅ SHOULDER PRESS DETECTED! Count: " + shoulderPressCount + " (Arm: " + armUsed + ")");
+            if (PoseLog.ENABLED) {
+                PoseLog.d(TAG, "✅ SHOULDER PRESS DETECTED! Count: %s (Arm: %s)", shoulderPressCount, armUsed);
+            }
             
             if (listener != null) {
-                final int count = shoulderPressCount;
-                mainHandler.post(() -> listener.onShoulderPressDetected(count));
+                listener.onShoulderPressDetected(shoulderPressCount);
             }
         }
         
         // Update baseline shoulder positions occasionally (to handle camera movement)
-        if (leftArmValid && System.currentTimeMillis() % 100 == 0) {
-            baselineLeftShoulderY = leftShoulder[1];
+        if (leftArmValid && currentTime % 100 == 0) {
+            baselineLeftShoulderY = pose.y(PoseFrame.LEFT_SHOULDER);
         }
-        if (rightArmValid && System.currentTimeMillis() % 100 == 0) {
-            baselineRightShoulderY = rightShoulder[1];
+        if (rightArmValid && currentTime % 100 == 0) {
+            baselineRightShoulderY = pose.y(PoseFrame.RIGHT_SHOULDER);
         }
     }
     
     /**
      * Reset the shoulder press counter
      */
+    @Override
     public void reset() {
         shoulderPressCount = 0;
         isInStartingPosition = false; // Start false, need to detect starting position
@@ -163,7 +164,7 @@ public class ShoulderPressCounter {
         hasValidFrame = false;
         baselineLeftShoulderY = 0f;
         baselineRightShoulderY = 0f;
-        Log.d(TAG, "Shoulder press counter reset");
+        PoseLog.d(TAG, "Shoulder press counter reset");
     }
     
     /**
@@ -173,6 +174,11 @@ public class ShoulderPressCounter {
         return shoulderPressCount;
     }
     
+    @Override
+    public int getCount() {
+        return getShoulderPressCount();
+    }
+    
     /**
      * Get current state for debugging
      */
@@ -1,13 +1,10 @@
 package com.example.afinal;
 
-import android.os.Handler;
-import android.os.Looper;
-import android.util.Log;
 
 /**
  * SideReachCounter - Simple arm reach detection (no body lean required)
  */
-public class SideReachCounter {
+public class SideReachCounter implements RepCounter {
     public interface SideReachListener {
         void onSideReachDetected(int reachCount);
     }
@@ -26,7 +23,6 @@ public class SideReachCounter {
     
     // Callback
     private SideReachListener listener;
-    private final Handler mainHandler = new Handler(Looper.getMainLooper());
     
     public SideReachCounter(SideReachListener listener) {
         this.listener = listener;
@@ -35,21 +31,16 @@ public class SideReachCounter {
     /**
      * Fixed arm reach detection - only counts positive extensions (arms going up/out)
      */
-    public void processKeypoints(java.util.List<float[]> keypoints) {
-        if (keypoints == null || keypoints.size() < 17) {
+    @Override
+    public void processKeypoints(PoseFrame pose) {
+        if (pose == null) {
             return;
         }
         
-        long currentTime = System.currentTimeMillis();
-        
-        // Get arm keypoints
-        float[] leftShoulder = keypoints.get(5);
-        float[] rightShoulder = keypoints.get(6);
-        float[] leftWrist = keypoints.get(9);
-        float[] rightWrist = keypoints.get(10);
+        long currentTime = pose.getTimestampMillis(); // Frame time, so replays behave like the live camera
         
         // Check basic confidence
-        if (leftShoulder[2] < MIN_CONFIDENCE || rightShoulder[2] < MIN_CONFIDENCE) {
+        if (pose.confidence(PoseFrame.LEFT_SHOULDER) < MIN_CONFIDENCE || pose.confidence(PoseFrame.RIGHT_SHOULDER) < MIN_CONFIDENCE) {
             return;
         }
         
@@ -57,20 +48,20 @@ public class SideReachCounter {
         boolean leftArmReaching = false;
         boolean rightArmReaching = false;
         
-        if (leftWrist[2] > MIN_CONFIDENCE) {
+        if (pose.confidence(PoseFrame.LEFT_WRIST) > MIN_CONFIDENCE) {
             // Left arm reaching: wrist extends left from shoulder OR wrist is above shoulder
-            float leftHorizontalExtension = leftShoulder[0] - leftWrist[0]; // How far left (positive = extending left)
-            float leftVerticalExtension = leftShoulder[1] - leftWrist[1]; // How far up (positive = extending up)
+            float leftHorizontalExtension = pose.x(PoseFrame.LEFT_SHOULDER) - pose.x(PoseFrame.LEFT_WRIST); // How far left (positive = extending left)
+            float leftVerticalExtension = pose.y(PoseFrame.LEFT_SHOULDER) - pose.y(PoseFrame.LEFT_WRIST); // How far up (positive = extending up)
             
             // ONLY count if extensions are POSITIVE (actually reaching out/up, not hanging down)
             leftArmReaching = (leftHorizontalExtension > ARM_REACH_THRESHOLD && leftHorizontalExtension > 0) || 
                             (leftVerticalExtension > ARM_REACH_THRESHOLD && leftVerticalExtension > 0);
         }
         
-        if (rightWrist[2] > MIN_CONFIDENCE) {
+        if (pose.confidence(PoseFrame.RIGHT_WRIST) > MIN_CONFIDENCE) {
             // Right arm reaching: wrist extends right from shoulder OR wrist is above shoulder  
-            float rightHorizontalExtension = rightWrist[0] - rightShoulder[0]; // How far right (positive = extending right)
-            float rightVerticalExtension = rightShoulder[1] - rightWrist[1]; // How far up (positive = extending up)
+            float rightHorizontalExtension = pose.x(PoseFrame.RIGHT_WRIST) - pose.x(PoseFrame.RIGHT_SHOULDER); // How far right (positive = extending right)
+            float rightVerticalExtension = pose.y(PoseFrame.RIGHT_SHOULDER) - pose.y(PoseFrame.RIGHT_WRIST); // How far up (positive = extending up)
             
             // ONLY count if extensions are POSITIVE (actually reaching out/up, not hanging down)
             rightArmReaching = (rightHorizontalExtension > ARM_REACH_THRESHOLD && rightHorizontalExtension > 0) || 
@@ -80,15 +71,16 @@ public class SideReachCounter {
         // Cooldown check
         boolean cooldownPassed = currentTime - lastReachTime > REACH_COOLDOWN_MS;
         
-        // Debug logging to see what's happening
-        if (leftWrist[2] > MIN_CONFIDENCE && rightWrist[2] > MIN_CONFIDENCE) {
-            float leftH = leftShoulder[0] - leftWrist[0];
-            float leftV = leftShoulder[1] - leftWrist[1];
-            float rightH = rightWrist[0] - rightShoulder[0];
-            float rightV = rightShoulder[1] - rightWrist[1];
+        // Debug logging to see what's happening (compiled out of release builds)
+        if (PoseLog.ENABLED && pose.confidence(PoseFrame.LEFT_WRIST) > MIN_CONFIDENCE && pose.confidence(PoseFrame.RIGHT_WRIST) > MIN_CONFIDENCE) {
+            float leftH = pose.x(PoseFrame.LEFT_SHOULDER) - pose.x(PoseFrame.LEFT_WRIST);
+            float leftV = pose.y(PoseFrame.LEFT_SHOULDER) - pose.y(PoseFrame.LEFT_WRIST);
+            float rightH = pose.x(PoseFrame.RIGHT_WRIST) - pose.x(PoseFrame.RIGHT_SHOULDER);
+            float rightV = pose.y(PoseFrame.RIGHT_SHOULDER) - pose.y(PoseFrame.RIGHT_WRIST);
             
-            Log.d(TAG, String.format("L_H:%.3f L_V:%.3f R_H:%.3f R_V:%.3f | LReach:%s RReach:%s | Cool:%s", 
-                  leftH, leftV, rightH, rightV, leftArmReaching, rightArmReaching, cooldownPassed));
+            FrameTrace.record(TAG, "extension", leftH, leftV, rightH, rightV);
+            FrameTrace.record(TAG, "reach", FrameTrace.flag(leftArmReaching), FrameTrace.flag(rightArmReaching),
+                    FrameTrace.flag(cooldownPassed));
         }
         
         // Detect LEFT ARM REACH (allow both arms to be detected separately)
@@ -97,11 +89,12 @@ public class SideReachCounter {
             reachCount++;
             lastReachTime = currentTime;
             
-            Log.d(TAG, "✅ LEFT ARM REACH DETECTED! Count: " + reachCount);
+            if (PoseLog.ENABLED) {
+                PoseLog.d(TAG, "✅ LEFT ARM REACH DETECTED! Count: %s", reachCount);
+            }
             
             if (listener != null) {
-                final int count = reachCount;
-                mainHandler.post(() -> listener.onSideReachDetected(count));
+                listener.onSideReachDetected(reachCount);
             }
         }
         
@@ -111,11 +104,12 @@ public class SideReachCounter {
             reachCount++;
             lastReachTime = currentTime;
             
-            Log.d(TAG, "✅ RIGHT ARM REACH DETECTED! Count: " + reachCount);
+            if (PoseLog.ENABLED) {
+                PoseLog.d(TAG, "✅ RIGHT ARM REACH DETECTED! Count: %s", reachCount);
+            }
             
             if (listener != null) {
-                final int count = reachCount;
-                mainHandler.post(() -> listener.onSideReachDetected(count));
+                listener.onSideReachDetected(reachCount);
             }
         }
         
@@ -131,12 +125,13 @@ public class SideReachCounter {
     /**
      * Reset the side reach counter
      */
+    @Override
     public void reset() {
         reachCount = 0;
         isInLeftReach = false;
         isInRightReach = false;
         lastReachTime = 0;
-        Log.d(TAG, "Side reach counter reset");
+        PoseLog.d(TAG, "Side reach counter reset");
     }
     
     /**
@@ -146,6 +141,11 @@ public class SideReachCounter {
         return reachCount;
     }
     
+    @Override
+    public int getCount() {
+        return getReachCount();
+    }
+    
     /**
      * Get current state for debugging
      */
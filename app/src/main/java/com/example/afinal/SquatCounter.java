@@ -1,13 +1,10 @@
 package com.example.afinal;
 
-import android.os.Handler;
-import android.os.Looper;
-import android.util.Log;
 
 /**
  * SquatCounter - Detects squat movements by tracking hip and shoulder positions going down and up
  */
-public class SquatCounter {
+public class SquatCounter implements RepCounter {
     public interface SquatListener {
         void onSquatDetected(int squatCount);
     }
@@ -30,7 +27,6 @@ public class SquatCounter {
     
     // Callback
     private SquatListener listener;
-    private final Handler mainHandler = new Handler(Looper.getMainLooper());
     
     public SquatCounter(SquatListener listener) {
         this.listener = listener;
@@ -42,32 +38,31 @@ public class SquatCounter {
      * 2. Detect squat down: Shoulders drop significantly from baseline
      * 3. Detect squat up: Shoulders return close to baseline - completes one rep
      */
-    public void processKeypoints(java.util.List<float[]> keypoints) {
-        if (keypoints == null || keypoints.size() < 17) {
+    @Override
+    public void processKeypoints(PoseFrame pose) {
+        if (pose == null) {
             return;
         }
         
-        long currentTime = System.currentTimeMillis();
+        long currentTime = pose.getTimestampMillis(); // Frame time, so replays behave like the live camera
         
-        // Get shoulder keypoints for squat detection (shoulders are most reliable)
-        float[] leftShoulder = keypoints.get(5);
-        float[] rightShoulder = keypoints.get(6);
-        
-        // Check if we have valid shoulder landmarks
-        boolean shouldersValid = leftShoulder[2] > MIN_CONFIDENCE && rightShoulder[2] > MIN_CONFIDENCE;
+        // Check if we have valid shoulder landmarks (shoulders are most reliable for squats)
+        boolean shouldersValid = pose.confidence(PoseFrame.LEFT_SHOULDER) > MIN_CONFIDENCE && pose.confidence(PoseFrame.RIGHT_SHOULDER) > MIN_CONFIDENCE;
         
         if (!shouldersValid) {
             return;
         }
         
         // Calculate average shoulder Y position
-        float currentShoulderY = (leftShoulder[1] + rightShoulder[1]) / 2.0f;
+        float currentShoulderY = (pose.y(PoseFrame.LEFT_SHOULDER) + pose.y(PoseFrame.RIGHT_SHOULDER)) / 2.0f;
         
         // Establish baseline shoulder position on first valid frame
         if (!hasValidFrame) {
             baselineShoulderY = currentShoulderY;
             hasValidFrame = true;
-            Log.d(TAG, "Baseline established - Shoulder Y: " + baselineShoulderY);
+            if (PoseLog.ENABLED) {
+                PoseLog.d(TAG, "Baseline established - Shoulder Y: %s", baselineShoulderY);
+            }
             return;
         }
         
@@ -83,34 +78,39 @@ public class SquatCounter {
         // Detect squat down phase (shoulders drop significantly from baseline)
         if (!isInSquatDownPosition && shoulderMovement > SQUAT_DOWN_THRESHOLD) {
             isInSquatDownPosition = true;
-            Log.d(TAG, "Squat DOWN detected - Shoulder movement: " + shoulderMovement);
+            if (PoseLog.ENABLED) {
+                PoseLog.d(TAG, "Squat DOWN detected - Shoulder movement: %s", shoulderMovement);
+            }
         }
         // Detect squat up phase (shoulders return close to baseline) - COMPLETE REP
         else if (isInSquatDownPosition && Math.abs(shoulderMovement) < SQUAT_UP_THRESHOLD) {
             squatDetected = true;
             isInSquatDownPosition = false;
-            Log.d(TAG, "✅ SQUAT UP detected - Shoulder movement: " + shoulderMovement);
+            if (PoseLog.ENABLED) {
+                PoseLog.d(TAG, "✅ SQUAT UP detected - Shoulder movement: %s", shoulderMovement);
+            }
         }
         
         // Debug logging with position values
-        Log.d(TAG, String.format("Down:%s Detected:%s Cool:%s Shoulder:%.3f (baseline:%.3f)", 
-              isInSquatDownPosition, squatDetected, cooldownPassed, shoulderMovement, baselineShoulderY));
+        FrameTrace.record(TAG, "shoulder", shoulderMovement, baselineShoulderY,
+                FrameTrace.flag(isInSquatDownPosition), FrameTrace.flag(squatDetected));
         
         // Count the squat
         if (squatDetected && cooldownPassed) {
             squatCount++;
             lastSquatTime = currentTime;
             
-            Log.d(TAG, "✅ SQUAT COMPLETED! Count: " + squatCount);
+            if (PoseLog.ENABLED) {
+                PoseLog.d(TAG, "✅ SQUAT COMPLETED! Count: %s", squatCount);
+            }
             
             if (listener != null) {
-                final int count = squatCount;
-                mainHandler.post(() -> listener.onSquatDetected(count));
+                listener.onSquatDetected(squatCount);
             }
         }
         
         // Update baseline occasionally to handle camera movement (only when standing)
-        if (System.currentTimeMillis() % 300 == 0) {
+        if (currentTime % 300 == 0) {
             // Gradually adjust baseline if user is standing (not in squat)
             if (!isInSquatDownPosition && Math.abs(shoulderMovement) < SQUAT_UP_THRESHOLD) {
                 // Slowly adjust baseline to current position to account for camera movement
@@ -122,13 +122,14 @@ public class SquatCounter {
     /**
      * Reset the squat counter
      */
+    @Override
     public void reset() {
         squatCount = 0;
         isInSquatDownPosition = false;
         lastSquatTime = 0;
         hasValidFrame = false;
         baselineShoulderY = 0f;
-        Log.d(TAG, "Squat counter reset");
+        PoseLog.d(TAG, "Squat counter reset");
     }
     
     /**
@@ -138,6 +139,11 @@ public class SquatCounter {
         return squatCount;
     }
     
+    @Override
+    public int getCount() {
+        return getSquatCount();
+    }
+    
     /**
      * Get current state for debugging
      */
@@ -32,11 +32,10 @@ public class StarterActivity extends AppCompatActivity {
             // Stop animation when clicked
             playButton.clearAnimation();
             
-            // Check if user is logged in
-            String userId = AuthActivity.getCurrentUserId(this);
+            // Check if user is logged in (cached session with expiry, no network call)
             Intent intent;
             
-            if (userId != null && !userId.isEmpty()) {
+            if (SessionManager.getInstance(this).hasUsableSession()) {
                 // User is logged in, go to exercises
                 intent = new Intent(StarterActivity.this, ExercisesActivity.class);
             } else {
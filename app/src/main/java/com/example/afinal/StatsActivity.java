@@ -1,8 +1,8 @@
 package com.example.afinal;
 
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.view.View;
 import android.view.animation.Animation;
 import android.view.animation.AnimationUtils;
@@ -14,6 +14,12 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.cardview.widget.CardView;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 public class StatsActivity extends AppCompatActivity {
 
     private TextView tvXpValue;
@@ -30,10 +36,18 @@ public class StatsActivity extends AppCompatActivity {
     private ProgressBar pbNextLevel;
     private TextView tvNextLevelProgress;
 
+    // Resumes within this window share one stats refresh
+    private static final long REFRESH_WINDOW_MS = 5_000;
+    private StatsStore statsStore;
+    private ApiService.UserStats displayedStats; // What the views show now
+    private CompletableFuture<ApiService.UserStats> refresh; // Main thread
+    private long refreshStartedAt = 0;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_stats);
+        statsStore = new StatsStore(this);
         
         // Set immersive sticky mode for better fullscreen experience
         getWindow().getDecorView().setSystemUiVisibility(
@@ -83,7 +97,7 @@ public class StatsActivity extends AppCompatActivity {
             return false;
         });
         
-        // Load stats from SharedPreferences
+        // Local stats render now; the API refresh follows in the background
         loadStats();
     }
     
@@ -134,92 +148,74 @@ public class StatsActivity extends AppCompatActivity {
         loadStats();
     }
     
+    /**
+     * Stale-while-revalidate: last-known stats render at once from the local store,
+     * then the API refresh updates the screen (and the store) only if something changed
+     */
     private void loadStats() {
-        // Always prioritize database data - clear local cache first
-        clearLocalCache();
-        
-        // Show loading state
-        showLoadingState();
+        if (statsStore.hasStats()) {
+            render(statsStore.load());
+        } else if (displayedStats == null) {
+            // Nothing stored yet (first launch after login) - placeholders until the API answers
+            showLoadingState();
+        }
+        refreshStats();
+    }
+    
+    private void refreshStats() {
+        long now = SystemClock.elapsedRealtime();
+        if (refresh != null && (!refresh.isDone() || now - refreshStartedAt < REFRESH_WINDOW_MS)) {
+            // Resumed again right away (tab re-tap, back from another screen) - the last refresh still stands
+            android.util.Log.d("StatsActivity", "Reusing stats refresh started " + (now - refreshStartedAt) + " ms ago");
+            return;
+        }
         
-        // Load stats from API (database)
-        ApiService apiService = new ApiService();
         String userId = ApiService.getUserId(this);
+        android.util.Log.d("StatsActivity", "Refreshing stats for user ID: " + userId);
+        refreshStartedAt = now;
+        refresh = ApiService.getInstance(this).getUserStats(userId);
+        refresh.whenComplete((stats, throwable) -> runOnUiThread(() -> onStatsRefreshed(stats, throwable)));
+    }
+    
+    private void onStatsRefreshed(ApiService.UserStats stats, Throwable throwable) {
+        if (isFinishing() || isDestroyed()) {
+            return;
+        }
+        if (throwable != null) {
+            Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                    ? throwable.getCause() : throwable;
+            android.util.Log.e("StatsActivity", "API failed: " + cause.getMessage(), cause);
+            if (cause instanceof ConnectException || cause instanceof UnknownHostException
+                    || cause instanceof SocketTimeoutException) {
+                android.widget.Toast.makeText(this, "Cannot connect to server - using cached data", android.widget.Toast.LENGTH_SHORT).show();
+            }
+            if (displayedStats == null) {
+                // Still on placeholders: show whatever we have, even if it's all zeros
+                render(statsStore.load());
+            }
+            return;
+        }
         
-        android.util.Log.d("StatsActivity", "Loading stats for user ID: " + userId);
-        
-        apiService.getUserStats(userId)
-            .thenAccept(stats -> {
-                runOnUiThread(() -> {
-                    android.util.Log.d("StatsActivity", "API Response - Level: " + stats.level + ", XP: " + stats.xp + ", Total All Exercises: " + stats.totalAllExercises);
-        
-                    // Update UI with fresh database data - pass all exercise types
-                    updateStatsDisplay(stats);
-        
-                    // Update local storage with latest database data
-                    SharedPreferences prefs = getSharedPreferences("user_stats", MODE_PRIVATE);
-                    prefs.edit()
-                        .putInt("xp", stats.xp)
-                        .putInt("level", stats.level)
-                        .putInt("jump_count", stats.totalJumps)
-                        .putInt("arm_circles_count", stats.totalArmCircles)
-                        .putInt("high_knees_count", stats.totalHighKnees)
-                        .putInt("side_reaches_count", stats.totalSideReaches)
-                        .putInt("jack_jumps_count", stats.totalJackJumps)
-                        .putInt("biceps_curls_count", stats.totalBicepsCurls)
-                        .putInt("shoulder_presses_count", stats.totalShoulderPresses)
-                        .putInt("squats_count", stats.totalSquats)
-                        .putInt("exercises_completed", stats.exercisesCompleted)
-                        .apply();
-                    
-                    hideLoadingState();
-            });
-            })
-            .exceptionally(throwable -> {
-                // API call failed - check the specific error
-                runOnUiThread(() -> {
-                    String errorMessage = throwable.getMessage();
-                    android.util.Log.e("StatsActivity", "API failed: " + errorMessage, throwable);
-                    
-                    // Check if it's a network connectivity issue or API server issue
-                    if (errorMessage != null && (errorMessage.contains("ConnectException") || 
-                                                errorMessage.contains("UnknownHostException") ||
-                                                errorMessage.contains("SocketTimeoutException"))) {
-                        // Network/server connection issue
-                        android.widget.Toast.makeText(this, "Cannot connect to server - using cached data", android.widget.Toast.LENGTH_SHORT).show();
-                    } else {
-                        // Other API error - don't show offline message since we have internet
-                        android.widget.Toast.makeText(this, "Loading stats...", android.widget.Toast.LENGTH_SHORT).show();
-                    }
-                    
-                    SharedPreferences prefs = getSharedPreferences("user_stats", MODE_PRIVATE);
-                    
-                    // Create a stats object from local storage
-                    ApiService.UserStats localStats = new ApiService.UserStats();
-                    localStats.xp = prefs.getInt("xp", 0);
-                    localStats.level = prefs.getInt("level", 0);
-                    localStats.totalJumps = prefs.getInt("jump_count", 0);
-                    localStats.totalArmCircles = prefs.getInt("arm_circles_count", 0);
-                    localStats.totalHighKnees = prefs.getInt("high_knees_count", 0);
-                    localStats.totalSideReaches = prefs.getInt("side_reaches_count", 0);
-                    localStats.totalJackJumps = prefs.getInt("jack_jumps_count", 0);
-                    localStats.totalBicepsCurls = prefs.getInt("biceps_curls_count", 0);
-                    localStats.totalShoulderPresses = prefs.getInt("shoulder_presses_count", 0);
-                    localStats.totalSquats = prefs.getInt("squats_count", 0);
-                    localStats.exercisesCompleted = prefs.getInt("exercises_completed", 0);
-                    localStats.currentLevelXp = localStats.xp % 100;
-                    
-                    updateStatsDisplay(localStats);
-                    hideLoadingState();
-                });
-                return null;
-            });
+        if (StatsSync.getInstance(this).hasPendingSessions()) {
+            // The server hasn't seen the latest sessions yet; its totals would roll the screen back
+            android.util.Log.d("StatsActivity", "Sessions still syncing, keeping local stats");
+            return;
+        }
+        if (stats.equals(displayedStats)) {
+            android.util.Log.d("StatsActivity", "Stats unchanged");
+            return;
+        }
+        android.util.Log.d("StatsActivity", "API Response - Level: " + stats.level + ", XP: " + stats.xp + ", Total All Exercises: " + stats.totalAllExercises);
+        statsStore.save(stats);
+        render(stats);
     }
     
-    private void clearLocalCache() {
-        // Clear old local data to ensure we show fresh database data
-        SharedPreferences prefs = getSharedPreferences("user_stats", MODE_PRIVATE);
-        prefs.edit().clear().apply();
-        android.util.Log.d("StatsActivity", "Local cache cleared");
+    private void render(ApiService.UserStats stats) {
+        if (stats.equals(displayedStats)) {
+            return;
+        }
+        displayedStats = stats;
+        updateStatsDisplay(stats);
     }
     
     private void showLoadingState() {
@@ -238,10 +234,6 @@ public class StatsActivity extends AppCompatActivity {
         tvNextLevelProgress.setText("Loading...");
     }
     
-    private void hideLoadingState() {
-        // Loading complete - UI already updated with real data
-    }
-    
     private void updateStatsDisplay(ApiService.UserStats stats) {
         tvXpValue.setText(String.valueOf(stats.xp));
         tvJumpCountValue.setText(String.valueOf(stats.totalJumps));
@@ -0,0 +1,144 @@
+package com.example.afinal;
+
+import com.google.gson.JsonParseException;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * StatsOutbox - Durable queue of finished exercise sessions that haven't reached the stats API yet
+ * An append-only file with one JSON record per line, fsynced on every append; a line torn by a crash is skipped,
+ * and sent records are removed by rewriting the remainder to a temp file and renaming it over the original
+ * Pure java.io + Gson streaming, so it runs (and is tested) on the host JVM
+ */
+public class StatsOutbox {
+    /**
+     * One completed session, as queued by the exercise screen (one line, written by ApiJson.OUTBOX_ENTRY)
+     */
+    public static final class Entry {
+        public final String id;
+        public final String userId;
+        public final long queuedAtMillis;
+        public final ApiService.UpdateStatsRequest request;
+
+        public Entry(String id, String userId, long queuedAtMillis, ApiService.UpdateStatsRequest request) {
+            this.id = id;
+            this.userId = userId;
+            this.queuedAtMillis = queuedAtMillis;
+            this.request = request;
+        }
+
+        public static Entry create(String userId, ApiService.UpdateStatsRequest request) {
+            return new Entry(UUID.randomUUID().toString(), userId, System.currentTimeMillis(), request);
+        }
+    }
+
+    private final File file;
+
+    public StatsOutbox(File file) {
+        this.file = file;
+    }
+
+    public synchronized void append(Entry entry) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent);
+        }
+        // A crash mid-append leaves a partial line; start on a fresh one so this record isn't glued onto it
+        String prefix = endsWithNewline() ? "" : "\n";
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write((prefix + ApiJson.OUTBOX_ENTRY.toJson(entry) + "\n").getBytes(StandardCharsets.UTF_8));
+            // The session is only "saved" once it is on disk
+            out.getFD().sync();
+        }
+    }
+
+    private boolean endsWithNewline() throws IOException {
+        if (file.length() == 0) {
+            return true;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            raf.seek(raf.length() - 1);
+            return raf.read() == '\n';
+        }
+    }
+
+    /**
+     * Every queued entry, oldest first
+     */
+    public synchronized List<Entry> readAll() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        if (!file.exists()) {
+            return entries;
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                try {
+                    Entry entry = ApiJson.OUTBOX_ENTRY.fromJson(line);
+                    if (entry != null && entry.id != null && entry.userId != null && entry.request != null) {
+                        entries.add(entry);
+                    }
+                } catch (IOException | JsonParseException | IllegalStateException | NumberFormatException e) {
+                    // Torn write from a crash mid-append - everything before it is intact, skip just this line
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Drop the given entries, keeping anything appended since they were read
+     */
+    public synchronized void remove(Collection<String> ids) throws IOException {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Entry> remaining = new ArrayList<>();
+        for (Entry entry : readAll()) {
+            if (!ids.contains(entry.id)) {
+                remaining.add(entry);
+            }
+        }
+        if (remaining.isEmpty()) {
+            if (file.exists() && !file.delete()) {
+                throw new IOException("Cannot delete " + file);
+            }
+            return;
+        }
+
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp);
+             Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            for (Entry entry : remaining) {
+                writer.write(ApiJson.OUTBOX_ENTRY.toJson(entry));
+                writer.write('\n');
+            }
+            writer.flush();
+            out.getFD().sync();
+        }
+        if (!temp.renameTo(file)) {
+            throw new IOException("Cannot replace " + file);
+        }
+    }
+
+    public synchronized int size() throws IOException {
+        return readAll().size();
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.afinal;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+/**
+ * StatsStore - Last-known UserStats kept on the device (the "user_stats" prefs)
+ * The stats screen renders from here immediately and only refreshes from the API in the background;
+ * written from API responses, and by the exercise screen for sessions the outbox hasn't synced yet
+ */
+public final class StatsStore {
+    private static final String PREFS_NAME = "user_stats";
+
+    private final SharedPreferences prefs;
+
+    public StatsStore(Context context) {
+        this(context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE));
+    }
+
+    StatsStore(SharedPreferences prefs) {
+        this.prefs = prefs;
+    }
+
+    /**
+     * False on a fresh install / new login, before anything was stored
+     */
+    public boolean hasStats() {
+        return prefs.contains("xp");
+    }
+
+    public ApiService.UserStats load() {
+        ApiService.UserStats stats = new ApiService.UserStats();
+        stats.xp = prefs.getInt("xp", 0);
+        stats.level = prefs.getInt("level", 0);
+        stats.totalJumps = prefs.getInt("jump_count", 0);
+        stats.totalArmCircles = prefs.getInt("arm_circles_count", 0);
+        stats.totalHighKnees = prefs.getInt("high_knees_count", 0);
+        stats.totalSideReaches = prefs.getInt("side_reaches_count", 0);
+        stats.totalJackJumps = prefs.getInt("jack_jumps_count", 0);
+        stats.totalBicepsCurls = prefs.getInt("biceps_curls_count", 0);
+        stats.totalShoulderPresses = prefs.getInt("shoulder_presses_count", 0);
+        stats.totalSquats = prefs.getInt("squats_count", 0);
+        stats.exercisesCompleted = prefs.getInt("exercises_completed", 0);
+        stats.totalAllExercises = prefs.getInt("total_all_exercises", 0);
+        stats.xpToNextLevel = prefs.getInt("xp_to_next_level", 0);
+        // Sessions counted locally only move xp, so derive progress from it unless the server said otherwise
+        stats.currentLevelXp = prefs.getInt("current_level_xp", stats.xp % 100);
+        return stats;
+    }
+
+    /**
+     * Count a finished session before the server has it; the next synced response overwrites these totals
+     * The only local write for a session - the exercise screen doesn't touch these prefs per rep
+     * @param statsKey the exercise's count key (ExerciseRegistry.Exercise.statsKey)
+     */
+    public void addLocalSession(String statsKey, int reps, int xp) {
+        prefs.edit()
+                .putInt("xp", prefs.getInt("xp", 0) + xp)
+                .putInt(statsKey, prefs.getInt(statsKey, 0) + reps)
+                .putInt("exercises_completed", prefs.getInt("exercises_completed", 0) + 1)
+                // Stale now; load() derives it from the new xp until the server sends it again
+                .remove("current_level_xp")
+                .apply();
+    }
+
+    public void clear() {
+        prefs.edit().clear().apply();
+    }
+
+    public void save(ApiService.UserStats stats) {
+        prefs.edit()
+                .putInt("xp", stats.xp)
+                .putInt("level", stats.level)
+                .putInt("jump_count", stats.totalJumps)
+                .putInt("arm_circles_count", stats.totalArmCircles)
+                .putInt("high_knees_count", stats.totalHighKnees)
+                .putInt("side_reaches_count", stats.totalSideReaches)
+                .putInt("jack_jumps_count", stats.totalJackJumps)
+                .putInt("biceps_curls_count", stats.totalBicepsCurls)
+                .putInt("shoulder_presses_count", stats.totalShoulderPresses)
+                .putInt("squats_count", stats.totalSquats)
+                .putInt("exercises_completed", stats.exercisesCompleted)
+                .putInt("total_all_exercises", stats.totalAllExercises)
+                .putInt("xp_to_next_level", stats.xpToNextLevel)
+                .putInt("current_level_xp", stats.currentLevelXp)
+                .apply();
+    }
+}
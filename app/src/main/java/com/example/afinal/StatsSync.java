@@ -0,0 +1,206 @@
+package com.example.afinal;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StatsSync - Process-wide sender for the StatsOutbox; finishing an exercise never waits on the network
+ * Sessions are written to the outbox on a background thread and flushed from that same thread, oldest first and
+ * one update per session (the API records a session and bumps exercisesCompleted per call), with jittered
+ * exponential backoff while the API is unreachable
+ * A flush also runs when the process starts and whenever the default network comes back
+ */
+public final class StatsSync {
+    private static final String TAG = "StatsSync";
+
+    private static final long INITIAL_BACKOFF_MS = 5_000;
+    private static final long MAX_BACKOFF_MS = 15 * 60_000;
+    private static final long REQUEST_TIMEOUT_SECONDS = 30;
+
+    private static volatile StatsSync instance;
+
+    private final Context appContext;
+    private final StatsOutbox outbox;
+    private final ApiService apiService;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+    // Sessions counted locally but not yet on the server; set by the sync thread, read by the stats screen
+    private volatile boolean hasPending = false;
+
+    // Sync thread only
+    private long backoffMs = 0;
+    private ScheduledFuture<?> retry;
+
+    public static StatsSync getInstance(Context context) {
+        if (instance == null) {
+            synchronized (StatsSync.class) {
+                if (instance == null) {
+                    instance = new StatsSync(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private StatsSync(Context appContext) {
+        this.appContext = appContext;
+        this.outbox = new StatsOutbox(new File(appContext.getFilesDir(), "stats/outbox.jsonl"));
+        this.apiService = ApiService.getInstance(appContext);
+        registerNetworkCallback();
+        // Anything a previous run couldn't send
+        requestFlush();
+    }
+
+    /**
+     * Queue a finished session and return at once; it is persisted, then sent unless a retry is already scheduled
+     */
+    public void enqueue(String userId, ApiService.UpdateStatsRequest request) {
+        StatsOutbox.Entry entry = StatsOutbox.Entry.create(userId, request);
+        executor.execute(() -> {
+            try {
+                outbox.append(entry);
+                hasPending = true;
+            } catch (IOException e) {
+                // Can't persist it (disk full?) - one direct attempt is better than dropping the session
+                Log.e(TAG, "Could not queue session, sending it directly", e);
+                apiService.updateUserStats(userId, request);
+                return;
+            }
+            if (retry == null || retry.isDone()) {
+                flush();
+            }
+        });
+    }
+
+    /**
+     * Send whatever is queued now, cutting any backoff short (network came back, app started)
+     */
+    public void requestFlush() {
+        executor.execute(() -> {
+            if (retry != null) {
+                retry.cancel(false);
+                retry = null;
+            }
+            backoffMs = 0;
+            flush();
+        });
+    }
+
+    private void flush() {
+        List<StatsOutbox.Entry> entries;
+        try {
+            entries = outbox.readAll();
+        } catch (IOException e) {
+            Log.e(TAG, "Could not read outbox", e);
+            return;
+        }
+        if (entries.isEmpty()) {
+            hasPending = false;
+            return;
+        }
+        hasPending = true;
+
+        Log.i(TAG, "Flushing " + entries.size() + " queued sessions");
+        ApiService.UserStats latest = null;
+        String latestUserId = null;
+        for (StatsOutbox.Entry entry : entries) {
+            try {
+                latest = apiService.updateUserStats(entry.userId, entry.request)
+                        .get(REQUEST_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                latestUserId = entry.userId;
+            } catch (ExecutionException e) {
+                if (isRejected(e.getCause())) {
+                    // The API will never take this one; retrying would only block the sessions behind it
+                    Log.e(TAG, "Dropping " + entry.request.exerciseType + " session: " + e.getCause().getMessage());
+                    removeSent(entry);
+                    continue;
+                }
+                scheduleRetry(e.getCause());
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                scheduleRetry(e);
+                return;
+            }
+            // Removed one at a time, so a crash mid-flush re-sends at most the session in flight
+            removeSent(entry);
+        }
+
+        backoffMs = 0;
+        hasPending = false;
+        if (latest != null && latestUserId.equals(AuthActivity.getCurrentUserId(appContext))) {
+            // Outbox is empty, so the server's totals now include every session counted locally
+            new StatsStore(appContext).save(latest);
+            Log.i(TAG, "Stats synced - Level: " + latest.level + ", XP: " + latest.xp);
+        }
+    }
+
+    /**
+     * True while some finished session is still only in the local stats, so server totals would undercount
+     */
+    public boolean hasPendingSessions() {
+        return hasPending;
+    }
+
+    private void removeSent(StatsOutbox.Entry entry) {
+        try {
+            outbox.remove(Collections.singleton(entry.id));
+        } catch (IOException e) {
+            // Sent but still queued: it will go again on the next flush
+            Log.e(TAG, "Could not remove sent sessions from the outbox", e);
+        }
+    }
+
+    private void scheduleRetry(Throwable cause) {
+        backoffMs = backoffMs == 0 ? INITIAL_BACKOFF_MS : Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+        // Full jitter on the upper half, so many devices coming back online don't retry in lockstep
+        long delay = backoffMs / 2 + ThreadLocalRandom.current().nextLong(backoffMs / 2 + 1);
+        Log.w(TAG, "Stats sync failed (" + (cause != null ? cause.getMessage() : "unknown")
+                + "), retrying in " + delay / 1000 + " s");
+        retry = executor.schedule(this::flush, delay, TimeUnit.MILLISECONDS);
+    }
+
+    // 4xx other than timeout / rate limiting: the request itself is bad
+    private static boolean isRejected(Throwable cause) {
+        if (!(cause instanceof ApiService.ApiException)) {
+            return false;
+        }
+        int code = ((ApiService.ApiException) cause).code;
+        return code >= 400 && code < 500 && code != 408 && code != 429;
+    }
+
+    private void registerNetworkCallback() {
+        ConnectivityManager connectivity = appContext.getSystemService(ConnectivityManager.class);
+        if (connectivity == null) {
+            return;
+        }
+        try {
+            connectivity.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+                @Override
+                public void onAvailable(@NonNull Network network) {
+                    requestFlush();
+                }
+            });
+        } catch (RuntimeException e) {
+            // Retries still run on their backoff schedule
+            Log.w(TAG, "Could not watch connectivity: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.afinal;
+
+import android.util.Log;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+
+/**
+ * TensorPool - Reusable model input/output buffers for the inference hot path
+ * Each slot is a direct, native-ordered FloatBuffer with an OnnxTensor created over it once,
+ * so ORT reads inputs from (and writes pinned outputs into) our memory and nothing is allocated per frame
+ */
+public class TensorPool implements AutoCloseable {
+    private static final String TAG = "TensorPool";
+
+    /**
+     * One reusable tensor: write into buffer and pass tensor to session.run as an input,
+     * or pass tensor as a pinned output and read the result back from buffer
+     */
+    public static final class Slot {
+        public final FloatBuffer buffer;
+        public final OnnxTensor tensor;
+
+        Slot(FloatBuffer buffer, OnnxTensor tensor) {
+            this.buffer = buffer;
+            this.tensor = tensor;
+        }
+    }
+
+    private final OrtEnvironment env;
+    private final long[] shape;
+    private final int elementCount;
+    private final int capacity;
+    private final ArrayBlockingQueue<Slot> freeSlots;
+    private final List<Slot> allSlots = new ArrayList<>();
+    private volatile boolean closed = false;
+
+    // Allocation counters - buffers/tensors should stop growing once the pipeline is warm
+    private final AtomicLong buffersAllocated = new AtomicLong();
+    private final AtomicLong tensorsCreated = new AtomicLong();
+    private final AtomicLong bytesAllocated = new AtomicLong();
+    private final AtomicLong acquireCount = new AtomicLong();
+    private final AtomicLong exhaustedCount = new AtomicLong();
+
+    public TensorPool(OrtEnvironment env, long[] shape, int capacity) {
+        this.env = env;
+        this.shape = shape.clone();
+        this.capacity = capacity;
+        this.freeSlots = new ArrayBlockingQueue<>(capacity);
+
+        long count = 1;
+        for (long dim : shape) {
+            count *= dim;
+        }
+        this.elementCount = (int) count;
+    }
+
+    /**
+     * Take a free slot, creating one lazily until the pool reaches capacity
+     * @return null if every slot is in use (caller should drop the frame)
+     */
+    public Slot acquire() throws OrtException {
+        if (closed) {
+            return null;
+        }
+        acquireCount.incrementAndGet();
+
+        Slot slot = freeSlots.poll();
+        if (slot != null) {
+            slot.buffer.clear();
+            return slot;
+        }
+
+        synchronized (allSlots) {
+            if (closed || allSlots.size() >= capacity) {
+                exhaustedCount.incrementAndGet();
+                return null;
+            }
+            slot = createSlot();
+            allSlots.add(slot);
+            return slot;
+        }
+    }
+
+    /**
+     * Return a slot so the next frame can reuse it
+     */
+    public void release(Slot slot) {
+        if (slot == null) {
+            return;
+        }
+        if (closed) {
+            closeSlot(slot);
+            return;
+        }
+        freeSlots.offer(slot);
+    }
+
+    private Slot createSlot() throws OrtException {
+        int bytes = elementCount * 4;
+        FloatBuffer buffer = ByteBuffer.allocateDirect(bytes)
+                .order(ByteOrder.nativeOrder())
+                .asFloatBuffer();
+        buffersAllocated.incrementAndGet();
+        bytesAllocated.addAndGet(bytes);
+
+        // Direct buffer -> ORT wraps it without copying, so writes to buffer are seen by the tensor
+        OnnxTensor tensor = OnnxTensor.createTensor(env, buffer, shape);
+        tensorsCreated.incrementAndGet();
+
+        Log.d(TAG, "Allocated slot " + (allSlots.size() + 1) + "/" + capacity + " (" + bytes + " bytes)");
+        return new Slot(buffer, tensor);
+    }
+
+    /**
+     * Close the idle slots to hand their memory back under memory pressure; acquire() recreates them lazily
+     * Slots in flight are untouched and return to the pool as usual
+     * @return bytes of buffers released
+     */
+    public long trim() {
+        long released = 0;
+        synchronized (allSlots) {
+            Slot slot;
+            while ((slot = freeSlots.poll()) != null) {
+                allSlots.remove(slot);
+                closeSlot(slot);
+                released += elementCount * 4L;
+            }
+        }
+        if (released > 0) {
+            Log.d(TAG, "Trimmed " + released + " bytes of idle slots");
+        }
+        return released;
+    }
+
+    private static void closeSlot(Slot slot) {
+        try {
+            slot.tensor.close();
+        } catch (Exception e) {
+            Log.e(TAG, "Error closing pooled tensor", e);
+        }
+    }
+
+    public long getBuffersAllocated() {
+        return buffersAllocated.get();
+    }
+
+    public long getTensorsCreated() {
+        return tensorsCreated.get();
+    }
+
+    public long getBytesAllocated() {
+        return bytesAllocated.get();
+    }
+
+    /**
+     * Bytes held by the slots that currently exist, idle or in flight
+     */
+    public long getRetainedBytes() {
+        synchronized (allSlots) {
+            return allSlots.size() * (elementCount * 4L);
+        }
+    }
+
+    public long getAcquireCount() {
+        return acquireCount.get();
+    }
+
+    public long getExhaustedCount() {
+        return exhaustedCount.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        synchronized (allSlots) {
+            // Slots still in flight are closed by release() once their owner is done
+            Slot slot;
+            while ((slot = freeSlots.poll()) != null) {
+                closeSlot(slot);
+            }
+            allSlots.clear();
+        }
+        Log.d(TAG, "Pool closed - " + this);
+    }
+
+    @Override
+    public String toString() {
+        return "TensorPool{buffers=" + buffersAllocated.get()
+                + ", tensors=" + tensorsCreated.get()
+                + ", bytes=" + bytesAllocated.get()
+                + ", acquires=" + acquireCount.get()
+                + ", exhausted=" + exhaustedCount.get() + "}";
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.afinal;
+
+import android.view.Choreographer;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * UiUpdateCoalescer - The only bridge from the analysis thread to the main thread
+ * Overlay poses and rep counts are parked in single slots and delivered together on the next vsync,
+ * so the main thread gets at most one message per frame no matter how fast the analysis thread runs,
+ * and a slow frame on the UI side never holds up rep counting
+ */
+public class UiUpdateCoalescer implements Choreographer.FrameCallback {
+    private static final int NO_REP = Integer.MIN_VALUE;
+
+    /**
+     * Main-thread side; both calls happen inside the same vsync callback
+     */
+    public interface Target {
+        /** Latest rep count since the last frame (counts are cumulative, so older ones can be skipped) */
+        void onRepCount(int count);
+
+        /** Latest pose since the last frame; only valid during the call */
+        void onPoseFrame(PoseFrame pose);
+    }
+
+    private final Choreographer choreographer;
+    private final Target target;
+
+    // Analysis thread writes pending, main thread copies it into drawing under the lock
+    private final Object poseLock = new Object();
+    private final PoseFrame pendingPose = new PoseFrame();
+    private final PoseFrame drawingPose = new PoseFrame();
+    private boolean hasPendingPose = false;
+
+    private final AtomicInteger pendingRepCount = new AtomicInteger(NO_REP);
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private volatile boolean closed = false;
+
+    // Poses posted vs. actually handed to the target
+    private final AtomicLong posesPosted = new AtomicLong();
+    private final AtomicLong posesDelivered = new AtomicLong();
+
+    /**
+     * Must be created on the main thread (binds to its Choreographer)
+     */
+    public UiUpdateCoalescer(Target target) {
+        this.choreographer = Choreographer.getInstance();
+        this.target = target;
+    }
+
+    /**
+     * Any thread: copy the pose for the next frame, replacing one that hasn't been drawn yet
+     */
+    public void postPose(PoseFrame pose) {
+        synchronized (poseLock) {
+            pendingPose.copyFrom(pose);
+            hasPendingPose = true;
+        }
+        posesPosted.incrementAndGet();
+        schedule();
+    }
+
+    /**
+     * Any thread: deliver the rep count on the next frame
+     */
+    public void postRepCount(int count) {
+        pendingRepCount.set(count);
+        schedule();
+    }
+
+    private void schedule() {
+        if (!closed && scheduled.compareAndSet(false, true)) {
+            choreographer.postFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        // Clear first so anything posted while we deliver gets the next frame
+        scheduled.set(false);
+        if (closed) {
+            return;
+        }
+
+        int repCount = pendingRepCount.getAndSet(NO_REP);
+        if (repCount != NO_REP) {
+            target.onRepCount(repCount);
+        }
+
+        boolean hasPose;
+        synchronized (poseLock) {
+            hasPose = hasPendingPose;
+            if (hasPose) {
+                drawingPose.copyFrom(pendingPose);
+                hasPendingPose = false;
+            }
+        }
+        if (hasPose) {
+            posesDelivered.incrementAndGet();
+            PipelineTrace.begin(PipelineTrace.UI_FRAME, drawingPose.getFrameId());
+            try {
+                target.onPoseFrame(drawingPose);
+            } finally {
+                PipelineTrace.end();
+            }
+        }
+    }
+
+    /**
+     * Main thread: stop delivering; pending updates are dropped
+     */
+    public void close() {
+        closed = true;
+        choreographer.removeFrameCallback(this);
+    }
+
+    /**
+     * Poses that were replaced before a frame picked them up
+     */
+    public long getPosesCoalesced() {
+        return posesPosted.get() - posesDelivered.get();
+    }
+
+    @Override
+    public String toString() {
+        return "UiUpdateCoalescer{posted=" + posesPosted.get() + ", delivered=" + posesDelivered.get() + "}";
+    }
+}
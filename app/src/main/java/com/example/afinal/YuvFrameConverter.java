@@ -0,0 +1,145 @@
+package com.example.afinal;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.ImageFormat;
+import android.graphics.Rect;
+import android.graphics.YuvImage;
+import android.util.Log;
+
+import androidx.camera.core.ImageProxy;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * YuvFrameConverter - Converts YUV_420_888 camera frames straight into the normalized CHW model input
+ * Pulls the planes out of the CameraX ImageProxy for YuvPlaneConverter, and keeps the old
+ * JPEG -> Bitmap path as a fallback for formats the direct path can't handle
+ */
+public class YuvFrameConverter extends YuvPlaneConverter {
+    private static final String TAG = "YuvFrameConverter";
+
+    public YuvFrameConverter(int outputSize) {
+        super(outputSize);
+    }
+
+    /**
+     * Convert a camera frame into the model input buffer
+     * @return false if the frame is not YUV_420_888 or malformed (caller should use the JPEG fallback)
+     */
+    public boolean convert(ImageProxy imageProxy, boolean mirror, FloatBuffer out) {
+        if (imageProxy.getFormat() != ImageFormat.YUV_420_888) {
+            return false;
+        }
+        ImageProxy.PlaneProxy[] planes = imageProxy.getPlanes();
+        if (planes.length < 3 || planes[1].getPixelStride() != planes[2].getPixelStride()
+                || planes[1].getRowStride() != planes[2].getRowStride()) {
+            return false;
+        }
+
+        convert(planes[0].getBuffer(), planes[0].getRowStride(), planes[0].getPixelStride(),
+                planes[1].getBuffer(), planes[2].getBuffer(), planes[1].getRowStride(), planes[1].getPixelStride(),
+                imageProxy.getWidth(), imageProxy.getHeight(),
+                imageProxy.getImageInfo().getRotationDegrees(), mirror, out);
+        return true;
+    }
+
+    /**
+     * Legacy fallback: NV21 -> JPEG -> Bitmap -> rotate -> scale -> normalize
+     * Kept for devices/formats the direct path can't handle
+     */
+    public boolean convertViaJpeg(ImageProxy imageProxy, FloatBuffer out) {
+        if (imageProxy.getFormat() != ImageFormat.YUV_420_888) {
+            Log.e(TAG, "Unsupported image format: " + imageProxy.getFormat());
+            return false;
+        }
+        ImageProxy.PlaneProxy[] planes = imageProxy.getPlanes();
+        if (planes.length < 3) {
+            return false;
+        }
+        return convertViaJpeg(planes[0].getBuffer(), planes[1].getBuffer(), planes[2].getBuffer(),
+                imageProxy.getWidth(), imageProxy.getHeight(),
+                imageProxy.getImageInfo().getRotationDegrees(), out);
+    }
+
+    public boolean convertViaJpeg(ByteBuffer yBuffer, ByteBuffer uBuffer, ByteBuffer vBuffer,
+                                  int width, int height, int rotationDegrees, FloatBuffer out) {
+        try {
+            int[] pixels;
+            PipelineTrace.begin(PipelineTrace.JPEG_DECODE);
+            try {
+                pixels = decodeViaJpeg(yBuffer, uBuffer, vBuffer, width, height, rotationDegrees);
+            } finally {
+                PipelineTrace.end();
+            }
+            if (pixels == null) {
+                return false;
+            }
+
+            PipelineTrace.begin(PipelineTrace.NORMALIZE);
+            try {
+                int base = out.position();
+                int channelOffset = outputSize * outputSize;
+                for (int i = 0; i < pixels.length; i++) {
+                    int pixel = pixels[i];
+                    out.put(base + i, NORMALIZE[(pixel >> 16) & 0xFF]);                  // Red channel
+                    out.put(base + i + channelOffset, NORMALIZE[(pixel >> 8) & 0xFF]);    // Green channel
+                    out.put(base + i + channelOffset * 2, NORMALIZE[pixel & 0xFF]);       // Blue channel
+                }
+            } finally {
+                PipelineTrace.end();
+            }
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "JPEG conversion failed", e);
+            return false;
+        }
+    }
+
+    /**
+     * NV21 -> JPEG -> Bitmap, rotated and scaled to the output size; ARGB pixels, or null if decoding failed
+     */
+    private int[] decodeViaJpeg(ByteBuffer yBuffer, ByteBuffer uBuffer, ByteBuffer vBuffer,
+                                int width, int height, int rotationDegrees) {
+        ByteBuffer y = yBuffer.duplicate();
+        ByteBuffer u = uBuffer.duplicate();
+        ByteBuffer v = vBuffer.duplicate();
+        int ySize = y.remaining();
+        int uSize = u.remaining();
+        int vSize = v.remaining();
+
+        byte[] nv21 = new byte[ySize + uSize + vSize];
+        y.get(nv21, 0, ySize);
+        v.get(nv21, ySize, vSize);
+        u.get(nv21, ySize + vSize, uSize);
+
+        YuvImage yuvImage = new YuvImage(nv21, ImageFormat.NV21, width, height, null);
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        yuvImage.compressToJpeg(new Rect(0, 0, width, height), 75, jpeg);
+        byte[] imageBytes = jpeg.toByteArray();
+        Bitmap bitmap = BitmapFactory.decodeByteArray(imageBytes, 0, imageBytes.length);
+        if (bitmap == null) {
+            return null;
+        }
+
+        if (rotationDegrees != 0) {
+            android.graphics.Matrix matrix = new android.graphics.Matrix();
+            matrix.postRotate(rotationDegrees);
+            Bitmap rotatedBitmap = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+            bitmap.recycle();
+            bitmap = rotatedBitmap;
+        }
+
+        Bitmap resizedBitmap = Bitmap.createScaledBitmap(bitmap, outputSize, outputSize, false);
+        if (bitmap != resizedBitmap) {
+            bitmap.recycle();
+        }
+
+        int[] pixels = new int[outputSize * outputSize];
+        resizedBitmap.getPixels(pixels, 0, outputSize, 0, 0, outputSize, outputSize);
+        resizedBitmap.recycle();
+        return pixels;
+    }
+}
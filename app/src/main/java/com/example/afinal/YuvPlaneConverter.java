@@ -0,0 +1,209 @@
+package com.example.afinal;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * YuvPlaneConverter - Raw YUV_420_888 planes straight into the normalized CHW model input
+ * Rotation, optional mirroring and the resize to the model input size are done in a single pass
+ * (nearest neighbour, same as the old Bitmap.createScaledBitmap(..., false) path); plain java.nio, so it
+ * also runs in the JVM benchmarks - YuvFrameConverter adds the CameraX and JPEG fallback side
+ */
+public class YuvPlaneConverter {
+    private static final String TAG = "YuvPlaneConverter";
+
+    // Fixed point (16.16) BT.601 full range coefficients, same as the JPEG encoder uses
+    private static final int COEFF_RV = 91881;   // 1.402
+    private static final int COEFF_GU = 22554;   // 0.344136
+    private static final int COEFF_GV = 46802;   // 0.714136
+    private static final int COEFF_BU = 116130;  // 1.772
+
+    // 0..255 -> 0..1 lookup so the inner loop has no division
+    static final float[] NORMALIZE = new float[256];
+    static {
+        for (int i = 0; i < 256; i++) {
+            NORMALIZE[i] = i / 255.0f;
+        }
+    }
+
+    protected final int outputSize;
+
+    // Per-frame scratch, allocated once and only grown when the camera resolution changes
+    private byte[] yBytes = new byte[0];
+    private byte[] uBytes = new byte[0];
+    private byte[] vBytes = new byte[0];
+    private final float[] rowR;
+    private final float[] rowG;
+    private final float[] rowB;
+
+    // Sampling tables for the current geometry: source offset = rowOffset[oy] + colOffset[ox]
+    private final int[] yColOffset;
+    private final int[] yRowOffset;
+    private final int[] uvColOffset;
+    private final int[] uvRowOffset;
+    private int tableWidth = -1;
+    private int tableHeight = -1;
+    private int tableRotation = -1;
+    private boolean tableMirror = false;
+    private int tableYRowStride = -1;
+    private int tableYPixelStride = -1;
+    private int tableUvRowStride = -1;
+    private int tableUvPixelStride = -1;
+
+    public YuvPlaneConverter(int outputSize) {
+        this.outputSize = outputSize;
+        rowR = new float[outputSize];
+        rowG = new float[outputSize];
+        rowB = new float[outputSize];
+        yColOffset = new int[outputSize];
+        yRowOffset = new int[outputSize];
+        uvColOffset = new int[outputSize];
+        uvRowOffset = new int[outputSize];
+    }
+
+    /**
+     * Convert raw Y/U/V planes into the model input buffer (CHW, RGB, 0..1)
+     * Plane buffers are read from their current position and left untouched
+     */
+    public void convert(ByteBuffer yBuffer, int yRowStride, int yPixelStride,
+                        ByteBuffer uBuffer, ByteBuffer vBuffer, int uvRowStride, int uvPixelStride,
+                        int width, int height, int rotationDegrees, boolean mirror, FloatBuffer out) {
+        int rotation = ((rotationDegrees % 360) + 360) % 360;
+        if (rotation % 90 != 0) {
+            throw new IllegalArgumentException("Unsupported rotation: " + rotationDegrees);
+        }
+
+        // Bulk copy the planes once - much cheaper than per-pixel ByteBuffer.get() on ART
+        yBytes = copyPlane(yBuffer, yBytes);
+        uBytes = copyPlane(uBuffer, uBytes);
+        vBytes = copyPlane(vBuffer, vBytes);
+
+        updateTables(width, height, rotation, mirror, yRowStride, yPixelStride, uvRowStride, uvPixelStride);
+
+        final int size = outputSize;
+        final int channelOffset = size * size;
+        final int outBase = out.position();
+        final byte[] y = yBytes;
+        final byte[] u = uBytes;
+        final byte[] v = vBytes;
+
+        for (int oy = 0; oy < size; oy++) {
+            int yRow = yRowOffset[oy];
+            int uvRow = uvRowOffset[oy];
+            for (int ox = 0; ox < size; ox++) {
+                int luma = y[yRow + yColOffset[ox]] & 0xFF;
+                int uvIndex = uvRow + uvColOffset[ox];
+                int cb = (u[uvIndex] & 0xFF) - 128;
+                int cr = (v[uvIndex] & 0xFF) - 128;
+
+                int r = luma + ((COEFF_RV * cr) >> 16);
+                int g = luma - ((COEFF_GU * cb + COEFF_GV * cr) >> 16);
+                int b = luma + ((COEFF_BU * cb) >> 16);
+
+                rowR[ox] = NORMALIZE[r < 0 ? 0 : (r > 255 ? 255 : r)];
+                rowG[ox] = NORMALIZE[g < 0 ? 0 : (g > 255 ? 255 : g)];
+                rowB[ox] = NORMALIZE[b < 0 ? 0 : (b > 255 ? 255 : b)];
+            }
+
+            int rowStart = outBase + oy * size;
+            out.position(rowStart);
+            out.put(rowR);
+            out.position(rowStart + channelOffset);
+            out.put(rowG);
+            out.position(rowStart + channelOffset * 2);
+            out.put(rowB);
+        }
+        out.position(outBase);
+    }
+
+    private static byte[] copyPlane(ByteBuffer plane, byte[] target) {
+        int length = plane.remaining();
+        if (target.length < length) {
+            target = new byte[length];
+        }
+        plane.duplicate().get(target, 0, length);
+        return target;
+    }
+
+    /**
+     * Rebuild the separable sampling tables when the frame geometry changes
+     * For an output pixel (ox, oy) we pick the nearest pixel of the rotated (and mirrored) frame,
+     * then map it back into source coordinates so the frame never has to be rotated in memory
+     */
+    private void updateTables(int width, int height, int rotation, boolean mirror,
+                              int yRowStride, int yPixelStride, int uvRowStride, int uvPixelStride) {
+        if (width == tableWidth && height == tableHeight && rotation == tableRotation && mirror == tableMirror
+                && yRowStride == tableYRowStride && yPixelStride == tableYPixelStride
+                && uvRowStride == tableUvRowStride && uvPixelStride == tableUvPixelStride) {
+            return;
+        }
+
+        boolean swapsAxes = rotation == 90 || rotation == 270;
+        int rotatedWidth = swapsAxes ? height : width;
+        int rotatedHeight = swapsAxes ? width : height;
+        final int size = outputSize;
+
+        for (int o = 0; o < size; o++) {
+            // Nearest neighbour in the rotated frame
+            int rx = Math.min(rotatedWidth - 1, (int) ((o + 0.5f) * rotatedWidth / size));
+            int ry = Math.min(rotatedHeight - 1, (int) ((o + 0.5f) * rotatedHeight / size));
+            if (mirror) {
+                rx = rotatedWidth - 1 - rx;
+            }
+
+            // Column index o drives rx, row index o drives ry; map each back to source x/y
+            switch (rotation) {
+                case 90: {
+                    int sy = height - 1 - rx;  // from column
+                    int sx = ry;               // from row
+                    yColOffset[o] = sy * yRowStride;
+                    uvColOffset[o] = (sy >> 1) * uvRowStride;
+                    yRowOffset[o] = sx * yPixelStride;
+                    uvRowOffset[o] = (sx >> 1) * uvPixelStride;
+                    break;
+                }
+                case 180: {
+                    int sx = width - 1 - rx;
+                    int sy = height - 1 - ry;
+                    yColOffset[o] = sx * yPixelStride;
+                    uvColOffset[o] = (sx >> 1) * uvPixelStride;
+                    yRowOffset[o] = sy * yRowStride;
+                    uvRowOffset[o] = (sy >> 1) * uvRowStride;
+                    break;
+                }
+                case 270: {
+                    int sy = rx;               // from column
+                    int sx = width - 1 - ry;   // from row
+                    yColOffset[o] = sy * yRowStride;
+                    uvColOffset[o] = (sy >> 1) * uvRowStride;
+                    yRowOffset[o] = sx * yPixelStride;
+                    uvRowOffset[o] = (sx >> 1) * uvPixelStride;
+                    break;
+                }
+                default: {
+                    yColOffset[o] = rx * yPixelStride;
+                    uvColOffset[o] = (rx >> 1) * uvPixelStride;
+                    yRowOffset[o] = ry * yRowStride;
+                    uvRowOffset[o] = (ry >> 1) * uvRowStride;
+                    break;
+                }
+            }
+        }
+
+        tableWidth = width;
+        tableHeight = height;
+        tableRotation = rotation;
+        tableMirror = mirror;
+        tableYRowStride = yRowStride;
+        tableYPixelStride = yPixelStride;
+        tableUvRowStride = uvRowStride;
+        tableUvPixelStride = uvPixelStride;
+        if (PoseLog.ENABLED) {
+            PoseLog.d(TAG, "Sampling tables rebuilt for %dx%d @%d%s", width, height, rotation, mirror ? " mirrored" : "");
+        }
+    }
+
+    public int getOutputSize() {
+        return outputSize;
+    }
+}
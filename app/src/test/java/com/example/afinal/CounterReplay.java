@@ -0,0 +1,177 @@
+package com.example.afinal;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * CounterReplay - Feeds recorded pose streams (PoseRecording files) through the rep counters on the plain JVM
+ * Reports reps, time per frame and bytes allocated per frame for every counter, so a change to one counter shows
+ * up as a diff in counts or cost; run from CounterReplayTest on every build, or by hand:
+ * java ... com.example.afinal.CounterReplay path/to/recordings
+ */
+public final class CounterReplay {
+
+    static {
+        // Counters log through PoseLog; there's no logcat here
+        PoseLog.setSink(PoseLog.SILENT);
+    }
+
+    /**
+     * Frames of one recording, loaded up front so file reads don't count towards the timings
+     */
+    public static final class Recording {
+        public final String name;
+        public final String exerciseId;
+        public final List<PoseFrame> frames;
+
+        Recording(String name, String exerciseId, List<PoseFrame> frames) {
+            this.name = name;
+            this.exerciseId = exerciseId;
+            this.frames = frames;
+        }
+
+        public static Recording load(String name, InputStream stream) throws IOException {
+            List<PoseFrame> frames = new ArrayList<>();
+            try (PoseRecording.Reader reader = new PoseRecording.Reader(stream)) {
+                PoseFrame pose = new PoseFrame();
+                while (reader.next(pose)) {
+                    frames.add(pose);
+                    pose = new PoseFrame();
+                }
+                return new Recording(name, reader.getExerciseId(), frames);
+            }
+        }
+
+        public static Recording load(File file) throws IOException {
+            return load(file.getName(), new FileInputStream(file));
+        }
+    }
+
+    public static final class Result {
+        public final String recording;
+        public final String exerciseId;
+        public final int reps;
+        public final int frames;
+        public final double nanosPerFrame;
+        public final double bytesPerFrame; // -1 where the JVM can't measure thread allocations
+
+        Result(String recording, String exerciseId, int reps, int frames, double nanosPerFrame, double bytesPerFrame) {
+            this.recording = recording;
+            this.exerciseId = exerciseId;
+            this.reps = reps;
+            this.frames = frames;
+            this.nanosPerFrame = nanosPerFrame;
+            this.bytesPerFrame = bytesPerFrame;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%-32s %-16s %5d reps %8.0f ns/frame %8.1f B/frame",
+                    recording, exerciseId, reps, nanosPerFrame, bytesPerFrame);
+        }
+    }
+
+    private CounterReplay() {
+    }
+
+    /**
+     * Run one counter over a recording, the way the analysis thread would: one frame after another, same thread
+     */
+    public static Result replay(Recording recording, ExerciseRegistry.Exercise exercise) {
+        List<PoseFrame> frames = recording.frames;
+        // Untimed pass on a throwaway counter so class loading and JIT don't land on whichever counter runs first
+        RepCounter warmup = newCounter(exercise);
+        for (int i = 0, n = frames.size(); i < n; i++) {
+            warmup.processKeypoints(frames.get(i));
+        }
+
+        RepCounter counter = newCounter(exercise);
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0, n = frames.size(); i < n; i++) {
+            counter.processKeypoints(frames.get(i));
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytesAfter = allocatedBytes();
+
+        int n = Math.max(1, frames.size());
+        double bytesPerFrame = bytesBefore < 0 ? -1 : (double) (bytesAfter - bytesBefore) / n;
+        return new Result(recording.name, exercise.id, counter.getCount(), frames.size(), (double) elapsed / n,
+                bytesPerFrame);
+    }
+
+    private static RepCounter newCounter(ExerciseRegistry.Exercise exercise) {
+        RepCounter counter = exercise.createCounter(count -> {
+        });
+        // Counting starts after the countdown, where MainActivity enables detection and resets
+        counter.setDetectionEnabled(true);
+        counter.reset();
+        return counter;
+    }
+
+    /**
+     * Every registered counter over one recording; the recorded exercise's counter comes first
+     * @throws IllegalArgumentException if the recording's exercise isn't registered (ExerciseRegistry.get would
+     * quietly hand back the jump counter, and the file would be checked against the wrong one)
+     */
+    public static List<Result> replayAll(Recording recording) {
+        ExerciseRegistry.Exercise recorded;
+        try {
+            recorded = ExerciseRegistry.require(recording.exerciseId);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(recording.name + ": " + e.getMessage(), e);
+        }
+
+        List<Result> results = new ArrayList<>();
+        results.add(replay(recording, recorded));
+        for (ExerciseRegistry.Exercise exercise : ExerciseRegistry.getAll()) {
+            if (exercise != recorded) {
+                results.add(replay(recording, exercise));
+            }
+        }
+        return results;
+    }
+
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Replays every .pose file in the given files/directories and prints one line per counter
+     */
+    public static void main(String[] args) throws IOException {
+        List<File> files = new ArrayList<>();
+        for (String arg : args) {
+            File file = new File(arg);
+            File[] children = file.isDirectory() ? file.listFiles() : new File[]{file};
+            if (children != null) {
+                for (File child : children) {
+                    if (child.getName().endsWith(PoseRecording.FILE_EXTENSION)) {
+                        files.add(child);
+                    }
+                }
+            }
+        }
+        for (File file : files) {
+            Recording recording = Recording.load(file);
+            System.out.println(recording.name + " (" + recording.exerciseId + ", " + recording.frames.size() + " frames)");
+            for (Result result : replayAll(recording)) {
+                System.out.println("  " + result);
+            }
+        }
+    }
+}
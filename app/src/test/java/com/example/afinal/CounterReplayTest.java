@@ -0,0 +1,248 @@
+package com.example.afinal;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Replays pose streams through the counters on the host JVM
+ * Generated streams, one per registered exercise, with a known number of reps; real recordings can be replayed by
+ * hand with CounterReplay.main
+ */
+public class CounterReplayTest {
+    private static final long FRAME_NANOS = 33_333_333L; // 30 fps camera
+    private static final long START_NANOS = 100_000_000_000L; // Device uptime clock, never near zero
+
+    @Test
+    public void recordingRoundTrips() throws IOException {
+        CounterReplay.Recording recording = syntheticSquats(3);
+
+        assertEquals("squat", recording.exerciseId);
+        assertEquals(3 * 60, recording.frames.size());
+        PoseFrame first = recording.frames.get(0);
+        assertTrue(first.hasPose());
+        assertEquals(START_NANOS, first.getTimestampNanos());
+        assertEquals(0.30f, first.y(PoseFrame.LEFT_SHOULDER), 1e-6f);
+        assertFalse(recording.frames.get(1).hasPose()); // Dropped detection mid-stream
+    }
+
+    @Test
+    public void syntheticSquats_countEveryRep() throws IOException {
+        CounterReplay.Recording recording = syntheticSquats(5);
+
+        CounterReplay.Result result = CounterReplay.replay(recording, ExerciseRegistry.get("squat"));
+
+        assertEquals(5, result.reps);
+        assertEquals(recording.frames.size(), result.frames);
+    }
+
+    @Test
+    public void syntheticStreams_countEveryRepOnEveryCounter() throws IOException {
+        StringBuilder report = new StringBuilder();
+        StringBuilder failures = new StringBuilder();
+        for (ExerciseRegistry.Exercise exercise : ExerciseRegistry.getAll()) {
+            CounterReplay.Recording recording = syntheticStream(exercise.id, 6);
+
+            List<CounterReplay.Result> results = CounterReplay.replayAll(recording);
+
+            assertEquals(exercise.id, results.get(0).exerciseId);
+            report.append(recording.name).append(" (").append(recording.exerciseId).append(", expected 6)\n");
+            for (CounterReplay.Result result : results) {
+                report.append("  ").append(result).append('\n');
+            }
+            if (results.get(0).reps != 6) {
+                failures.append(recording.name).append(": ").append(results.get(0).reps).append(" reps, expected 6\n");
+            }
+        }
+        writeReport(report.toString());
+        assertEquals("Synthetic rep counts:\n" + failures, 0, failures.length());
+    }
+
+    @Test
+    public void unknownExercise_failsNamingTheRecording() throws IOException {
+        CounterReplay.Recording recording = synthetic("lunge", 1, 30, (pose, frame, t) -> {
+            standing(pose, 0f);
+            return true;
+        });
+
+        try {
+            CounterReplay.replayAll(recording);
+            fail("Replayed a recording of an unregistered exercise");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("synthetic-lunge"));
+            assertTrue(e.getMessage(), e.getMessage().contains("'lunge'"));
+        }
+    }
+
+    /**
+     * Shoulders dip 0.15 and come back every 2 s; every other frame of the first rep has no person in it
+     */
+    private static CounterReplay.Recording syntheticSquats(int reps) throws IOException {
+        return synthetic("squat", reps, 60, (pose, frame, t) -> {
+            if (frame < 60 && frame % 2 == 1) {
+                return false;
+            }
+            float shoulderY = 0.30f + 0.15f * (float) (1 - Math.cos(2 * Math.PI * t)) / 2f;
+            pose.set(PoseFrame.LEFT_SHOULDER, 0.40f, shoulderY, 0.9f);
+            pose.set(PoseFrame.RIGHT_SHOULDER, 0.60f, shoulderY, 0.9f);
+            return true;
+        });
+    }
+
+    /**
+     * Synthetic stream for each exercise: the person stands still for the first part of every rep, then does one
+     * rep the way its counter expects to see it
+     */
+    private static CounterReplay.Recording syntheticStream(String exerciseId, int reps) throws IOException {
+        switch (exerciseId) {
+            case "squat":
+                return syntheticSquats(reps);
+            case "jump":
+                // Whole body up 0.15 and back down in 0.75 s
+                return synthetic(exerciseId, reps, 45, (pose, frame, t) -> {
+                    standing(pose, 0.15f * arc(t, 0.5f, 1f));
+                    return true;
+                });
+            case "arm_circles":
+                // Arms held out sideways, both wrists drawing a 0.15 circle in 1 s
+                return synthetic(exerciseId, reps, 45, (pose, frame, t) -> {
+                    standing(pose, 0f);
+                    double angle = t < 1f / 3 ? 0 : 2 * Math.PI * (t - 1f / 3) * 1.5;
+                    float dx = 0.15f * (float) Math.cos(angle);
+                    float dy = 0.15f * (float) Math.sin(angle);
+                    outstretched(pose, PoseFrame.LEFT_SHOULDER, PoseFrame.LEFT_ELBOW, PoseFrame.LEFT_WRIST,
+                            -0.25f + dx, dy);
+                    outstretched(pose, PoseFrame.RIGHT_SHOULDER, PoseFrame.RIGHT_ELBOW, PoseFrame.RIGHT_WRIST,
+                            0.25f - dx, dy);
+                    return true;
+                });
+            case "high_knees":
+                // One knee up 0.15 per rep, alternating legs
+                return synthetic(exerciseId, reps, 30, (pose, frame, t) -> {
+                    standing(pose, 0f);
+                    int knee = (frame / 30) % 2 == 0 ? PoseFrame.LEFT_KNEE : PoseFrame.RIGHT_KNEE;
+                    pose.set(knee, pose.x(knee), pose.y(knee) - 0.15f * arc(t, 0.5f, 1f), 0.9f);
+                    return true;
+                });
+            case "side_reach":
+                // One arm swings from hanging to straight out sideways, alternating arms
+                return synthetic(exerciseId, reps, 45, (pose, frame, t) -> {
+                    standing(pose, 0f);
+                    float reach = arc(t, 0.5f, 1f);
+                    boolean left = (frame / 45) % 2 == 0;
+                    int wrist = left ? PoseFrame.LEFT_WRIST : PoseFrame.RIGHT_WRIST;
+                    float outX = left ? 0.10f : 0.90f;
+                    pose.set(wrist, pose.x(wrist) + (outX - pose.x(wrist)) * reach,
+                            pose.y(wrist) + (0.30f - pose.y(wrist)) * reach, 0.9f);
+                    return true;
+                });
+            case "jack_jumps":
+                // Jump 0.15 with both arms thrown up over the head on the way up
+                return synthetic(exerciseId, reps, 45, (pose, frame, t) -> {
+                    float lift = arc(t, 0.5f, 1f);
+                    standing(pose, 0.15f * lift);
+                    float arms = Math.min(1f, 3 * lift);
+                    for (int wrist : new int[]{PoseFrame.LEFT_WRIST, PoseFrame.RIGHT_WRIST}) {
+                        pose.set(wrist, pose.x(wrist), pose.y(wrist) - 0.45f * arms, 0.9f);
+                    }
+                    return true;
+                });
+            case "biceps_curl":
+                // Left wrist curls 0.25 up to the elbow and back in a quarter second
+                return synthetic(exerciseId, reps, 30, (pose, frame, t) -> {
+                    standing(pose, 0f);
+                    pose.set(PoseFrame.LEFT_WRIST, 0.38f, 0.55f - 0.25f * arc(t, 0.7f, 0.95f), 0.9f);
+                    return true;
+                });
+            case "shoulder_press":
+                // Wrists start at shoulder height and press 0.25 overhead
+                return synthetic(exerciseId, reps, 45, (pose, frame, t) -> {
+                    standing(pose, 0f);
+                    float wristY = 0.30f - 0.25f * arc(t, 0.5f, 1f);
+                    pose.set(PoseFrame.LEFT_ELBOW, 0.32f, 0.38f, 0.9f);
+                    pose.set(PoseFrame.RIGHT_ELBOW, 0.68f, 0.38f, 0.9f);
+                    pose.set(PoseFrame.LEFT_WRIST, 0.34f, wristY, 0.9f);
+                    pose.set(PoseFrame.RIGHT_WRIST, 0.66f, wristY, 0.9f);
+                    return true;
+                });
+            default:
+                throw new AssertionError("No synthetic stream for registered exercise '" + exerciseId + "'");
+        }
+    }
+
+    private interface Motion {
+        /**
+         * Fill in the pose for one frame, t being how far into its rep it is (0..1); false for a frame with no
+         * person detected
+         */
+        boolean pose(PoseFrame pose, int frame, float t);
+    }
+
+    private static CounterReplay.Recording synthetic(String exerciseId, int reps, int framesPerRep, Motion motion)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PoseFrame pose = new PoseFrame();
+        try (PoseRecording.Writer writer = new PoseRecording.Writer(bytes, exerciseId)) {
+            for (int i = 0; i < reps * framesPerRep; i++) {
+                pose.clear();
+                boolean detected = motion.pose(pose, i, (float) (i % framesPerRep) / framesPerRep);
+                pose.setMetadata(i, START_NANOS + i * FRAME_NANOS, detected);
+                writer.write(pose);
+            }
+        }
+        return CounterReplay.Recording.load("synthetic-" + exerciseId, new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    // 0 outside [from, to), rising to 1 and back to 0 across it
+    private static float arc(float t, float from, float to) {
+        return t < from || t >= to ? 0f : (float) Math.sin(Math.PI * (t - from) / (to - from));
+    }
+
+    // Facing the camera, arms hanging, raised by lift (image y grows downwards)
+    private static void standing(PoseFrame pose, float lift) {
+        pose.set(PoseFrame.NOSE, 0.50f, 0.15f - lift, 0.9f);
+        pose.set(PoseFrame.LEFT_SHOULDER, 0.40f, 0.30f - lift, 0.9f);
+        pose.set(PoseFrame.RIGHT_SHOULDER, 0.60f, 0.30f - lift, 0.9f);
+        pose.set(PoseFrame.LEFT_ELBOW, 0.39f, 0.42f - lift, 0.9f);
+        pose.set(PoseFrame.RIGHT_ELBOW, 0.61f, 0.42f - lift, 0.9f);
+        pose.set(PoseFrame.LEFT_WRIST, 0.38f, 0.55f - lift, 0.9f);
+        pose.set(PoseFrame.RIGHT_WRIST, 0.62f, 0.55f - lift, 0.9f);
+        pose.set(PoseFrame.LEFT_HIP, 0.42f, 0.55f - lift, 0.9f);
+        pose.set(PoseFrame.RIGHT_HIP, 0.58f, 0.55f - lift, 0.9f);
+        pose.set(PoseFrame.LEFT_KNEE, 0.43f, 0.75f - lift, 0.9f);
+        pose.set(PoseFrame.RIGHT_KNEE, 0.57f, 0.75f - lift, 0.9f);
+        pose.set(PoseFrame.LEFT_ANKLE, 0.43f, 0.92f - lift, 0.9f);
+        pose.set(PoseFrame.RIGHT_ANKLE, 0.57f, 0.92f - lift, 0.9f);
+    }
+
+    // Straight arm from the shoulder to shoulder + (dx, dy), elbow halfway
+    private static void outstretched(PoseFrame pose, int shoulder, int elbow, int wrist, float dx, float dy) {
+        float x = pose.x(shoulder);
+        float y = pose.y(shoulder);
+        pose.set(elbow, x + dx / 2, y + dy / 2, 0.9f);
+        pose.set(wrist, x + dx, y + dy, 0.9f);
+    }
+
+    // Gradle passes the report dir; running from the IDE just prints
+    private static void writeReport(String report) throws IOException {
+        String dir = System.getProperty("counterReplay.reportDir");
+        if (dir == null) {
+            return;
+        }
+        File file = new File(dir, "counter-replay.txt");
+        if (!file.getParentFile().isDirectory() && !file.getParentFile().mkdirs()) {
+            return;
+        }
+        try (Writer out = new FileWriter(file)) {
+            out.write(report);
+        }
+    }
+}
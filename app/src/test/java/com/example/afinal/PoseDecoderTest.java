@@ -0,0 +1,153 @@
+package com.example.afinal;
+
+import org.junit.Test;
+
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * PoseDecoder against the float[][][] parser it replaced, on synthetic [56, anchors] outputs
+ */
+public class PoseDecoderTest {
+    private static final int CHANNELS = 5 + PoseDecoder.KEYPOINT_VALUES;
+    private static final int INPUT_SIZE = 320;
+
+    @Test
+    public void decodeBest_matchesLegacyParser() {
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            int anchors = 1 + random.nextInt(300);
+            float[][] detections = randomDetections(random, anchors);
+            boolean portrait = round % 2 == 0;
+            int width = portrait ? 480 : 640;
+            int height = portrait ? 640 : 480;
+
+            float[] expected = legacyParse(detections, width, height);
+            float[] actual = new float[PoseDecoder.KEYPOINT_VALUES];
+            boolean found = new PoseDecoder(CHANNELS, anchors, INPUT_SIZE)
+                    .decodeBest(channelMajor(detections, round), width, height, actual);
+
+            assertTrue(found);
+            assertArrayEquals("round " + round, expected, actual, 0f);
+        }
+    }
+
+    @Test
+    public void decodeBest_nothingAboveMinimumScore() {
+        float[][] detections = new float[CHANNELS][10];
+        float[] out = new float[PoseDecoder.KEYPOINT_VALUES];
+        out[0] = 1f;
+
+        assertFalse(new PoseDecoder(CHANNELS, 10, INPUT_SIZE).decodeBest(channelMajor(detections, 0), 640, 480, out));
+        assertArrayEquals(new float[PoseDecoder.KEYPOINT_VALUES], out, 0f);
+    }
+
+    @Test
+    public void decodeTopK_ordersByScoreAndSuppressesOverlaps() {
+        int anchors = 8;
+        float[][] detections = new float[CHANNELS][anchors];
+        for (int i = 0; i < anchors; i++) {
+            setBox(detections, i, 20 + 40 * i, 160, 30, 100, 0.01f);
+            // Tells the anchors apart in the output: nose x = 10 * (anchor + 1) input pixels
+            detections[5][i] = 10 * (i + 1);
+        }
+        setBox(detections, 0, 100, 160, 60, 120, 0.90f);
+        setBox(detections, 1, 104, 162, 60, 118, 0.80f); // Same person as anchor 0, lower score
+        setBox(detections, 2, 220, 160, 50, 110, 0.85f);
+        setBox(detections, 3, 40, 100, 30, 60, 0.70f);
+        setBox(detections, 4, 300, 160, 20, 40, 0.40f); // Below the threshold
+
+        float[] out = new float[4 * PoseDecoder.KEYPOINT_VALUES];
+        int written = new PoseDecoder(CHANNELS, anchors, INPUT_SIZE)
+                .decodeTopK(channelMajor(detections, 3), 4, 0.5f, 0.5f, 640, 480, out);
+
+        assertEquals(3, written);
+        int[] expectedAnchors = {0, 2, 3};
+        for (int p = 0; p < written; p++) {
+            float noseX = 1f - 10f * (expectedAnchors[p] + 1) / INPUT_SIZE; // Mirrored, landscape
+            assertEquals("pose " + p, noseX, out[p * PoseDecoder.KEYPOINT_VALUES], 1e-6f);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decodeTopK_rejectsTooSmallOutput() {
+        float[][] detections = new float[CHANNELS][4];
+        new PoseDecoder(CHANNELS, 4, INPUT_SIZE).decodeTopK(channelMajor(detections, 0), 2, 0.5f, 0.5f, 640, 480,
+                new float[PoseDecoder.KEYPOINT_VALUES]);
+    }
+
+    private static void setBox(float[][] detections, int anchor, float cx, float cy, float w, float h, float score) {
+        detections[0][anchor] = cx;
+        detections[1][anchor] = cy;
+        detections[2][anchor] = w;
+        detections[3][anchor] = h;
+        detections[4][anchor] = score;
+    }
+
+    private static float[][] randomDetections(Random random, int anchors) {
+        float[][] detections = new float[CHANNELS][anchors];
+        for (int c = 0; c < CHANNELS; c++) {
+            boolean probability = c == 4 || (c >= 5 && (c - 5) % 3 == 2);
+            for (int i = 0; i < anchors; i++) {
+                // Coordinates a little outside the input too, so the clamping is exercised
+                detections[c][i] = probability ? random.nextFloat() : random.nextFloat() * 360f - 20f;
+            }
+        }
+        return detections;
+    }
+
+    // Flat [56 * anchors] channel-major buffer as the runtime hands it over, starting at an offset
+    private static FloatBuffer channelMajor(float[][] detections, int offset) {
+        int anchors = detections[0].length;
+        FloatBuffer buffer = FloatBuffer.allocate(offset + CHANNELS * anchors);
+        buffer.position(offset);
+        for (float[] channel : detections) {
+            buffer.put(channel);
+        }
+        buffer.position(offset);
+        return buffer;
+    }
+
+    // MainActivity.parseKeypoints before PoseDecoder, flattened to x, y, conf triples
+    private static float[] legacyParse(float[][] detections, int imgWidth, int imgHeight) {
+        float[] keypoints = new float[PoseDecoder.KEYPOINT_VALUES];
+        int numDetections = detections[0].length;
+        float bestScore = -1;
+        int bestIdx = -1;
+        for (int i = 0; i < numDetections; i++) {
+            float score = detections[4][i];
+            float x1 = detections[0][i];
+            float y1 = detections[1][i];
+            float x2 = detections[2][i];
+            float y2 = detections[3][i];
+            float area = Math.abs((x2 - x1) * (y2 - y1));
+            float combinedScore = score * (1 + area * 0.001f);
+            if (combinedScore > bestScore) {
+                bestScore = combinedScore;
+                bestIdx = i;
+            }
+        }
+        if (bestIdx == -1 || detections[4][bestIdx] < 0.0001f) {
+            return keypoints;
+        }
+
+        boolean isPortrait = imgHeight > imgWidth;
+        for (int k = 0; k < 17; k++) {
+            float x = detections[5 + k * 3][bestIdx] / INPUT_SIZE;
+            float y = detections[5 + k * 3 + 1][bestIdx] / INPUT_SIZE;
+            float conf = detections[5 + k * 3 + 2][bestIdx];
+            x = 1.0f - x;
+            if (isPortrait) {
+                float temp = x;
+                x = y;
+                y = temp;
+            }
+            keypoints[k * 3] = Math.max(0, Math.min(1, x));
+            keypoints[k * 3 + 1] = Math.max(0, Math.min(1, y));
+            keypoints[k * 3 + 2] = Math.max(0, Math.min(1, conf));
+        }
+        return keypoints;
+    }
+}
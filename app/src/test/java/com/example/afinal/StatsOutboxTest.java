@@ -0,0 +1,93 @@
+package com.example.afinal;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class StatsOutboxTest {
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void appendedEntries_surviveReopen() throws IOException {
+        File file = new File(temp.getRoot(), "stats/outbox.jsonl");
+        new StatsOutbox(file).append(entry("a", "user", "squat", 20, 10));
+        new StatsOutbox(file).append(entry("b", "user", "jump", 15, 8));
+
+        List<StatsOutbox.Entry> entries = new StatsOutbox(file).readAll();
+
+        assertEquals(2, entries.size());
+        assertEquals("a", entries.get(0).id);
+        assertEquals("squat", entries.get(0).request.exerciseType);
+        assertEquals(20, entries.get(0).request.repsCompleted);
+        assertEquals(10, entries.get(0).request.xpEarned);
+    }
+
+    @Test
+    public void tornLastRecord_isSkipped() throws IOException {
+        File file = temp.newFile("outbox.jsonl");
+        StatsOutbox outbox = new StatsOutbox(file);
+        outbox.append(entry("a", "user", "squat", 20, 10));
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write("{\"id\":\"b\",\"userId\":\"us".getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals(1, outbox.size());
+        // The next append still lands on its own line
+        outbox.append(entry("c", "user", "jump", 15, 8));
+        assertEquals(2, outbox.size());
+    }
+
+    @Test
+    public void remove_keepsOtherEntries() throws IOException {
+        File file = temp.newFile("outbox.jsonl");
+        StatsOutbox outbox = new StatsOutbox(file);
+        outbox.append(entry("a", "user", "squat", 20, 10));
+        outbox.append(entry("b", "user", "jump", 15, 8));
+
+        outbox.remove(Collections.singletonList("a"));
+        List<StatsOutbox.Entry> entries = outbox.readAll();
+        assertEquals(1, entries.size());
+        assertEquals("b", entries.get(0).id);
+
+        outbox.remove(Collections.singletonList("b"));
+        assertEquals(0, outbox.size());
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void sameExerciseSessions_stayIndividualEntries() throws IOException {
+        File file = temp.newFile("outbox.jsonl");
+        StatsOutbox outbox = new StatsOutbox(file);
+        outbox.append(entry("a", "user", "squat", 20, 10));
+        outbox.append(entry("b", "user", "squat", 15, 8));
+        // Line from a build that still wrote a sessionCount field
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(("{\"id\":\"c\",\"userId\":\"user\",\"queuedAt\":0,\"request\":{\"exerciseType\":\"squat\","
+                    + "\"repsCompleted\":12,\"xpEarned\":6,\"sessionDuration\":30,\"sessionCount\":1}}\n")
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<StatsOutbox.Entry> entries = outbox.readAll();
+
+        // Each one is sent as its own update: the API counts a session per call
+        assertEquals(3, entries.size());
+        assertEquals(20, entries.get(0).request.repsCompleted);
+        assertEquals(15, entries.get(1).request.repsCompleted);
+        assertEquals("c", entries.get(2).id);
+        assertEquals(12, entries.get(2).request.repsCompleted);
+    }
+
+    private static StatsOutbox.Entry entry(String id, String userId, String exercise, int reps, int xp) {
+        return new StatsOutbox.Entry(id, userId, 0L, new ApiService.UpdateStatsRequest(exercise, reps, xp, 30));
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.afinal;
+
+import android.content.SharedPreferences;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local stats bookkeeping on the host JVM, over an in-memory SharedPreferences
+ */
+public class StatsStoreTest {
+
+    @Test
+    public void completedSquatSession_onlyMovesSquatTotals() {
+        StatsStore store = new StatsStore(new MemoryPrefs());
+        ExerciseRegistry.Exercise squat = ExerciseRegistry.get("squat");
+
+        // What MainActivity.completeExercise writes - nothing else touches the prefs during a session
+        store.addLocalSession(squat.statsKey, squat.repTarget, squat.xpReward);
+
+        ApiService.UserStats stats = store.load();
+        assertEquals(squat.repTarget, stats.totalSquats);
+        assertEquals(0, stats.totalJumps);
+        assertEquals(squat.xpReward, stats.xp);
+        assertEquals(1, stats.exercisesCompleted);
+    }
+
+    @Test
+    public void localSessions_addOnTopOfServerStats() {
+        StatsStore store = new StatsStore(new MemoryPrefs());
+        ApiService.UserStats server = new ApiService.UserStats();
+        server.xp = 150;
+        server.totalJumps = 40;
+        server.exercisesCompleted = 2;
+        server.currentLevelXp = 50;
+        store.save(server);
+        ExerciseRegistry.Exercise jump = ExerciseRegistry.get("jump");
+
+        store.addLocalSession(jump.statsKey, jump.repTarget, jump.xpReward);
+
+        ApiService.UserStats stats = store.load();
+        assertEquals(40 + jump.repTarget, stats.totalJumps);
+        assertEquals(3, stats.exercisesCompleted);
+        assertEquals(150 + jump.xpReward, stats.xp);
+        // Server's level progress is stale after a local session; derived from xp until the next sync
+        assertEquals((150 + jump.xpReward) % 100, stats.currentLevelXp);
+    }
+
+    private static final class MemoryPrefs implements SharedPreferences {
+        private final Map<String, Object> values = new HashMap<>();
+
+        @Override
+        public Map<String, ?> getAll() {
+            return new HashMap<>(values);
+        }
+
+        @Override
+        public String getString(String key, String defValue) {
+            return values.containsKey(key) ? (String) values.get(key) : defValue;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Set<String> getStringSet(String key, Set<String> defValues) {
+            return values.containsKey(key) ? (Set<String>) values.get(key) : defValues;
+        }
+
+        @Override
+        public int getInt(String key, int defValue) {
+            return values.containsKey(key) ? (Integer) values.get(key) : defValue;
+        }
+
+        @Override
+        public long getLong(String key, long defValue) {
+            return values.containsKey(key) ? (Long) values.get(key) : defValue;
+        }
+
+        @Override
+        public float getFloat(String key, float defValue) {
+            return values.containsKey(key) ? (Float) values.get(key) : defValue;
+        }
+
+        @Override
+        public boolean getBoolean(String key, boolean defValue) {
+            return values.containsKey(key) ? (Boolean) values.get(key) : defValue;
+        }
+
+        @Override
+        public boolean contains(String key) {
+            return values.containsKey(key);
+        }
+
+        @Override
+        public Editor edit() {
+            return new MemoryEditor();
+        }
+
+        @Override
+        public void registerOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        }
+
+        @Override
+        public void unregisterOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        }
+
+        // Same commit order as the framework: clear() first, then removals and puts
+        private final class MemoryEditor implements Editor {
+            private final Map<String, Object> pending = new HashMap<>();
+            private boolean clear;
+
+            @Override
+            public Editor putString(String key, String value) {
+                pending.put(key, value);
+                return this;
+            }
+
+            @Override
+            public Editor putStringSet(String key, Set<String> values) {
+                pending.put(key, values);
+                return this;
+            }
+
+            @Override
+            public Editor putInt(String key, int value) {
+                pending.put(key, value);
+                return this;
+            }
+
+            @Override
+            public Editor putLong(String key, long value) {
+                pending.put(key, value);
+                return this;
+            }
+
+            @Override
+            public Editor putFloat(String key, float value) {
+                pending.put(key, value);
+                return this;
+            }
+
+            @Override
+            public Editor putBoolean(String key, boolean value) {
+                pending.put(key, value);
+                return this;
+            }
+
+            @Override
+            public Editor remove(String key) {
+                pending.put(key, null);
+                return this;
+            }
+
+            @Override
+            public Editor clear() {
+                clear = true;
+                return this;
+            }
+
+            @Override
+            public boolean commit() {
+                if (clear) {
+                    values.clear();
+                }
+                for (Map.Entry<String, Object> change : pending.entrySet()) {
+                    if (change.getValue() == null) {
+                        values.remove(change.getKey());
+                    } else {
+                        values.put(change.getKey(), change.getValue());
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public void apply() {
+                commit();
+            }
+        }
+    }
+}
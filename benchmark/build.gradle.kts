@@ -0,0 +1,66 @@
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+// JVM microbenchmarks for the per-frame hot paths. The app is an Android module, so the plain-Java classes
+// are compiled here straight from its sources; anything touching the Android framework stays out.
+// ./gradlew :benchmark:jmh                          -> build/results/jmh/results.json
+// ./gradlew :benchmark:jmh -PjmhIncludes=Counter    -> only benchmarks matching the regex
+val sharedAppSources = listOf(
+    "PoseFrame",
+    "PoseDecoder",
+    "YuvPlaneConverter",
+    "KeypointSmoother",
+    "PoseLog",
+    "FrameTrace",
+    "RepCounter",
+    "ExerciseRegistry",
+    "JumpCounter",
+    "ArmCircleCounter",
+    "HighKneeCounter",
+    "SideReachCounter",
+    "JackJumpsCounter",
+    "BicepsCurlCounter",
+    "ShoulderPressCounter",
+    "SquatCounter",
+)
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_17
+    targetCompatibility = JavaVersion.VERSION_17
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8" // The counters' log messages have emoji in them
+}
+
+sourceSets {
+    main {
+        java {
+            srcDir("../app/src/main/java")
+            include(sharedAppSources.map { "com/example/afinal/$it.java" })
+            // Release-build flags standing in for the generated BuildConfig
+            include("com/example/afinal/BuildConfig.java")
+        }
+    }
+}
+
+dependencies {
+    // android.util.Log for PoseLog's logcat sink; never called here (the benchmarks install the silent sink)
+    implementation(libs.android.stubs) {
+        isTransitive = false
+    }
+}
+
+jmh {
+    jmhVersion = libs.versions.jmh
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    timeOnIteration = "1s"
+    warmup = "1s"
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file("results/jmh/results.json")
+    (findProperty("jmhIncludes") as String?)?.let { includes = listOf(it) }
+}
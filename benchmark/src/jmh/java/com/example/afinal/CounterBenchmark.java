@@ -0,0 +1,55 @@
+package com.example.afinal;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CounterBenchmark - One processKeypoints call per operation, for every registered exercise
+ * Frames cycle through a synthetic workout, so reps are counted and cooldowns hit along the way
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CounterBenchmark {
+
+    // Keep in sync with ExerciseRegistry; an id it doesn't know fails setUp instead of benchmarking jumps
+    @Param({"jump", "arm_circles", "high_knees", "side_reach", "jack_jumps", "biceps_curl", "shoulder_press", "squat"})
+    public String exercise;
+
+    private RepCounter counter;
+    private PoseFrame[] frames;
+    private int next = 0;
+
+    @Setup
+    public void setUp() {
+        PoseLog.setSink(PoseLog.SILENT);
+        counter = ExerciseRegistry.require(exercise).createCounter(count -> {
+        });
+        counter.setDetectionEnabled(true);
+        counter.reset();
+        frames = SyntheticPoses.exerciseCycle(600, 10);
+    }
+
+    @Benchmark
+    public int processKeypoints() {
+        PoseFrame pose = frames[next];
+        counter.processKeypoints(pose);
+        if (++next == frames.length) {
+            // Wrap around without going back in time, or the cooldowns would block every rep after the first lap
+            next = 0;
+            for (PoseFrame frame : frames) {
+                frame.setMetadata(frame.getFrameId() + frames.length,
+                        frame.getTimestampNanos() + frames.length * SyntheticPoses.FRAME_NANOS, frame.hasPose());
+            }
+        }
+        return counter.getCount();
+    }
+}
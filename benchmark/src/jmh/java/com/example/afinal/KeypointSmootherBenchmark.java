@@ -0,0 +1,36 @@
+package com.example.afinal;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * KeypointSmootherBenchmark - The overlay's per-frame jitter filter (PoseOverlayView.setKeypoints)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class KeypointSmootherBenchmark {
+    private PoseFrame[] frames;
+    private final PoseFrame smoothed = new PoseFrame();
+    private int next = 0;
+
+    @Setup
+    public void setUp() {
+        frames = SyntheticPoses.exerciseCycle(240, 60);
+    }
+
+    @Benchmark
+    public PoseFrame smooth() {
+        KeypointSmoother.smooth(smoothed, frames[next]);
+        next = next + 1 == frames.length ? 0 : next + 1;
+        return smoothed;
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.example.afinal;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PoseDecoderBenchmark - Anchor scan and keypoint decode over a YOLOv8-pose output tensor
+ * Background anchors have low scores and one person scores high, roughly what a real frame looks like
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PoseDecoderBenchmark {
+    private static final int CHANNELS = 5 + PoseDecoder.KEYPOINT_VALUES;
+
+    @Param({"320", "256", "192"})
+    public int inputSize;
+
+    private PoseDecoder decoder;
+    private FloatBuffer output;
+    private final float[] keypoints = new float[PoseFrame.SIZE];
+
+    @Setup
+    public void setUp() {
+        int anchors = anchorCount(inputSize);
+        decoder = new PoseDecoder(CHANNELS, anchors, inputSize);
+        output = ByteBuffer.allocateDirect(CHANNELS * anchors * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+
+        Random random = new Random(42);
+        for (int c = 0; c < CHANNELS; c++) {
+            for (int a = 0; a < anchors; a++) {
+                float value;
+                if (c < 4) {
+                    value = random.nextFloat() * inputSize;        // Box
+                } else if (c == 4) {
+                    value = random.nextFloat() * 0.01f;            // Score: mostly background
+                } else {
+                    value = (c - 5) % 3 == 2 ? random.nextFloat() : random.nextFloat() * inputSize;
+                }
+                output.put(c * anchors + a, value);
+            }
+        }
+        int person = anchors / 3;
+        output.put(4 * anchors + person, 0.92f);
+    }
+
+    @Benchmark
+    public int findBestAnchor() {
+        return decoder.findBestAnchor(output);
+    }
+
+    @Benchmark
+    public float[] decodeBest() {
+        decoder.decodeBest(output, 640, 480, keypoints);
+        return keypoints;
+    }
+
+    // Same as ModelVariant.getAnchorCount: strides 8, 16 and 32
+    private static int anchorCount(int inputSize) {
+        int anchors = 0;
+        for (int stride = 8; stride <= 32; stride *= 2) {
+            int cells = inputSize / stride;
+            anchors += cells * cells;
+        }
+        return anchors;
+    }
+}
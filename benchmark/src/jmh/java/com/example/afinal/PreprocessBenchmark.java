@@ -0,0 +1,86 @@
+package com.example.afinal;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PreprocessBenchmark - YUV_420_888 planes to the normalized CHW model input (YuvPlaneConverter)
+ * 640x480 camera frames, as ImageAnalysis delivers them, at every input size on the model ladder
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PreprocessBenchmark {
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+
+    @Param({"320", "256", "192"})
+    public int inputSize;
+
+    @Param({"0", "90"})
+    public int rotation;
+
+    // 1 = planar (I420), 2 = semi-planar (NV12/NV21, what most cameras hand out)
+    @Param({"1", "2"})
+    public int uvPixelStride;
+
+    private YuvPlaneConverter converter;
+    private ByteBuffer yPlane;
+    private ByteBuffer uPlane;
+    private ByteBuffer vPlane;
+    private int uvRowStride;
+    private FloatBuffer input;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        converter = new YuvPlaneConverter(inputSize);
+        yPlane = randomDirect(random, WIDTH * HEIGHT);
+
+        int chromaWidth = WIDTH / 2;
+        int chromaHeight = HEIGHT / 2;
+        if (uvPixelStride == 1) {
+            uvRowStride = chromaWidth;
+            uPlane = randomDirect(random, chromaWidth * chromaHeight);
+            vPlane = randomDirect(random, chromaWidth * chromaHeight);
+        } else {
+            // Interleaved VU: both planes view the same memory one byte apart, like CameraX on most devices
+            uvRowStride = WIDTH;
+            ByteBuffer vu = randomDirect(random, WIDTH * chromaHeight);
+            vPlane = vu.duplicate();
+            vPlane.limit(WIDTH * chromaHeight - 1);
+            vu.position(1);
+            uPlane = vu.slice();
+        }
+
+        // Same layout as the pinned ONNX input tensor
+        input = ByteBuffer.allocateDirect(3 * inputSize * inputSize * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+    }
+
+    @Benchmark
+    public FloatBuffer convert() {
+        converter.convert(yPlane, WIDTH, 1, uPlane, vPlane, uvRowStride, uvPixelStride,
+                WIDTH, HEIGHT, rotation, true, input);
+        return input;
+    }
+
+    private static ByteBuffer randomDirect(Random random, int size) {
+        byte[] bytes = new byte[size];
+        random.nextBytes(bytes);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+        buffer.put(bytes).flip();
+        return buffer;
+    }
+}
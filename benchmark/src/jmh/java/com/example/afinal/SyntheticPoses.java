@@ -0,0 +1,55 @@
+package com.example.afinal;
+
+/**
+ * SyntheticPoses - Deterministic 30 fps pose streams for the benchmarks
+ * One person standing mid-frame doing a bit of everything each cycle (dip, arms up and out, knee lift),
+ * so every counter walks through its real state transitions instead of bailing out on the first check
+ */
+final class SyntheticPoses {
+    static final long FRAME_NANOS = 33_333_333L;
+    private static final long START_NANOS = 100_000_000_000L; // Uptime clock, far from zero like on a device
+
+    private SyntheticPoses() {
+    }
+
+    /**
+     * @param frames stream length; the motion repeats every framesPerCycle frames
+     */
+    static PoseFrame[] exerciseCycle(int frames, int framesPerCycle) {
+        PoseFrame[] poses = new PoseFrame[frames];
+        for (int i = 0; i < frames; i++) {
+            double phase = 2 * Math.PI * (i % framesPerCycle) / framesPerCycle;
+            float wave = (float) (1 - Math.cos(phase)) / 2f;  // 0 -> 1 -> 0 over a cycle
+            float swing = (float) Math.sin(phase);             // -1 .. 1
+
+            float dip = 0.12f * wave;        // Whole body drops (squat) on even cycles ...
+            float bounce = -0.15f * wave;    // ... and leaves the ground (jump) on odd ones
+            float armRaise = 0.45f * wave;   // Wrists from hip height to above the head
+            float armSpread = 0.15f * wave;
+            float kneeLift = 0.10f * Math.max(0f, swing);
+
+            PoseFrame pose = new PoseFrame();
+            float body = (i / framesPerCycle) % 2 == 0 ? dip : bounce;
+            pose.set(PoseFrame.NOSE, 0.50f, 0.20f + body, 0.95f);
+            pose.set(PoseFrame.LEFT_EYE, 0.48f, 0.18f + body, 0.9f);
+            pose.set(PoseFrame.RIGHT_EYE, 0.52f, 0.18f + body, 0.9f);
+            pose.set(PoseFrame.LEFT_EAR, 0.46f, 0.19f + body, 0.8f);
+            pose.set(PoseFrame.RIGHT_EAR, 0.54f, 0.19f + body, 0.8f);
+            pose.set(PoseFrame.LEFT_SHOULDER, 0.42f, 0.30f + body, 0.9f);
+            pose.set(PoseFrame.RIGHT_SHOULDER, 0.58f, 0.30f + body, 0.9f);
+            pose.set(PoseFrame.LEFT_ELBOW, 0.38f - armSpread / 2, 0.42f + body - armRaise / 4, 0.85f);
+            pose.set(PoseFrame.RIGHT_ELBOW, 0.62f + armSpread / 2, 0.42f + body - armRaise / 4, 0.85f);
+            pose.set(PoseFrame.LEFT_WRIST, 0.36f - armSpread, 0.52f + body - armRaise, 0.8f);
+            pose.set(PoseFrame.RIGHT_WRIST, 0.64f + armSpread, 0.52f + body - armRaise, 0.8f);
+            pose.set(PoseFrame.LEFT_HIP, 0.45f, 0.55f + body, 0.9f);
+            pose.set(PoseFrame.RIGHT_HIP, 0.55f, 0.55f + body, 0.9f);
+            pose.set(PoseFrame.LEFT_KNEE, 0.45f - armSpread / 3, 0.72f + body / 2 - kneeLift, 0.85f);
+            pose.set(PoseFrame.RIGHT_KNEE, 0.55f + armSpread / 3, 0.72f + body / 2 - (0.10f - kneeLift), 0.85f);
+            pose.set(PoseFrame.LEFT_ANKLE, 0.45f - armSpread / 2, 0.90f + body / 3, 0.8f);
+            pose.set(PoseFrame.RIGHT_ANKLE, 0.55f + armSpread / 2, 0.90f + body / 3, 0.8f);
+            pose.setMetadata(i, START_NANOS + i * FRAME_NANOS, true);
+            poses[i] = pose;
+        }
+        return poses;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.afinal;
+
+/**
+ * BuildConfig - Stand-in for the Android-generated class, with release values
+ * so the benchmarks measure the counters with debug logging compiled out
+ */
+public final class BuildConfig {
+    public static final boolean DEBUG = false;
+    public static final boolean POSE_LOGGING = false;
+
+    private BuildConfig() {
+    }
+}